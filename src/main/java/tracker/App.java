@@ -3,23 +3,61 @@ package tracker;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import picocli.CommandLine;
+import tracker.archive.Archive;
+import tracker.archive.ArchiveSummary;
+import tracker.archive.ArchiveVerifier;
+import tracker.archive.ArchiveWatcher;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.PayPeriodStore;
+import tracker.calendar.DayBitmap;
+import tracker.calendar.WorkedDayIndex;
 import tracker.jackson.PayPeriodDeserializer;
 import tracker.jackson.PayPeriodSerializer;
+import tracker.merge.ShiftDeduplicator;
+import tracker.profile.Profiler;
+import tracker.profile.Stage;
+import tracker.query.GroupBy;
+import tracker.query.QueryEngine;
+import tracker.query.ShiftFilter;
+import tracker.server.PayPeriodServer;
+import tracker.simulate.PaySimulator;
+import tracker.simulate.RateSchedule;
+import tracker.snapshot.SnapshotStore;
+import tracker.stats.QuantileSketch;
+import tracker.stats.ShiftStats;
+import tracker.stats.StatsEngine;
+import tracker.tenant.Tenant;
+import tracker.tenant.TenantReport;
+import tracker.tenant.TenantSettings;
+import tracker.transaction.Operation;
+import tracker.transaction.Transaction;
+import tracker.transaction.TransactionScript;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.UnaryOperator;
 
 /**
  * The main Shift Tracker application, implemented with the Picocli library.
@@ -32,8 +70,6 @@ public class App implements Runnable {
 	private static final String USER_PROMPT = " > ";
 	/** The number of tries to attempt to get valid user input. */
 	private static final int ATTEMPTS = 3;
-	/** The current year, to append to dates given by user. */
-	private static final int YEAR = 2024;
 
 	/** Scanner object used to take user input. */
 	private final Scanner scanner;
@@ -41,25 +77,66 @@ public class App implements Runnable {
 	private final ObjectMapper objectMapper;
 	/** Object writer to use to indent JSON files during serialization of {@link PayPeriod} objects. */
 	private final ObjectWriter objectWriter;
+	/** Store to read and write {@link PayPeriod} JSON files with, safe with other writers. */
+	private final PayPeriodStore store;
+	/** Version of every {@link PayPeriod} JSON file read, by absolute path, null for a file that did not exist. */
+	private final Map<Path, String> versions = new HashMap<>();
+	/** Settings of the tenant whose directory is worked on: locations, default pay rate, and year. */
+	private TenantSettings settings = TenantSettings.defaults();
+	/** Is the profiling report printed at exit? */
+	private boolean profiling = false;
+
+	/**
+	 * Print the latency and allocation of every stage of the run to stderr when the program exits,
+	 * including when it exits from an error.
+	 *
+	 * @param profile Print the report?
+	 */
+	@CommandLine.Option(names = {"--profile"},
+	                    description = "Print the latency and allocation of every stage of the run at exit.",
+	                    scope = CommandLine.ScopeType.INHERIT)
+	private void setProfile(boolean profile) {
+		if (profile && !profiling) {
+			profiling = true;
+			Profiler.enable();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> Profiler.report(System.err)));
+		}
+	}
 
 	public App() {
 		this.scanner = new Scanner(System.in);
+		this.objectMapper = newObjectMapper();
+		this.objectWriter = newObjectWriter(objectMapper);
+		this.store = new PayPeriodStore(objectMapper, objectWriter);
+	}
 
-		// register customer de/serializers for PayPeriod objects
-		SimpleModule simpleModule = new SimpleModule(
-			"PayPeriod De/Serializer",
-			new Version(1, 0, 0, null, null, null)
-		);
-		simpleModule.addDeserializer(PayPeriod.class, new PayPeriodDeserializer());
-		simpleModule.addSerializer(PayPeriod.class, new PayPeriodSerializer());
-		this.objectMapper = new ObjectMapper().registerModule(simpleModule);
+	/**
+	 * @return New object mapper with the custom de/serializers for {@link PayPeriod} objects registered.
+	 */
+	public static ObjectMapper newObjectMapper() {
+		try (Profiler.Timer timer = Profiler.time(Stage.OBJECT_MAPPER)) {
+			// register customer de/serializers for PayPeriod objects
+			SimpleModule simpleModule = new SimpleModule(
+				"PayPeriod De/Serializer",
+				new Version(1, 0, 0, null, null, null)
+			);
+			simpleModule.addDeserializer(PayPeriod.class, new PayPeriodDeserializer());
+			simpleModule.addSerializer(PayPeriod.class, new PayPeriodSerializer());
+			return new ObjectMapper().registerModule(simpleModule);
+		}
+	}
 
+	/**
+	 * @param objectMapper Object mapper to create the writer from.
+	 * @return New object writer indenting JSON files with tabs, as {@link PayPeriod} JSON files are written.
+	 */
+	public static ObjectWriter newObjectWriter(ObjectMapper objectMapper) {
 		// set indent and eol characters for output json file
 		DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
 		DefaultPrettyPrinter.Indenter indenter = new DefaultIndenter("\t", "\n");
 		prettyPrinter.indentArraysWith(indenter);
 		prettyPrinter.indentObjectsWith(indenter);
-		this.objectWriter = objectMapper.writer(prettyPrinter);
+		return objectMapper.writer(prettyPrinter);
 	}
 
 	/**
@@ -68,21 +145,30 @@ public class App implements Runnable {
 	 * @param args command line arguments
 	 */
 	public static void main(String[] args) {
-		new CommandLine(new App()).execute(args);
+		// the option is parsed only once the App and its ObjectMapper are constructed, so look for it beforehand
+		if (Arrays.asList(args).contains("--profile")) {
+			Profiler.enable();
+		}
+		Profiler.recordJvmStart();
+		new CommandLine(new App()).setCaseInsensitiveEnumValuesAllowed(true).execute(args);
 	}
 
 	/**
 	 * Create a new {@link PayPeriod} to write in a JSON file under the given directory.
 	 * Prompts the user to enter the date on which the new {@linkplain PayPeriod} starts.
 	 *
-	 * @param dirPath Directory to create a new {@linkplain PayPeriod} JSON file.
+	 * @param dirPath  Directory to create a new {@linkplain PayPeriod} JSON file.
+	 * @param compress Compress the new {@linkplain PayPeriod} JSON file with gzip?
 	 */
 	@CommandLine.Command(name = "new",
 	                     description = "Create a new PayPeriod JSON file.")
 	public void createNewPayPeriod(@CommandLine.Parameters(arity = "1",
 	                                                       paramLabel = "<directory>",
 	                                                       description = "Directory to create a new PayPeriod JSON file.")
-	                               String dirPath) {
+	                               String dirPath,
+	                               @CommandLine.Option(names = {"-z", "--compress"},
+	                                                   description = "Compress the new PayPeriod JSON file with gzip.")
+	                               boolean compress) {
 		String jsonFilePath = null;
 		try {
 			System.out.println("Searching for " + dirPath + "...");
@@ -91,15 +177,19 @@ public class App implements Runnable {
 				throw new NotDirectoryException(dirPath);
 			}
 			System.out.println("File found, creating a new PayPeriod...");
+			settings = TenantSettings.load(directoryFile.toPath());
 
 			String date = getDate("When does the pay period start?");
-			jsonFilePath = directoryFile.getPath() + File.separator + date + ".json";
-			File jsonFile = new File(jsonFilePath);
-			if (jsonFile.exists()) {
+			String extension = compress ? PayPeriodFiles.COMPRESSED_EXTENSION : PayPeriodFiles.EXTENSION;
+			jsonFilePath = directoryFile.getPath() + File.separator + date + extension;
+			if (new Archive(objectMapper, directoryFile.toPath()).findFile(LocalDate.parse(date)) != null) {
 				throw new FileAlreadyExistsException(jsonFilePath);
 			}
 
-			objectWriter.writeValue(jsonFile, new PayPeriod(date));
+			// another writer may create the file after the check above, in which case the new PayPeriod is not written
+			if (store.write(Path.of(jsonFilePath), null, new PayPeriod(date), latest -> null) == PayPeriodStore.Outcome.CONFLICT) {
+				throw new FileAlreadyExistsException(jsonFilePath);
+			}
 			System.out.println("PayPeriod written to " + jsonFilePath + ".");
 		} catch (NotDirectoryException e) {
 			System.out.println("Directory " + dirPath + " not found.");
@@ -148,7 +238,7 @@ public class App implements Runnable {
 	                        String filePath,
 	                        @CommandLine.Option(names = {"-d", "--default-pay-rate"},
 	                                            description = "Create new Shift with default pay rate of $" + Shift.DEFAULT_PAY_RATE
-		                                            + ". Applies to all shifts being creating when this command is run.")
+		                                            + ", or of the tenant. Applies to all shifts being creating when this command is run.")
 	                        boolean useDefaultPayRate,
 	                        @CommandLine.Option(names = {"-n", "--number"},
 	                                            paramLabel = "<integer>",
@@ -157,6 +247,7 @@ public class App implements Runnable {
 	                        int numOfShifts) {
 		try {
 			PayPeriod payPeriod = createPayPeriod(filePath);
+			List<Shift> newShifts = new ArrayList<>();
 
 			for (int i = 0; i < numOfShifts; ++i) {
 				String newShiftMessage = "Creating a new Shift";
@@ -177,9 +268,12 @@ public class App implements Runnable {
 				Shift newShift = new Shift(location, date, clockIn, clockOut, payRate);
 				System.out.println("Adding new Shift to PayPeriod...");
 				payPeriod.addShift(newShift);
+				newShifts.add(newShift);
 			}
 
-			writePayPeriod(filePath, payPeriod);
+			writePayPeriod(filePath, payPeriod, latest -> {
+				return (latest != null) ? reapplyShifts(latest, newShifts) : null;
+			});
 		} catch (FileNotFoundException e) {
 			System.out.println("File " + filePath + " not found.");
 		} catch (IOException e) {
@@ -265,7 +359,14 @@ public class App implements Runnable {
 				payPeriod.removeShift(oldShift);
 				System.out.println("Adding new Shift to PayPeriod...");
 				payPeriod.addShift(newShift);
-				writePayPeriod(filePath, payPeriod);
+				Shift editedShift = newShift;
+				writePayPeriod(filePath, payPeriod, latest -> {
+					if (latest == null || !latest.getShifts().contains(oldShift)) {
+						return null;
+					}
+					latest.removeShift(oldShift);
+					return reapplyShifts(latest, List.of(editedShift));
+				});
 			} else {
 				System.out.println("No changes were made to the selected Shift.");
 			}
@@ -300,7 +401,13 @@ public class App implements Runnable {
 			}
 			payPeriod.removeShift(selectedShift);
 
-			writePayPeriod(filePath, payPeriod);
+			writePayPeriod(filePath, payPeriod, latest -> {
+				if (latest == null || !latest.getShifts().contains(selectedShift)) {
+					return null;
+				}
+				latest.removeShift(selectedShift);
+				return latest;
+			});
 		} catch (FileNotFoundException e) {
 			System.out.println("File " + filePath + " not found.");
 		} catch (MissingResourceException e) {
@@ -312,6 +419,851 @@ public class App implements Runnable {
 		exit();
 	}
 
+	/**
+	 * Merge the {@link Shift Shifts} of the given {@link PayPeriod} JSON files into the {@linkplain PayPeriod PayPeriods}
+	 * in the given directory, skipping duplicate {@linkplain Shift Shifts} and reporting conflicting ones.
+	 * {@linkplain PayPeriod PayPeriods} already in the directory are read first, so their {@linkplain Shift Shifts}
+	 * are kept over conflicting {@linkplain Shift Shifts} from the sources.
+	 * A merged {@linkplain PayPeriod} is written back to its plain or compressed file in the directory, if it has one.
+	 *
+	 * @param dirPath Directory to write the merged {@linkplain PayPeriod} JSON files.
+	 * @param sources {@linkplain PayPeriod} JSON files, or directories of them, to merge.
+	 */
+	@CommandLine.Command(name = "merge",
+	                     description = "Merge PayPeriod JSON files into a directory, skipping duplicate Shifts.")
+	public void mergePayPeriods(@CommandLine.Parameters(index = "0",
+	                                                    arity = "1",
+	                                                    paramLabel = "<directory>",
+	                                                    description = "Directory to write the merged PayPeriod JSON files.")
+	                            String dirPath,
+	                            @CommandLine.Parameters(index = "1..*",
+	                                                    arity = "1..*",
+	                                                    paramLabel = "<source>",
+	                                                    description = "PayPeriod JSON files, or directories of them, to merge.")
+	                            List<String> sources) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			List<Path> files = new ArrayList<>(PayPeriodFiles.list(directoryFile.toPath()));
+			files.addAll(PayPeriodFiles.collect(sources));
+			System.out.println("Merging " + files.size() + " PayPeriod files...");
+
+			ShiftDeduplicator deduplicator = new ShiftDeduplicator();
+			SortedMap<String, List<Shift>> merged = new TreeMap<>();
+			for (Path file : files) {
+				// read the shifts as listed, since a PayPeriod would already drop shifts with the same date and time
+				PayPeriodStore.VersionedTree versioned = store.readTree(file);
+				versions.put(file.toAbsolutePath().normalize(), versioned.version());
+				JsonNode payPeriodNode = versioned.tree();
+				String start = payPeriodNode.get("start").textValue();
+				List<Shift> shifts = merged.computeIfAbsent(start, key -> new ArrayList<>());
+				for (Shift shift : PayPeriodDeserializer.deserializeShifts(payPeriodNode)) {
+					if (deduplicator.offer(shift) == ShiftDeduplicator.Result.ADDED) {
+						shifts.add(shift);
+					}
+				}
+			}
+
+			Archive archive = new Archive(objectMapper, directoryFile.toPath());
+			for (Map.Entry<String, List<Shift>> entry : merged.entrySet()) {
+				// write back to the plain or compressed file already in the directory, if there is one
+				Path existing = archive.findFile(LocalDate.parse(entry.getKey()));
+				String jsonFilePath = (existing != null) ? existing.toString()
+					: directoryFile.getPath() + File.separator + entry.getKey() + PayPeriodFiles.EXTENSION;
+				writePayPeriod(jsonFilePath, new PayPeriod(entry.getKey(), null, entry.getValue()), latest -> {
+					if (latest == null) {
+						return new PayPeriod(entry.getKey(), null, entry.getValue());
+					}
+					// Shifts written since the directory was read conflict with merged Shifts clocked in at the same time
+					return reapplyShifts(latest, entry.getValue());
+				});
+			}
+
+			System.out.println("Merged " + deduplicator.getSize() + " Shifts into " + merged.size() + " PayPeriods.");
+			System.out.println("Skipped " + deduplicator.getDuplicates() + " duplicate Shifts.");
+			List<ShiftDeduplicator.Conflict> conflicts = deduplicator.getConflicts();
+			System.out.println("Skipped " + conflicts.size() + " conflicting Shifts.");
+			for (ShiftDeduplicator.Conflict conflict : conflicts) {
+				System.out.println("\tKept " + conflict.kept() + " at $" + conflict.kept().getPayRate()
+					+ ", skipped " + conflict.rejected() + " at $" + conflict.rejected().getPayRate());
+			}
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (FileNotFoundException e) {
+			System.out.println("File " + e.getMessage() + " not found.");
+		} catch (IOException e) {
+			System.out.println("Error merging PayPeriods into " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Check that every {@link PayPeriod} JSON file in the given directory has stored totals and an end date
+	 * consistent with its {@link Shift Shifts}, skipping files unchanged since they last passed.
+	 *
+	 * @param dirPath Directory of {@linkplain PayPeriod} JSON files.
+	 * @param threads Number of files to verify in parallel.
+	 * @param full    Verify every file, even those unchanged since they last passed?
+	 */
+	@CommandLine.Command(name = "verify",
+	                     description = "Verify the totals and dates of the PayPeriod JSON files in a directory.")
+	public void verifyPayPeriods(@CommandLine.Parameters(arity = "1",
+	                                                     paramLabel = "<directory>",
+	                                                     description = "Directory of PayPeriod JSON files.")
+	                             String dirPath,
+	                             @CommandLine.Option(names = {"-j", "--threads"},
+	                                                 paramLabel = "<integer>",
+	                                                 description = "Number of files to verify in parallel. Defaults to the number of processors.")
+	                             Integer threads,
+	                             @CommandLine.Option(names = {"-f", "--full"},
+	                                                 description = "Verify every file, even those unchanged since they last passed.")
+	                             boolean full) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			int workers = (threads != null) ? threads : Runtime.getRuntime().availableProcessors();
+			ArchiveVerifier verifier = new ArchiveVerifier(objectMapper, workers);
+			List<ArchiveVerifier.Result> results = verifier.verify(directoryFile.toPath(), full);
+
+			int skipped = 0;
+			int failed = 0;
+			for (ArchiveVerifier.Result result : results) {
+				if (result.status() == ArchiveVerifier.Status.SKIPPED) {
+					++skipped;
+				} else if (result.status() == ArchiveVerifier.Status.FAILED) {
+					++failed;
+					System.out.println(result.file() + ":");
+					for (String problem : result.problems()) {
+						System.out.println("\t" + problem);
+					}
+				}
+			}
+			System.out.println("Verified " + results.size() + " PayPeriod files (" + skipped + " unchanged), "
+				+ failed + " failed.");
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (IOException e) {
+			System.out.println("Error verifying PayPeriods in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Pack the closed {@link PayPeriod} JSON files in the given directory into yearly segment files,
+	 * then delete the JSON files packed.
+	 *
+	 * @param dirPath Directory of {@linkplain PayPeriod} JSON files.
+	 * @param before  {@linkplain PayPeriod PayPeriods} ending before this date are closed, in the format <code>YYYY-MM-DD</code>.
+	 */
+	@CommandLine.Command(name = "archive",
+	                     description = "Pack closed PayPeriod JSON files in a directory into yearly segment files.")
+	public void archivePayPeriods(@CommandLine.Parameters(arity = "1",
+	                                                      paramLabel = "<directory>",
+	                                                      description = "Directory of PayPeriod JSON files.")
+	                              String dirPath,
+	                              @CommandLine.Option(names = {"-b", "--before"},
+	                                                  paramLabel = "<YYYY-MM-DD>",
+	                                                  description = "Pack PayPeriods ending before this date. Defaults to today.")
+	                              String before) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			LocalDate beforeDate = (before != null) ? LocalDate.parse(before) : LocalDate.now();
+			Archive archive = new Archive(objectMapper, directoryFile.toPath());
+			List<LocalDate> archived = archive.archive(beforeDate);
+			for (LocalDate start : archived) {
+				System.out.println("\tArchived " + start + " into " + archive.segmentOf(start.getYear()));
+			}
+			System.out.println("Archived " + archived.size() + " PayPeriods ending before " + beforeDate + ".");
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (DateTimeParseException e) {
+			System.out.println("Error parsing given date " + before + ".");
+		} catch (IOException e) {
+			System.out.println("Error archiving PayPeriods in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Filter the {@link Shift Shifts} of every {@link PayPeriod} in the given directory and print their totals by group.
+	 *
+	 * @param dirPath   Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param from      First day to include, in the format <code>YYYY-MM-DD</code>, may be null.
+	 * @param to        Last day to include, in the format <code>YYYY-MM-DD</code>, may be null.
+	 * @param locations Locations to include, may be null.
+	 * @param weekdays  Days of the week to include, may be null.
+	 * @param minRate   Lowest pay rate to include, may be null.
+	 * @param maxRate   Highest pay rate to include, may be null.
+	 * @param groupBy   How to group the {@linkplain Shift Shifts}.
+	 */
+	@CommandLine.Command(name = "query",
+	                     description = "Filter the Shifts in a directory of PayPeriods and print their totals by group.")
+	public void queryPayPeriods(@CommandLine.Parameters(arity = "1",
+	                                                    paramLabel = "<directory>",
+	                                                    description = "Directory of PayPeriod JSON files.")
+	                            String dirPath,
+	                            @CommandLine.Option(names = {"--from"},
+	                                                paramLabel = "<YYYY-MM-DD>",
+	                                                description = "First day to include.")
+	                            String from,
+	                            @CommandLine.Option(names = {"--to"},
+	                                                paramLabel = "<YYYY-MM-DD>",
+	                                                description = "Last day to include.")
+	                            String to,
+	                            @CommandLine.Option(names = {"-l", "--location"},
+	                                                paramLabel = "<location>",
+	                                                description = "Location to include, may be repeated.")
+	                            List<String> locations,
+	                            @CommandLine.Option(names = {"-w", "--weekday"},
+	                                                paramLabel = "<day>",
+	                                                description = "Day of the week to include, may be repeated: ${COMPLETION-CANDIDATES}.")
+	                            List<DayOfWeek> weekdays,
+	                            @CommandLine.Option(names = {"--min-rate"},
+	                                                paramLabel = "<number>",
+	                                                description = "Lowest pay rate to include.")
+	                            Double minRate,
+	                            @CommandLine.Option(names = {"--max-rate"},
+	                                                paramLabel = "<number>",
+	                                                description = "Highest pay rate to include.")
+	                            Double maxRate,
+	                            @CommandLine.Option(names = {"-g", "--group-by"},
+	                                                paramLabel = "<group>",
+	                                                description = "Group Shifts by: ${COMPLETION-CANDIDATES}. Defaults to ${DEFAULT-VALUE}.",
+	                                                defaultValue = "NONE")
+	                            GroupBy groupBy) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			ShiftFilter filter = new ShiftFilter(
+				(from != null) ? LocalDate.parse(from) : null,
+				(to != null) ? LocalDate.parse(to) : null,
+				locations, weekdays, minRate, maxRate
+			);
+			QueryEngine engine = new QueryEngine(objectMapper, new Archive(objectMapper, directoryFile.toPath()));
+			QueryEngine.Result result = engine.run(filter, groupBy);
+
+			result.groups().forEach((group, totals) -> System.out.println(group + " - " + totals));
+			System.out.println("Total - " + result.total());
+			System.out.println("Parsed " + result.scanned() + " PayPeriods, skipped " + result.skipped() + ".");
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (DateTimeParseException e) {
+			System.out.println("Error parsing given date " + e.getParsedString() + ".");
+		} catch (IOException e) {
+			System.out.println("Error querying PayPeriods in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Recompute the pay of every {@link Shift} in the given directory of {@link PayPeriod PayPeriods} by a schedule of
+	 * pay rates, printing the difference with the pay earned for every {@linkplain PayPeriod}. No file is rewritten.
+	 *
+	 * @param dirPath Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param rates   Entries of the schedule of pay rates.
+	 * @param changed Print only the {@linkplain PayPeriod PayPeriods} whose pay would change?
+	 */
+	@CommandLine.Command(name = "simulate",
+	                     description = "Recompute the pay of the PayPeriods in a directory by a schedule of pay rates.")
+	public void simulatePayRates(@CommandLine.Parameters(arity = "1",
+	                                                     paramLabel = "<directory>",
+	                                                     description = "Directory of PayPeriod JSON files.")
+	                             String dirPath,
+	                             @CommandLine.Option(names = {"-r", "--rate"},
+	                                                 paramLabel = "<YYYY-MM-DD=rate>",
+	                                                 description = "Pay rate in effect from a date, may be repeated. Prefix the rate with + or - to add it to the pay rate of each Shift.",
+	                                                 required = true)
+	                             List<String> rates,
+	                             @CommandLine.Option(names = {"-c", "--changed"},
+	                                                 description = "Print only the PayPeriods whose pay would change.")
+	                             boolean changed) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			RateSchedule schedule = new RateSchedule(rates);
+			PaySimulator simulator = new PaySimulator(objectMapper, new Archive(objectMapper, directoryFile.toPath()));
+			SortedMap<LocalDate, PaySimulator.Delta> deltas = simulator.run(schedule);
+
+			double pay = 0;
+			double simulatedPay = 0;
+			for (PaySimulator.Delta delta : deltas.values()) {
+				pay += delta.pay();
+				simulatedPay += delta.simulatedPay();
+				if (!changed || Math.abs(delta.delta()) >= 0.005) {
+					System.out.println(String.format("%s - Shifts: %d, Earned: %.2f, Simulated: %.2f, Difference: %+.2f",
+						delta.start(), delta.shifts(), delta.pay(), delta.simulatedPay(), delta.delta()));
+				}
+			}
+			System.out.println(String.format("Total - PayPeriods: %d, Earned: %.2f, Simulated: %.2f, Difference: %+.2f",
+				deltas.size(), pay, simulatedPay, simulatedPay - pay));
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (DateTimeParseException e) {
+			System.out.println("Error parsing given date " + e.getParsedString() + ".");
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		} catch (IOException e) {
+			System.out.println("Error simulating PayPeriods in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Print distribution statistics of every {@link Shift} in the given directory of {@link PayPeriod PayPeriods}:
+	 * percentiles of the length of a shift, the longest shifts, the busiest days of the week,
+	 * and a histogram of the hour clocked in.
+	 *
+	 * @param dirPath Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param top     Number of longest {@linkplain Shift Shifts} to print.
+	 */
+	@CommandLine.Command(name = "stats",
+	                     description = "Print distribution statistics of the Shifts in a directory of PayPeriods.")
+	public void printStats(@CommandLine.Parameters(arity = "1",
+	                                               paramLabel = "<directory>",
+	                                               description = "Directory of PayPeriod JSON files.")
+	                       String dirPath,
+	                       @CommandLine.Option(names = {"-k", "--top"},
+	                                           paramLabel = "<integer>",
+	                                           description = "Number of longest Shifts to print. Defaults to ${DEFAULT-VALUE}.",
+	                                           defaultValue = "5")
+	                       int top) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			StatsEngine engine = new StatsEngine(objectMapper, new Archive(objectMapper, directoryFile.toPath()), top);
+			ShiftStats stats = engine.run();
+			System.out.println("Shifts: " + stats.getCount());
+			if (stats.getCount() == 0) {
+				exit();
+			}
+
+			QuantileSketch lengths = stats.getLengths();
+			System.out.println(String.format("Shift length (hours) - Min: %.2f, P25: %.2f, P50: %.2f, P75: %.2f, P90: %.2f, P99: %.2f, Max: %.2f",
+				lengths.getMin(), lengths.quantile(0.25), lengths.quantile(0.5), lengths.quantile(0.75),
+				lengths.quantile(0.9), lengths.quantile(0.99), lengths.getMax()));
+
+			System.out.println("Longest Shifts:");
+			for (Shift shift : stats.getLongest()) {
+				System.out.println(String.format("\t%s - %.2f hours", shift, shift.calcTotalHours()));
+			}
+
+			System.out.println("Busiest days of the week:");
+			List<DayOfWeek> weekdays = new ArrayList<>(List.of(DayOfWeek.values()));
+			weekdays.sort(Comparator.comparingDouble(stats::getWeekdayHours).reversed());
+			for (DayOfWeek weekday : weekdays) {
+				System.out.println(String.format("\t%-9s - Shifts: %d, Hours: %.2f",
+					weekday, stats.getWeekdayShifts(weekday), stats.getWeekdayHours(weekday)));
+			}
+
+			System.out.println("Clocked in by hour:");
+			long most = 0;
+			for (int hour = 0; hour < ShiftStats.HOURS; ++hour) {
+				most = Math.max(most, stats.getClockIns(hour));
+			}
+			for (int hour = 0; hour < ShiftStats.HOURS; ++hour) {
+				long clockIns = stats.getClockIns(hour);
+				if (clockIns > 0) {
+					int width = (int) Math.max(1, clockIns * 40 / most);
+					System.out.println(String.format("\t%s | %s %d", LocalTime.of(hour, 0), "#".repeat(width), clockIns));
+				}
+			}
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (IOException e) {
+			System.out.println("Error reading PayPeriods in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Create or update a tenant of a sharded archive: the directory of {@link PayPeriod PayPeriods} of one employee
+	 * under the given root directory, and its settings. Settings not given are kept, or else left to their default.
+	 *
+	 * @param rootPath  Root directory of the sharded archive.
+	 * @param name      Name of the tenant.
+	 * @param locations Locations the tenant works at.
+	 * @param payRate   Default pay rate of the tenant.
+	 * @param year      Year to append to dates entered for the tenant.
+	 */
+	@CommandLine.Command(name = "tenant",
+	                     description = "Create or update the directory and settings of a tenant of a sharded archive.")
+	public void createTenant(@CommandLine.Parameters(index = "0",
+	                                                 arity = "1",
+	                                                 paramLabel = "<root>",
+	                                                 description = "Root directory of the sharded archive.")
+	                         String rootPath,
+	                         @CommandLine.Parameters(index = "1",
+	                                                 arity = "1",
+	                                                 paramLabel = "<name>",
+	                                                 description = "Name of the tenant.")
+	                         String name,
+	                         @CommandLine.Option(names = {"-l", "--location"},
+	                                             paramLabel = "<location>",
+	                                             description = "Location the tenant works at, may be repeated.")
+	                         List<String> locations,
+	                         @CommandLine.Option(names = {"-p", "--pay-rate"},
+	                                             paramLabel = "<number>",
+	                                             description = "Default pay rate of the tenant.")
+	                         Double payRate,
+	                         @CommandLine.Option(names = {"-y", "--year"},
+	                                             paramLabel = "<integer>",
+	                                             description = "Year to append to dates entered for the tenant.")
+	                         Integer year) {
+		try {
+			File rootFile = new File(rootPath);
+			if (!rootFile.isDirectory()) {
+				throw new NotDirectoryException(rootPath);
+			}
+			if (!name.matches("[\\w-][\\w.-]*")) {
+				System.out.println("Invalid tenant name " + name + ".");
+				exit();
+			}
+
+			Path directory = Files.createDirectories(rootFile.toPath().resolve(name));
+			TenantSettings current = TenantSettings.load(directory);
+			List<String> names = new ArrayList<>();
+			if (locations != null) {
+				for (String location : locations) {
+					// spell known locations as they are configured
+					names.add(LocationRegistry.name(LocationRegistry.intern(location.trim())));
+				}
+			}
+			TenantSettings updated = new TenantSettings(
+				!names.isEmpty() ? List.copyOf(names) : current.locations(),
+				(payRate != null) ? payRate : current.defaultPayRate(),
+				(year != null) ? year : current.year()
+			);
+			updated.store(directory);
+			System.out.println("Tenant " + name + " in " + directory + " - Locations: " + String.join(", ", updated.locations())
+				+ ", Default pay rate: $" + updated.defaultPayRate() + ", Year: " + updated.year());
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + rootPath + " not found.");
+		} catch (IOException e) {
+			System.out.println("Error writing settings of tenant " + name + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Filter the {@link Shift Shifts} of every tenant of a sharded archive and print their totals by tenant and group,
+	 * querying the tenants in parallel.
+	 *
+	 * @param rootPath Root directory of the sharded archive.
+	 * @param from     First day to include, may be null.
+	 * @param to       Last day to include, may be null.
+	 * @param groupBy  How to group the {@linkplain Shift Shifts} of each tenant.
+	 * @param threads  Number of worker threads to query tenants with.
+	 */
+	@CommandLine.Command(name = "report",
+	                     description = "Print the totals of every tenant of a sharded archive, querying tenants in parallel.")
+	public void reportTenants(@CommandLine.Parameters(arity = "1",
+	                                                  paramLabel = "<root>",
+	                                                  description = "Root directory of the sharded archive.")
+	                          String rootPath,
+	                          @CommandLine.Option(names = {"--from"},
+	                                              paramLabel = "<YYYY-MM-DD>",
+	                                              description = "First day to include.")
+	                          String from,
+	                          @CommandLine.Option(names = {"--to"},
+	                                              paramLabel = "<YYYY-MM-DD>",
+	                                              description = "Last day to include.")
+	                          String to,
+	                          @CommandLine.Option(names = {"-g", "--group-by"},
+	                                              paramLabel = "<group>",
+	                                              description = "Group Shifts of each tenant by: ${COMPLETION-CANDIDATES}. Defaults to ${DEFAULT-VALUE}.",
+	                                              defaultValue = "NONE")
+	                          GroupBy groupBy,
+	                          @CommandLine.Option(names = {"-j", "--threads"},
+	                                              paramLabel = "<integer>",
+	                                              description = "Number of worker threads. Defaults to the number of processors.")
+	                          Integer threads) {
+		try {
+			File rootFile = new File(rootPath);
+			if (!rootFile.isDirectory()) {
+				throw new NotDirectoryException(rootPath);
+			}
+
+			ShiftFilter filter = new ShiftFilter(
+				(from != null) ? LocalDate.parse(from) : null,
+				(to != null) ? LocalDate.parse(to) : null,
+				null, null, null, null
+			);
+			List<Tenant> tenants = Tenant.list(rootFile.toPath());
+			int workers = (threads != null) ? threads : Runtime.getRuntime().availableProcessors();
+			TenantReport.Result result = new TenantReport(objectMapper, workers).run(tenants, filter, groupBy);
+
+			for (Map.Entry<String, QueryEngine.Result> tenant : result.tenants().entrySet()) {
+				System.out.println(tenant.getKey() + " - " + tenant.getValue().total());
+				if (groupBy != GroupBy.NONE) {
+					tenant.getValue().groups().forEach((group, totals) -> System.out.println("\t" + group + " - " + totals));
+				}
+			}
+			System.out.println("Total of " + tenants.size() + " tenants - " + result.total());
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + rootPath + " not found.");
+		} catch (DateTimeParseException e) {
+			System.out.println("Error parsing given date " + e.getParsedString() + ".");
+		} catch (IOException e) {
+			System.out.println("Error reporting tenants in " + rootPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Apply a script of add, edit and remove operations to the {@link PayPeriod PayPeriods} in the given directory,
+	 * then write every changed {@linkplain PayPeriod} at once. If any operation fails, nothing is written.
+	 *
+	 * @param dirPath    Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param scriptPath Path to the script, or <code>-</code> to read the script from standard input.
+	 * @param dryRun     Print the changed {@linkplain PayPeriod PayPeriods} without writing them?
+	 */
+	@CommandLine.Command(name = "transaction",
+	                     description = "Apply a script of add, edit and remove operations to the PayPeriods in a directory at once.")
+	public void runTransaction(@CommandLine.Parameters(index = "0",
+	                                                   arity = "1",
+	                                                   paramLabel = "<directory>",
+	                                                   description = "Directory of PayPeriod JSON files.")
+	                           String dirPath,
+	                           @CommandLine.Parameters(index = "1",
+	                                                   arity = "1",
+	                                                   paramLabel = "<script>",
+	                                                   description = "Script of operations, or - to read it from standard input.")
+	                           String scriptPath,
+	                           @CommandLine.Option(names = {"-n", "--dry-run"},
+	                                               description = "Print the changed PayPeriods without writing them.")
+	                           boolean dryRun) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+			settings = TenantSettings.load(directoryFile.toPath());
+
+			List<String> lines = new ArrayList<>();
+			if (scriptPath.equals("-")) {
+				while (scanner.hasNextLine()) {
+					lines.add(scanner.nextLine());
+				}
+			} else {
+				lines = Files.readAllLines(Path.of(scriptPath));
+			}
+			List<Operation> operations = TransactionScript.parse(lines, settings);
+
+			Transaction transaction = new Transaction(objectMapper, store, new Archive(objectMapper, directoryFile.toPath()));
+			Transaction.Result result = transaction.run(operations, dryRun);
+			if (!result.conflicts().isEmpty()) {
+				for (Path conflict : result.conflicts()) {
+					System.out.println("PayPeriod in " + conflict + " was changed by another writer.");
+				}
+				System.out.println("No changes were written.");
+				exit();
+			}
+
+			for (Map.Entry<Path, PayPeriod> entry : result.changed().entrySet()) {
+				PayPeriod payPeriod = entry.getValue();
+				System.out.println(String.format("%s %s - Shifts: %d, Hours: %.2f, Earned: %.2f",
+					dryRun ? "PayPeriod would be updated in" : "PayPeriod updated in", entry.getKey(),
+					payPeriod.getShifts().size(), payPeriod.getHours(), payPeriod.getPay()));
+			}
+			if (!dryRun) {
+				result.changed().keySet().forEach(this::updateIndex);
+			}
+			System.out.println("Applied " + operations.size() + " operations to " + result.changed().size() + " PayPeriods"
+				+ (dryRun ? ", nothing was written." : "."));
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (NoSuchFileException e) {
+			System.out.println("File " + e.getFile() + " not found.");
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage() + " No changes were written.");
+		} catch (IOException e) {
+			System.out.println("Error applying transaction to " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Serve the {@link PayPeriod PayPeriods} in the given directory as JSON over HTTP, until the program is interrupted.
+	 *
+	 * @param dirPath Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param host    Host name or address to bind to.
+	 * @param port    Port to listen on.
+	 */
+	@CommandLine.Command(name = "server",
+	                     description = "Serve the PayPeriods in a directory as JSON over HTTP.")
+	public void servePayPeriods(@CommandLine.Parameters(arity = "1",
+	                                                    paramLabel = "<directory>",
+	                                                    description = "Directory of PayPeriod JSON files.")
+	                            String dirPath,
+	                            @CommandLine.Option(names = {"-b", "--bind"},
+	                                                paramLabel = "<host>",
+	                                                description = "Host name or address to bind to. Defaults to ${DEFAULT-VALUE}.",
+	                                                defaultValue = "127.0.0.1")
+	                            String host,
+	                            @CommandLine.Option(names = {"-p", "--port"},
+	                                                paramLabel = "<port>",
+	                                                description = "Port to listen on. Defaults to ${DEFAULT-VALUE}.",
+	                                                defaultValue = "8080")
+	                            int port) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			Archive archive = new Archive(objectMapper, directoryFile.toPath());
+			PayPeriodServer server = new PayPeriodServer(objectMapper, archive, new InetSocketAddress(host, port));
+			Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+			server.start();
+			System.out.println("Serving " + dirPath + " at http://" + host + ":" + server.getAddress().getPort()
+				+ PayPeriodServer.CONTEXT + " on " + (server.isVirtual() ? "virtual" : "platform")
+				+ " threads, press Ctrl+C to stop...");
+			new CountDownLatch(1).await();
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (BindException e) {
+			System.out.println("Error binding to " + host + ":" + port + ", " + e.getMessage() + ".");
+		} catch (InterruptedException e) {
+			System.out.println("Stopped serving " + dirPath + ".");
+		} catch (IOException e) {
+			System.out.println("Error serving directory " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Take a snapshot of the given directory into the given snapshot store, storing only the files that changed,
+	 * or list the snapshots in the store, or restore the snapshot of a point in time into the directory.
+	 *
+	 * @param dirPath   Directory of {@link PayPeriod} JSON files and segments.
+	 * @param storePath Directory of the snapshot store.
+	 * @param list      List the snapshots in the store instead?
+	 * @param point     Point in time to restore the snapshot of instead, may be null.
+	 */
+	@CommandLine.Command(name = "snapshot",
+	                     description = "Take, list or restore content-addressed snapshots of a directory of PayPeriods.")
+	public void snapshotPayPeriods(@CommandLine.Parameters(index = "0",
+	                                                       arity = "1",
+	                                                       paramLabel = "<directory>",
+	                                                       description = "Directory of PayPeriod JSON files.")
+	                               String dirPath,
+	                               @CommandLine.Parameters(index = "1",
+	                                                       arity = "1",
+	                                                       paramLabel = "<store>",
+	                                                       description = "Directory of the snapshot store.")
+	                               String storePath,
+	                               @CommandLine.Option(names = {"-l", "--list"},
+	                                                   description = "List the snapshots in the store.")
+	                               boolean list,
+	                               @CommandLine.Option(names = {"-r", "--restore"},
+	                                                   paramLabel = "<snapshot>",
+	                                                   description = "Restore the last snapshot taken at or before the given one, "
+		                                                   + "a prefix of its name such as 2024-01-15, or latest.")
+	                               String point) {
+		try {
+			SnapshotStore snapshots = new SnapshotStore(Path.of(storePath));
+			if (list) {
+				List<SnapshotStore.Info> infos = snapshots.list();
+				for (SnapshotStore.Info info : infos) {
+					System.out.println(info.id() + " - Files: " + info.files() + ", Bytes: " + info.bytes());
+				}
+				System.out.println("Found " + infos.size() + " snapshots in " + storePath + ".");
+			} else if (point != null) {
+				String id = snapshots.resolve(point);
+				if (id == null) {
+					System.out.println("No snapshot in " + storePath + " was taken at or before " + point + ".");
+					exit();
+				}
+				SnapshotStore.RestoreResult result = snapshots.restore(id, Path.of(dirPath));
+				for (String deleted : result.deleted()) {
+					System.out.println("Deleted " + deleted + ", which is not in the snapshot.");
+				}
+				System.out.println("Restored snapshot " + id + " to " + dirPath + ": " + result.restored() + " files restored, "
+					+ result.unchanged() + " unchanged, " + result.deleted().size() + " deleted.");
+			} else {
+				File directoryFile = new File(dirPath);
+				if (!directoryFile.isDirectory()) {
+					throw new NotDirectoryException(dirPath);
+				}
+				SnapshotStore.Result result = snapshots.snapshot(directoryFile.toPath());
+				System.out.println("Took snapshot " + result.id() + " of " + result.files() + " files: " + result.hashed()
+					+ " changed, " + result.added() + " new objects of " + result.bytesAdded() + " bytes stored.");
+			}
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (IOException e) {
+			System.out.println("Error with snapshots of " + dirPath + " in " + storePath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Print a calendar of the days worked in the given directory of {@link PayPeriod PayPeriods}, with the longest
+	 * streak of days worked and the longest gap between them, from the {@link WorkedDayIndex} of the directory.
+	 *
+	 * @param dirPath   Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param from      First day to include, in the format <code>YYYY-MM-DD</code>, may be null.
+	 * @param to        Last day to include, in the format <code>YYYY-MM-DD</code>, may be null.
+	 * @param locations Locations to include, may be null.
+	 * @param minGap    Shortest gap between days worked to list, may be null.
+	 */
+	@CommandLine.Command(name = "calendar",
+	                     description = "Print a calendar of the days worked in a directory of PayPeriods, with streaks and gaps.")
+	public void printCalendar(@CommandLine.Parameters(arity = "1",
+	                                                  paramLabel = "<directory>",
+	                                                  description = "Directory of PayPeriod JSON files.")
+	                          String dirPath,
+	                          @CommandLine.Option(names = {"--from"},
+	                                              paramLabel = "<YYYY-MM-DD>",
+	                                              description = "First day to include. Defaults to the first month worked.")
+	                          String from,
+	                          @CommandLine.Option(names = {"--to"},
+	                                              paramLabel = "<YYYY-MM-DD>",
+	                                              description = "Last day to include. Defaults to the last month worked.")
+	                          String to,
+	                          @CommandLine.Option(names = {"-l", "--location"},
+	                                              paramLabel = "<location>",
+	                                              description = "Location to include, may be repeated.")
+	                          List<String> locations,
+	                          @CommandLine.Option(names = {"-g", "--gaps"},
+	                                              paramLabel = "<days>",
+	                                              description = "List every gap of at least this many days without a Shift.")
+	                          Integer minGap) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			WorkedDayIndex index = WorkedDayIndex.open(objectMapper, directoryFile.toPath());
+			DayBitmap days = index.getDays();
+			if (locations != null) {
+				days = new DayBitmap();
+				for (String location : locations) {
+					days = days.or(index.getDays(location));
+				}
+			}
+			if ((from == null || to == null) && days.isEmpty()) {
+				System.out.println("No Shifts found in " + dirPath + ".");
+				exit();
+			}
+			LocalDate first = (from != null) ? LocalDate.parse(from) : days.first().withDayOfMonth(1);
+			LocalDate last = (to != null) ? LocalDate.parse(to) : YearMonth.from(days.last()).atEndOfMonth();
+			if (last.isBefore(first)) {
+				throw new IllegalArgumentException("Last day " + last + " is before first day " + first + ".");
+			}
+
+			DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMMM uuuu", Locale.US);
+			for (YearMonth month = YearMonth.from(first); !month.isAfter(YearMonth.from(last)); month = month.plusMonths(1)) {
+				LocalDate monthFirst = first.isAfter(month.atDay(1)) ? first : month.atDay(1);
+				LocalDate monthLast = last.isBefore(month.atEndOfMonth()) ? last : month.atEndOfMonth();
+				System.out.println(month.format(monthFormat) + " - " + days.count(monthFirst, monthLast) + " days worked");
+				printMonth(month, days, first, last);
+			}
+
+			long total = last.toEpochDay() - first.toEpochDay() + 1;
+			System.out.println("Worked " + days.count(first, last) + " of " + total + " days from " + first + " to " + last + ".");
+			DayBitmap.Run streak = days.longestRun(first, last);
+			System.out.println("Longest streak: " + ((streak != null)
+				? streak.length() + " days from " + streak.start() + " to " + streak.end() + "." : "none."));
+			DayBitmap.Run gap = days.longestGap(first, last);
+			System.out.println("Longest gap: " + ((gap != null)
+				? gap.length() + " days from " + gap.start() + " to " + gap.end() + "." : "none."));
+			if (locations == null) {
+				System.out.println("By location:");
+				for (Map.Entry<String, DayBitmap> entry : index.getLocations().entrySet()) {
+					System.out.println("\t" + entry.getKey() + " - " + entry.getValue().count(first, last) + " days worked");
+				}
+			}
+			if (minGap != null) {
+				System.out.println("Gaps of at least " + minGap + " days:");
+				for (DayBitmap.Run run : days.gaps(first, last)) {
+					if (run.length() >= minGap) {
+						System.out.println("\t" + run.start() + " to " + run.end() + " - " + run.length() + " days");
+					}
+				}
+			}
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (DateTimeParseException e) {
+			System.out.println("Error parsing given date " + e.getParsedString() + ".");
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		} catch (IOException e) {
+			System.out.println("Error indexing the days worked in " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
+	/**
+	 * Watch the given directory of {@link PayPeriod} JSON files, printing the totals of every file by pay period,
+	 * month and location, and updating them as files change, until the program is interrupted.
+	 *
+	 * @param dirPath        Directory of {@linkplain PayPeriod} JSON files.
+	 * @param debounceMillis Milliseconds without a change to wait before updating the totals.
+	 */
+	@CommandLine.Command(name = "watch",
+	                     description = "Watch a directory of PayPeriod JSON files and print totals as they change.")
+	public void watchPayPeriods(@CommandLine.Parameters(arity = "1",
+	                                                    paramLabel = "<directory>",
+	                                                    description = "Directory of PayPeriod JSON files.")
+	                            String dirPath,
+	                            @CommandLine.Option(names = {"--debounce"},
+	                                                paramLabel = "<milliseconds>",
+	                                                description = "Milliseconds without a change to wait before updating the totals.",
+	                                                defaultValue = "250")
+	                            long debounceMillis) {
+		try {
+			File directoryFile = new File(dirPath);
+			if (!directoryFile.isDirectory()) {
+				throw new NotDirectoryException(dirPath);
+			}
+
+			System.out.println("Watching " + dirPath + ", press Ctrl+C to stop...");
+			ArchiveWatcher watcher = new ArchiveWatcher(objectMapper, directoryFile.toPath(), debounceMillis);
+			watcher.watch(this::printSummary);
+		} catch (NotDirectoryException e) {
+			System.out.println("Directory " + dirPath + " not found.");
+		} catch (InterruptedException e) {
+			System.out.println("Stopped watching " + dirPath + ".");
+		} catch (IOException e) {
+			System.out.println("Error watching directory " + dirPath + ".");
+			throw new RuntimeException(e);
+		}
+		exit();
+	}
+
 	/**
 	 * Close the global Scanner object and terminate the program.
 	 */
@@ -320,8 +1272,65 @@ public class App implements Runnable {
 		System.exit(0);
 	}
 
+	/**
+	 * Print the totals of an {@link ArchiveSummary}, listing only the pay periods in files that changed.
+	 *
+	 * @param summary Summary to print.
+	 * @param changed Files that changed, empty to list every pay period.
+	 * @param failed  Files that could not be parsed, and the error encountered.
+	 */
+	private void printSummary(ArchiveSummary summary, Set<Path> changed, Map<Path, IOException> failed) {
+		System.out.println("[" + LocalTime.now().withNano(0) + "] " + summary.getFiles() + " PayPeriods");
+		System.out.println("\tTotal: " + summary.getTotal());
+		System.out.println("\tBy month:");
+		summary.getMonths().forEach((month, totals) -> System.out.println("\t\t" + month + " - " + totals));
+		System.out.println("\tBy location:");
+		summary.getLocations().forEach((location, totals) -> System.out.println("\t\t" + location + " - " + totals));
+		System.out.println(changed.isEmpty() ? "\tBy pay period:" : "\tChanged pay periods:");
+		Set<String> changedStarts = new HashSet<>();
+		for (Path file : changed) {
+			changedStarts.add(PayPeriodFiles.baseName(file));
+		}
+		summary.getPeriods().forEach((start, totals) -> {
+			if (changed.isEmpty() || changedStarts.contains(start)) {
+				System.out.println("\t\t" + start + " - " + totals);
+			}
+		});
+		failed.forEach((file, e) -> System.out.println("\tCould not parse " + file + ": " + e.getMessage()));
+	}
+
+	/**
+	 * Print the days of a month as a grid of weeks starting on Sunday, marking the days worked with <code>*</code>.
+	 * Days outside the given range are left blank, and weeks entirely outside of it are not printed.
+	 *
+	 * @param month Month to print.
+	 * @param days  Days worked.
+	 * @param first First day to print.
+	 * @param last  Last day to print.
+	 */
+	private void printMonth(YearMonth month, DayBitmap days, LocalDate first, LocalDate last) {
+		System.out.println("  Su  Mo  Tu  We  Th  Fr  Sa");
+		StringBuilder line = new StringBuilder("    ".repeat(month.atDay(1).getDayOfWeek().getValue() % 7));
+		for (int dayOfMonth = 1; dayOfMonth <= month.lengthOfMonth(); ++dayOfMonth) {
+			LocalDate day = month.atDay(dayOfMonth);
+			if (day.isBefore(first) || day.isAfter(last)) {
+				line.append("    ");
+			} else {
+				line.append(String.format("%3d%s", dayOfMonth, days.contains(day) ? "*" : " "));
+			}
+			if (day.getDayOfWeek() == DayOfWeek.SATURDAY || dayOfMonth == month.lengthOfMonth()) {
+				if (!line.toString().isBlank()) {
+					System.out.println(line.toString().stripTrailing());
+				}
+				line.setLength(0);
+			}
+		}
+	}
+
 	/**
 	 * Convert the contents of the given file into a {@link PayPeriod}.
+	 * If the file does not exist, but its {@linkplain PayPeriod} was packed into the yearly segment
+	 * of its directory by the <code>archive</code> subcommand, reads the {@linkplain PayPeriod} from the segment.
 	 *
 	 * @param filePath Path to {@linkplain PayPeriod} JSON file.
 	 * @return {@linkplain PayPeriod} created from the given file.
@@ -331,28 +1340,91 @@ public class App implements Runnable {
 	private PayPeriod createPayPeriod(String filePath) throws FileNotFoundException, IOException {
 		System.out.println("Searching for " + filePath + "...");
 		File jsonFile = new File(filePath);
+		settings = TenantSettings.load(jsonFile.toPath().toAbsolutePath().getParent());
 		if (!jsonFile.isFile()) {
-			throw new FileNotFoundException();
+			// closed pay periods may have been packed into the yearly segment of the directory
+			Path jsonPath = jsonFile.toPath().toAbsolutePath();
+			PayPeriod archived = new Archive(objectMapper, jsonPath.getParent()).readArchived(jsonPath);
+			if (archived == null) {
+				throw new FileNotFoundException();
+			}
+			System.out.println("PayPeriod found in archive segment...");
+			versions.put(jsonPath, null);
+			return archived;
 		}
 		System.out.println("File found, creating PayPeriod...");
-		return objectMapper.readValue(jsonFile, PayPeriod.class);
+		PayPeriodStore.Versioned versioned = store.read(jsonFile.toPath());
+		versions.put(jsonFile.toPath().toAbsolutePath().normalize(), versioned.version());
+		return versioned.payPeriod();
 	}
 
 	/**
 	 * Write the given {@link PayPeriod} to the file with the given path.
+	 * Compresses the file as it is written if its name ends in <code>.json.gz</code>.
+	 * If another writer changed the file since it was read, the changes are applied again to the latest
+	 * {@linkplain PayPeriod} in the file instead, or not written if they no longer apply.
+	 * The {@link WorkedDayIndex} of the directory, if it has one, is updated with the file written.
 	 *
 	 * @param filePath  File to write to.
 	 * @param payPeriod {@linkplain PayPeriod} to write.
+	 * @param reapply   Function applying the changes again to the latest {@linkplain PayPeriod} in the file,
+	 *                  which is null if the file no longer exists, returning null if they no longer apply.
 	 * @throws IOException If an error is encountered when writing to the given file.
 	 */
-	private void writePayPeriod(String filePath, PayPeriod payPeriod) throws IOException {
-		objectWriter.writeValue(new File(filePath), payPeriod);
-		System.out.println("PayPeriod updated in " + filePath + ".");
+	private void writePayPeriod(String filePath, PayPeriod payPeriod, UnaryOperator<PayPeriod> reapply) throws IOException {
+		Path path = Path.of(filePath);
+		PayPeriodStore.Outcome outcome;
+		try (Profiler.Timer timer = Profiler.time(Stage.WRITE)) {
+			outcome = store.write(path, versions.get(path.toAbsolutePath().normalize()), payPeriod, reapply);
+		}
+		switch (outcome) {
+			case WRITTEN -> System.out.println("PayPeriod updated in " + filePath + ".");
+			case REAPPLIED -> System.out.println("PayPeriod in " + filePath
+				+ " was changed by another writer, changes applied to the latest PayPeriod and updated.");
+			case CONFLICT -> System.out.println("PayPeriod in " + filePath
+				+ " was changed by another writer and the changes no longer apply, no changes were written.");
+		}
+		if (outcome != PayPeriodStore.Outcome.CONFLICT) {
+			updateIndex(path);
+		}
+	}
+
+	/**
+	 * Add the given {@link Shift Shifts} again to the latest {@link PayPeriod} in a file changed by another writer.
+	 * A {@linkplain Shift} equal to one already in the {@linkplain PayPeriod} is already applied, but one clocked in on
+	 * the same date at the same time as a different {@linkplain Shift} would be dropped, so the changes no longer apply.
+	 *
+	 * @param latest Latest {@linkplain PayPeriod} in the file.
+	 * @param shifts {@linkplain Shift Shifts} to add.
+	 * @return Latest {@linkplain PayPeriod} with the {@linkplain Shift Shifts} added, or null if one of them conflicts
+	 * with a {@linkplain Shift} already in it.
+	 */
+	private static PayPeriod reapplyShifts(PayPeriod latest, List<Shift> shifts) {
+		for (Shift shift : shifts) {
+			if (!latest.addShift(shift) && !latest.getShifts().contains(shift)) {
+				return null;
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Update the {@link WorkedDayIndex} of the directory of the given file, if it has one, with the file written.
+	 * The file is written either way: an index left behind is brought up to date the next time it is opened.
+	 *
+	 * @param file {@link PayPeriod} JSON file written.
+	 */
+	private void updateIndex(Path file) {
+		try {
+			WorkedDayIndex.update(objectMapper, file);
+		} catch (IOException e) {
+			System.out.println("Could not update the worked day index of " + file.toAbsolutePath().getParent() + ".");
+		}
 	}
 
 	/**
 	 * Prompt the user to enter a date in the format <code>MM/DD</code>.
-	 * Converts the given date into the format <code>YYYY-MM-DD</code> with the year stored in this object,
+	 * Converts the given date into the format <code>YYYY-MM-DD</code> with the year of the tenant,
 	 * then verifies the entered date by using {@link LocalDate#parse(CharSequence)}.
 	 *
 	 * @param message Message to print to user before date prompt.
@@ -372,7 +1444,7 @@ public class App implements Runnable {
 				}
 
 				date = LocalDate.parse(
-					input + "/" + YEAR,
+					input + "/" + settings.year(),
 					new DateTimeFormatterBuilder()
 						.parseCaseInsensitive()
 						.appendPattern("M/d/u")
@@ -449,11 +1521,12 @@ public class App implements Runnable {
 
 	/**
 	 * Get the pay rate for a {@link Shift}.
-	 * If useDefaultPayRate argument is <code>true</code>, uses the value of {@link Shift#DEFAULT_PAY_RATE}.
+	 * If useDefaultPayRate argument is <code>true</code>, uses the default pay rate of the tenant,
+	 * {@link Shift#DEFAULT_PAY_RATE} unless set in its {@link TenantSettings}.
 	 * Else prompts the user for the pay rate, then converts the given number into a rounded double with two decimal places.
 	 *
 	 * @param message           Message to print to user before pay rate prompt.
-	 * @param useDefaultPayRate Use {@link Shift#DEFAULT_PAY_RATE} as the pay rate instead of prompting for user input?
+	 * @param useDefaultPayRate Use the default pay rate instead of prompting for user input?
 	 * @return Pay rate, to two decimal places.
 	 */
 	private double getPayRate(String message, boolean useDefaultPayRate) {
@@ -461,7 +1534,7 @@ public class App implements Runnable {
 		boolean invalidPayRate = true;
 
 		if (useDefaultPayRate) {
-			payRate = Shift.DEFAULT_PAY_RATE;
+			payRate = settings.defaultPayRate();
 			System.out.println("Using default pay rate of: $" + payRate);
 			invalidPayRate = false;
 		} else {
@@ -493,35 +1566,34 @@ public class App implements Runnable {
 
 	/**
 	 * Prompt the user for the location worked for the {@link Shift} being created or edited.
-	 * Uses the locations declared in {@link Shift#LOCATIONS}.
-	 * If there is only one value in the {@linkplain Shift#LOCATIONS Array}, skips user prompting and returns that value.
-	 * Assumes there is at least one value in the {@linkplain Shift#LOCATIONS Array}.
+	 * Uses the locations of the tenant, loaded from configuration by the {@link LocationRegistry} unless set in its {@link TenantSettings}.
+	 * If there is only one configured location, skips user prompting and returns that value.
 	 *
 	 * @return Name of the location.
 	 */
 	private String getLoc() {
-		String[] locations = Shift.LOCATIONS;
+		List<String> locations = settings.locations();
 		String location = null;
 		boolean invalidLocation = true;
 
-		if (locations.length == 1) {
-			location = locations[0];
+		if (locations.size() == 1) {
+			location = locations.get(0);
 			System.out.println("One location found: " + location);
 			invalidLocation = false;
 		} else {
 			System.out.println("Select shift location:");
 			for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
 				try {
-					for (int i = 1; i < locations.length + 1; i++) {
+					for (int i = 1; i < locations.size() + 1; i++) {
 						// list locations starting from 1 instead of 0
-						System.out.println("\t" + i + " - " + locations[i - 1]);
+						System.out.println("\t" + i + " - " + locations.get(i - 1));
 					}
 
 					System.out.print("(NUMBER)" + USER_PROMPT);
 					String input = scanner.nextLine();
 					int selection = Integer.parseInt(input) - 1; // locations listed starting from 1 instead of 0
 
-					location = locations[selection];
+					location = locations.get(selection);
 					invalidLocation = false;
 					break;
 				} catch (NumberFormatException e) {
@@ -0,0 +1,172 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the locations worked at, interning every location name to a small integer id.
+ * Location names are compared case-insensitively, so <code>Crossroads</code> and <code>CROSSROADS</code>
+ * share the same id and the name first registered is kept as the display name.
+ * <p>
+ * The locations offered to the user are loaded from a configuration file with one location per line,
+ * read from the path in the <code>tracker.locations</code> system property,
+ * or else from the <code>locations.txt</code> file bundled with the application.
+ */
+public final class LocationRegistry {
+	/** System property holding the path to a locations configuration file. */
+	public static final String CONFIG_PROPERTY = "tracker.locations";
+	/** Name of the bundled locations configuration file. */
+	private static final String CONFIG_RESOURCE = "/locations.txt";
+	/** Location used if no configuration file lists any location. */
+	private static final String FALLBACK_LOCATION = "CROSSROADS";
+
+	/** Map of upper-cased location names to their ids. */
+	private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	/** Lock guarding registration of new locations. */
+	private static final Object lock = new Object();
+	/** Display names of the registered locations, indexed by id. */
+	private static volatile String[] names = new String[8];
+	/** Number of registered locations. */
+	private static volatile int size = 0;
+
+	/** Locations loaded from the configuration file, offered when creating a {@link Shift}. */
+	private static final List<String> configured = loadConfigured();
+
+	private LocationRegistry() {
+	}
+
+	/**
+	 * Get the id of the given location, registering the location if it has not been seen before.
+	 *
+	 * @param location Name of the location, not null.
+	 * @return Id of the location.
+	 */
+	public static int intern(String location) {
+		String key = location.strip().toUpperCase(Locale.ROOT);
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		synchronized (lock) {
+			id = ids.get(key);
+			if (id == null) {
+				id = size;
+				String[] current = names;
+				if (id == current.length) {
+					current = Arrays.copyOf(current, current.length * 2);
+				}
+				current[id] = location.strip();
+				// publish the name before the id, so any thread that finds the id can read its name
+				names = current;
+				size = id + 1;
+				ids.put(key, id);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * @param id Id of a registered location.
+	 * @return Display name of the location with the given id.
+	 * @throws IndexOutOfBoundsException If no location is registered with the given id.
+	 */
+	public static String name(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("No location registered with id " + id);
+		}
+		return names[id];
+	}
+
+	/**
+	 * @return Number of locations registered.
+	 */
+	public static int size() {
+		return size;
+	}
+
+	/**
+	 * @return List of the locations loaded from the configuration file, never empty.
+	 */
+	public static List<String> configured() {
+		return configured;
+	}
+
+	/**
+	 * Read the locations listed in the given configuration file and register them.
+	 * Blank lines and lines starting with <code>#</code> are ignored.
+	 *
+	 * @param path Path to a locations configuration file.
+	 * @return List of the locations in the file, in the order they are listed.
+	 * @throws IOException If an error is encountered when reading from the given file.
+	 */
+	public static List<String> load(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return load(in);
+		}
+	}
+
+	/**
+	 * Read the locations listed in the given stream and register them.
+	 *
+	 * @param in Stream of a locations configuration file.
+	 * @return List of the locations in the stream, in the order they are listed.
+	 * @throws IOException If an error is encountered when reading from the given stream.
+	 */
+	private static List<String> load(InputStream in) throws IOException {
+		List<String> locations = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.strip();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String name = name(intern(line));
+			if (!locations.contains(name)) {
+				locations.add(name);
+			}
+		}
+		return List.copyOf(locations);
+	}
+
+	/**
+	 * Load the locations to offer the user, from the file given in the {@value #CONFIG_PROPERTY} system property,
+	 * else from the bundled configuration file.
+	 *
+	 * @return List of configured locations, never empty.
+	 */
+	private static List<String> loadConfigured() {
+		List<String> locations = List.of();
+		try {
+			String configPath = System.getProperty(CONFIG_PROPERTY);
+			if (configPath != null) {
+				locations = load(Path.of(configPath));
+			} else {
+				try (InputStream in = LocationRegistry.class.getResourceAsStream(CONFIG_RESOURCE)) {
+					if (in != null) {
+						locations = load(in);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading locations configuration.", e);
+		}
+
+		if (locations.isEmpty()) {
+			locations = List.of(name(intern(FALLBACK_LOCATION)));
+		}
+		return locations;
+	}
+}
@@ -13,6 +13,15 @@ import java.util.TreeSet;
  * Contains a SortedSet of the {@link Shift Shifts} worked during the week.
  */
 public class PayPeriod {
+	/** Number of days in a pay period. */
+	public static final int DAYS = 14;
+	/** Number of weeks in a pay period. */
+	public static final int WEEKS = 2;
+	/** Hours worked in a week after which every hour is paid as overtime. */
+	public static final double OVERTIME_THRESHOLD = 40;
+	/** Multiplier of the regular rate paid for overtime hours. */
+	public static final double OVERTIME_MULTIPLIER = 1.5;
+
 	/** First day of the pay period, always a Friday. */
 	private final LocalDate start;
 	/** Last day of the pay period, always a Thursday. */
@@ -26,6 +35,15 @@ public class PayPeriod {
 	/** Total amount of money earned. */
 	private double pay;
 
+	/** Number of hours worked each day of the pay period, indexed by days since the start. */
+	private final double[] dayHours;
+	/** Amount of money earned each day of the pay period, indexed by days since the start. */
+	private final double[] dayPay;
+	/** Number of hours worked each week of the pay period. */
+	private final double[] weekHours;
+	/** Amount of money earned each week of the pay period, before overtime. */
+	private final double[] weekPay;
+
 	/**
 	 * Create a new {@link PayPeriod} with the given starting date and calculate the end date,
 	 * which will always be 13 days from the starting date.
@@ -48,6 +66,10 @@ public class PayPeriod {
 		this.hours = 0;
 		this.pay = 0;
 		this.shifts = new TreeSet<>();
+		this.dayHours = new double[DAYS];
+		this.dayPay = new double[DAYS];
+		this.weekHours = new double[WEEKS];
+		this.weekPay = new double[WEEKS];
 
 		LocalDate parsedStart;
 		if (dateFormat != null) {
@@ -85,27 +107,51 @@ public class PayPeriod {
 
 	/**
 	 * Add a {@link Shift} to the SortedSet of {@linkplain Shift Shifts} worked this {@link PayPeriod}.
-	 * Increment the total number of hours worked and amount earned.
+	 * Increment the total number of hours worked and amount earned, and those of the day and week worked.
 	 *
 	 * @param entry {@linkplain Shift} to add.
+	 * @return Was the {@linkplain Shift} added? False if a {@linkplain Shift} clocked in on the same date at the same time
+	 * is already in this {@linkplain PayPeriod}, which is kept instead.
 	 */
-	public void addShift(Shift entry) {
+	public boolean addShift(Shift entry) {
 		if (shifts.add(entry)) {
-			hours += entry.calcTotalHours();
-			pay += entry.calcPay();
+			tally(entry, 1);
+			return true;
 		}
+		return false;
 	}
 
 	/**
 	 * Remove a {@link Shift} from the SortedSet of {@linkplain Shift Shifts} worked this {@link PayPeriod}.
-	 * Decrement the total number of hours worked and amount earned.
+	 * Decrement the total number of hours worked and amount earned, and those of the day and week worked.
 	 *
 	 * @param departure {@linkplain Shift} to remove.
 	 */
 	public void removeShift(Shift departure) {
 		if (shifts.remove(departure)) {
-			hours -= departure.calcTotalHours();
-			pay -= departure.calcPay();
+			tally(departure, -1);
+		}
+	}
+
+	/**
+	 * Add the hours worked and amount earned of a {@link Shift} to the totals, and to those of the day and week worked.
+	 * A {@linkplain Shift} outside of this {@link PayPeriod} only counts towards the totals.
+	 *
+	 * @param shift {@linkplain Shift} to tally.
+	 * @param sign  1 to add the {@linkplain Shift}, -1 to subtract it.
+	 */
+	private void tally(Shift shift, int sign) {
+		double shiftHours = sign * shift.calcTotalHours();
+		double shiftPay = sign * shift.calcPay();
+		hours += shiftHours;
+		pay += shiftPay;
+
+		long day = shift.getEpochDay() - start.toEpochDay();
+		if (day >= 0 && day < DAYS) {
+			dayHours[(int) day] += shiftHours;
+			dayPay[(int) day] += shiftPay;
+			weekHours[(int) day / 7] += shiftHours;
+			weekPay[(int) day / 7] += shiftPay;
 		}
 	}
 
@@ -137,6 +183,72 @@ public class PayPeriod {
 		return pay;
 	}
 
+	/**
+	 * @param day Days since the start of the pay period, from 0 to 13.
+	 * @return Number of hours worked on the given day.
+	 */
+	public double getDayHours(int day) {
+		return dayHours[day];
+	}
+
+	/**
+	 * @param day Days since the start of the pay period, from 0 to 13.
+	 * @return Amount of money earned on the given day, before overtime.
+	 */
+	public double getDayPay(int day) {
+		return dayPay[day];
+	}
+
+	/**
+	 * @param week Week of the pay period, 0 or 1.
+	 * @return Number of hours worked during the given week.
+	 */
+	public double getWeekHours(int week) {
+		return weekHours[week];
+	}
+
+	/**
+	 * @param week Week of the pay period, 0 or 1.
+	 * @return Amount of money earned during the given week, before overtime.
+	 */
+	public double getWeekPay(int week) {
+		return weekPay[week];
+	}
+
+	/**
+	 * @param week Week of the pay period, 0 or 1.
+	 * @return Number of hours worked past {@link #OVERTIME_THRESHOLD} during the given week.
+	 */
+	public double getOvertimeHours(int week) {
+		return Math.max(0, weekHours[week] - OVERTIME_THRESHOLD);
+	}
+
+	/**
+	 * Calculate the overtime premium of a week: the overtime hours paid at the extra half of the regular rate,
+	 * the regular rate being the average pay rate of every hour worked that week.
+	 *
+	 * @param week Week of the pay period, 0 or 1.
+	 * @return Amount of money earned on top of {@link #getWeekPay(int)} for overtime hours during the given week.
+	 */
+	public double getOvertimePay(int week) {
+		double overtimeHours = getOvertimeHours(week);
+		if (overtimeHours == 0) {
+			return 0;
+		}
+		return overtimeHours * (weekPay[week] / weekHours[week]) * (OVERTIME_MULTIPLIER - 1);
+	}
+
+	/**
+	 * @return Total amount of money earned, including the overtime premium of both weeks.
+	 */
+	public double getAdjustedPay() {
+		double adjustedPay = pay;
+		for (int week = 0; week < WEEKS; ++week) {
+			adjustedPay += getOvertimePay(week);
+		}
+		return adjustedPay;
+	}
+
 	/**
 	 * @return List of {@link Shift shifts} worked this {@link PayPeriod}.
 	 */
@@ -156,8 +268,12 @@ public class PayPeriod {
 
 		String period = start.format(dateFormat) + " - " + end.format(dateFormat) + "\n";
 		period += "\tShifts: " + shifts.size() + "\n";
-		period += "\tHours: " + String.format("%.2f", hours) + "\n";
+		period += "\tHours: " + String.format("%.2f", hours)
+			+ " (Week 1: " + String.format("%.2f", weekHours[0]) + ", Week 2: " + String.format("%.2f", weekHours[1]) + ")\n";
 		period += "\tEarned: " + String.format("%.2f", pay) + "\n";
+		if (getAdjustedPay() != pay) {
+			period += "\tEarned with overtime: " + String.format("%.2f", getAdjustedPay()) + "\n";
+		}
 		for (Shift shift : shifts) {
 			period += ("\t" + shift.toString() + "\n");
 		}
@@ -0,0 +1,38 @@
+package tracker;
+
+/**
+ * The totals and rollups of a {@link PayPeriod}, without its {@link Shift Shifts}.
+ *
+ * @param start       First day of the pay period in the format <code>YYYY-MM-DD</code>.
+ * @param end         Last day of the pay period in the format <code>YYYY-MM-DD</code>.
+ * @param hours       Total number of hours worked.
+ * @param pay         Total amount of money earned, before overtime.
+ * @param adjustedPay Total amount of money earned, including overtime.
+ * @param weekHours   Number of hours worked each week.
+ * @param weekPay     Amount of money earned each week, before overtime.
+ * @param dayHours    Number of hours worked each day.
+ * @param dayPay      Amount of money earned each day, before overtime.
+ */
+public record PayPeriodSummary(String start, String end, double hours, double pay, double adjustedPay,
+                               double[] weekHours, double[] weekPay, double[] dayHours, double[] dayPay) {
+	/**
+	 * @param payPeriod {@link PayPeriod} to summarize.
+	 * @return Summary of the totals and rollups kept by the given {@linkplain PayPeriod}.
+	 */
+	public static PayPeriodSummary of(PayPeriod payPeriod) {
+		double[] weekHours = new double[PayPeriod.WEEKS];
+		double[] weekPay = new double[PayPeriod.WEEKS];
+		for (int week = 0; week < PayPeriod.WEEKS; ++week) {
+			weekHours[week] = payPeriod.getWeekHours(week);
+			weekPay[week] = payPeriod.getWeekPay(week);
+		}
+		double[] dayHours = new double[PayPeriod.DAYS];
+		double[] dayPay = new double[PayPeriod.DAYS];
+		for (int day = 0; day < PayPeriod.DAYS; ++day) {
+			dayHours[day] = payPeriod.getDayHours(day);
+			dayPay[day] = payPeriod.getDayPay(day);
+		}
+		return new PayPeriodSummary(payPeriod.getStart(), payPeriod.getEnd(), payPeriod.getHours(), payPeriod.getPay(),
+			payPeriod.getAdjustedPay(), weekHours, weekPay, dayHours, dayPay);
+	}
+}
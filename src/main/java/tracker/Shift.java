@@ -6,20 +6,17 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.Locale;
-import java.util.Objects;
 
 /**
  * Class representing a shift worked for RIT Dining.
  * Keeps track of the day worked, time clocked in, time clocked out, rate paid per hour, and the place worked.
  */
 public class Shift implements Comparable<Shift> {
-	/** Array of all locations I am currently working at. */
-	public static final String[] LOCATIONS = {"CROSSROADS"};
 	/** Default pay rate. */
 	public static final double DEFAULT_PAY_RATE = 14.7;
 
-	/** Location worked at. */
-	private final String location;
+	/** Id of the location worked at, as interned by the {@link LocationRegistry}. */
+	private final int locationId;
 
 	/** Day worked. */
 	private final LocalDate date;
@@ -32,6 +29,9 @@ public class Shift implements Comparable<Shift> {
 	/** Hourly pay rate. */
 	private final double payRate;
 
+	/** Cached hash code, computed from the primitive values of every field. */
+	private final int hash;
+
 	/**
 	 * Create a new {@link Shift} with the default pay rate and default {@link LocalDate} and {@link LocalTime} format.
 	 *
@@ -72,7 +72,7 @@ public class Shift implements Comparable<Shift> {
 	 */
 	public Shift(String location, String date, String clockIn, String clockOut, double payRate,
 	             String dateFormat, String timeFormat) {
-		this.location = location;
+		this.locationId = LocationRegistry.intern(location);
 		this.payRate = payRate;
 
 		LocalDate parsedDate;
@@ -112,6 +112,13 @@ public class Shift implements Comparable<Shift> {
 		}
 		this.in = parsedIn;
 		this.out = parsedOut;
+
+		int h = locationId;
+		h = 31 * h + Long.hashCode(this.date.toEpochDay());
+		h = 31 * h + in.toSecondOfDay();
+		h = 31 * h + out.toSecondOfDay();
+		h = 31 * h + Double.hashCode(payRate + 0.0); // adding 0.0 turns -0.0 into 0.0, which are equal with ==
+		this.hash = h;
 	}
 
 	/**
@@ -132,7 +139,14 @@ public class Shift implements Comparable<Shift> {
 	 * @return Location worked at.
 	 */
 	public String getLocation() {
-		return location;
+		return LocationRegistry.name(locationId);
+	}
+
+	/**
+	 * @return Id of the location worked at, as interned by the {@link LocationRegistry}.
+	 */
+	public int getLocationId() {
+		return locationId;
 	}
 
 	/**
@@ -142,6 +156,13 @@ public class Shift implements Comparable<Shift> {
 		return date.toString();
 	}
 
+	/**
+	 * @return Date worked, as the number of days since the epoch <code>1970-01-01</code>.
+	 */
+	public long getEpochDay() {
+		return date.toEpochDay();
+	}
+
 	/**
 	 * @return Time clocked in, in the format <code>HH:MM</code>.
 	 */
@@ -149,6 +170,13 @@ public class Shift implements Comparable<Shift> {
 		return in.toString();
 	}
 
+	/**
+	 * @return Time clocked in, as the number of minutes since midnight.
+	 */
+	public int getInMinute() {
+		return in.toSecondOfDay() / 60;
+	}
+
 	/**
 	 * @return Time clocked out, in the format <code>HH:MM</code>.
 	 */
@@ -156,6 +184,13 @@ public class Shift implements Comparable<Shift> {
 		return out.toString();
 	}
 
+	/**
+	 * @return Time clocked out, as the number of minutes since midnight.
+	 */
+	public int getOutMinute() {
+		return out.toSecondOfDay() / 60;
+	}
+
 	/**
 	 * @return Hourly pay rate.
 	 */
@@ -185,7 +220,7 @@ public class Shift implements Comparable<Shift> {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(location, date, in, out, payRate);
+		return hash;
 	}
 
 	/**
@@ -199,7 +234,8 @@ public class Shift implements Comparable<Shift> {
 	public boolean equals(Object o) {
 		boolean result = false;
 		if (o instanceof Shift other) {
-			result = this.location.equalsIgnoreCase(other.location)
+			result = (this.hash == other.hash)
+				&& (this.locationId == other.locationId)
 				&& this.date.equals(other.date)
 				&& this.in.equals(other.in)
 				&& this.out.equals(other.out)
@@ -222,7 +258,7 @@ public class Shift implements Comparable<Shift> {
 
 		String shift = (date.format(dateFormat) + " @ ");
 		shift += (in.format(timeFormat) + " - " + out.format(timeFormat) + " ");
-		shift += ("(" + location + ")");
+		shift += ("(" + getLocation() + ")");
 		return shift;
 	}
 }
@@ -0,0 +1,326 @@
+package tracker.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.PayPeriodSummary;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * A directory of {@link PayPeriod PayPeriods}, stored either as JSON files named after their starting date,
+ * or packed into yearly {@link SegmentFile SegmentFiles} once they are closed.
+ * <p>
+ * A JSON file takes precedence over a segment entry with the same starting date,
+ * so a closed {@linkplain PayPeriod} can still be changed by writing it back to its JSON file.
+ * <p>
+ * The index of every segment read from is kept with the {@link FileStamp} of the segment,
+ * so a {@linkplain PayPeriod} is looked up in an unchanged segment with a single positional read.
+ */
+public class Archive {
+	/** Object mapper to use for de/serialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Directory of the archive. */
+	private final Path directory;
+	/** Index of every segment read from, with the stamp of the segment when its index was read, by path. */
+	private final ConcurrentMap<Path, CachedIndex> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Index of a segment file, with the stamp of the file when the index was read.
+	 *
+	 * @param stamp Stamp of the segment file when the index was read.
+	 * @param index Index of the segment file.
+	 */
+	private record CachedIndex(FileStamp stamp, SegmentFile.Index index) {
+	}
+
+	/**
+	 * Create a new {@link Archive} of the given directory.
+	 *
+	 * @param objectMapper Object mapper to use for de/serialization of {@link PayPeriod} objects.
+	 * @param directory    Directory of the archive.
+	 */
+	public Archive(ObjectMapper objectMapper, Path directory) {
+		this.objectMapper = objectMapper;
+		this.directory = directory;
+	}
+
+	/**
+	 * @return Directory of the archive.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @param year Year of the segment.
+	 * @return Path to the segment file of the given year.
+	 */
+	public Path segmentOf(int year) {
+		return directory.resolve(year + SegmentFile.EXTENSION);
+	}
+
+	/**
+	 * @param start Starting date of a {@link PayPeriod}.
+	 * @return Path to the JSON file of the {@linkplain PayPeriod} starting on the given date.
+	 */
+	public Path fileOf(LocalDate start) {
+		return directory.resolve(start + PayPeriodFiles.EXTENSION);
+	}
+
+	/**
+	 * @param start Starting date of a {@link PayPeriod}.
+	 * @return Path to the plain or compressed JSON file of the {@linkplain PayPeriod} starting on the given date,
+	 * or null if there is neither.
+	 */
+	public Path findFile(LocalDate start) {
+		Path file = fileOf(start);
+		if (Files.isRegularFile(file)) {
+			return file;
+		}
+		Path compressedFile = directory.resolve(start + PayPeriodFiles.COMPRESSED_EXTENSION);
+		return Files.isRegularFile(compressedFile) ? compressedFile : null;
+	}
+
+	/**
+	 * @return Sorted List of the segment files in the archive.
+	 * @throws IOException If an error is encountered when listing the directory.
+	 */
+	public List<Path> segments() throws IOException {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(path -> path.getFileName().toString().endsWith(SegmentFile.EXTENSION)).sorted().toList();
+		}
+	}
+
+	/**
+	 * Read the {@link PayPeriod} that would be stored in the given JSON file from its yearly segment,
+	 * going by the starting date in the name of the file.
+	 *
+	 * @param file Path to a {@linkplain PayPeriod} JSON file, named <code>YYYY-MM-DD.json</code> or <code>YYYY-MM-DD.json.gz</code>.
+	 * @return {@linkplain PayPeriod} from the segment, or null if no segment holds it.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	public PayPeriod readArchived(Path file) throws IOException {
+		LocalDate start = startOf(file);
+		if (start == null) {
+			return null;
+		}
+		Path segmentPath = segmentOf(start.getYear());
+		if (!Files.isRegularFile(segmentPath)) {
+			return null;
+		}
+		try (SegmentFile segment = openIndexed(segmentPath)) {
+			byte[] contents = segment.read(start);
+			return (contents != null) ? objectMapper.readValue(contents, PayPeriod.class) : null;
+		}
+	}
+
+	/**
+	 * Open the given segment file with its cached index, reading its index only if the file changed since it was cached.
+	 *
+	 * @param segmentPath Path to a segment file.
+	 * @return Opened segment file, to be closed by the caller.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private SegmentFile openIndexed(Path segmentPath) throws IOException {
+		FileStamp stamp = FileStamp.of(segmentPath);
+		CachedIndex cached = indexes.get(segmentPath);
+		if (cached != null && cached.stamp().equals(stamp)) {
+			SegmentFile segment = SegmentFile.open(segmentPath, cached.index());
+			boolean unchanged;
+			try {
+				// the segment may have been replaced between being stamped and opened
+				unchanged = FileStamp.of(segmentPath).equals(stamp);
+			} catch (IOException e) {
+				segment.close();
+				throw e;
+			}
+			if (unchanged) {
+				return segment;
+			}
+			segment.close();
+		}
+		SegmentFile segment = SegmentFile.open(segmentPath);
+		indexes.put(segmentPath, new CachedIndex(stamp, segment.getIndex()));
+		return segment;
+	}
+
+	/**
+	 * Read the {@link PayPeriod} starting on the given date, from its JSON file if there is one, else from its segment.
+	 *
+	 * @param start Starting date of the {@linkplain PayPeriod}.
+	 * @return {@linkplain PayPeriod} starting on the given date.
+	 * @throws FileNotFoundException If no {@linkplain PayPeriod} in the archive starts on the given date.
+	 * @throws IOException           If an error is encountered when reading the archive.
+	 */
+	public PayPeriod read(LocalDate start) throws FileNotFoundException, IOException {
+		Path file = findFile(start);
+		if (file != null) {
+			return PayPeriodFiles.read(objectMapper, file);
+		}
+		PayPeriod payPeriod = readArchived(fileOf(start));
+		if (payPeriod == null) {
+			throw new FileNotFoundException(fileOf(start).toString());
+		}
+		return payPeriod;
+	}
+
+	/**
+	 * Read the {@link PayPeriod PayPeriods} packed in the given segment file.
+	 *
+	 * @param segmentPath Path to a segment file.
+	 * @return {@linkplain PayPeriod PayPeriods} in the segment, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	public SortedMap<LocalDate, PayPeriod> readSegment(Path segmentPath) throws IOException {
+		SortedMap<LocalDate, PayPeriod> payPeriods = new TreeMap<>();
+		try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+			for (Map.Entry<LocalDate, byte[]> entry : segment.readAll().entrySet()) {
+				payPeriods.put(entry.getKey(), objectMapper.readValue(entry.getValue(), PayPeriod.class));
+			}
+		}
+		return payPeriods;
+	}
+
+	/**
+	 * Read the totals and rollups of the {@link PayPeriod PayPeriods} packed in the given segment file,
+	 * without parsing their {@link tracker.Shift Shifts}.
+	 *
+	 * @param segmentPath Path to a segment file.
+	 * @return Summaries of the {@linkplain PayPeriod PayPeriods} in the segment, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	public SortedMap<LocalDate, PayPeriodSummary> readSegmentSummaries(Path segmentPath) throws IOException {
+		SortedMap<LocalDate, PayPeriodSummary> summaries = new TreeMap<>();
+		try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+			for (Map.Entry<LocalDate, byte[]> entry : segment.readAll().entrySet()) {
+				summaries.put(entry.getKey(), PayPeriodFiles.readSummary(objectMapper, entry.getValue()));
+			}
+		}
+		return summaries;
+	}
+
+	/**
+	 * Pack every closed {@link PayPeriod} JSON file into the segment of the year it starts in,
+	 * then delete the JSON files that were packed.
+	 * Entries already in a segment are kept, unless replaced by a JSON file with the same starting date.
+	 * <p>
+	 * A period with both a plain and a compressed file is packed from the plain file, which takes precedence
+	 * as in {@link #findFile(LocalDate)}, and the compressed file it hides is deleted along with it.
+	 * Every segment is rewritten under its {@link PayPeriodStore#lock(Path) lock}, so concurrent runs keep each other's
+	 * entries, and every JSON file is only deleted under its lock if its version is still the one packed:
+	 * a file changed while it was packed is kept, and takes precedence over its stale entry.
+	 *
+	 * @param before {@linkplain PayPeriod PayPeriods} ending before this date are closed.
+	 * @return List of the starting dates of the {@linkplain PayPeriod PayPeriods} packed and deleted, sorted.
+	 * @throws IOException If an error is encountered when reading or writing the archive.
+	 */
+	public List<LocalDate> archive(LocalDate before) throws IOException {
+		PayPeriodStore.recover(directory);
+		SortedMap<Integer, SortedMap<LocalDate, byte[]>> years = new TreeMap<>();
+		SortedMap<LocalDate, Map<Path, String>> packed = new TreeMap<>();
+		for (Path file : PayPeriodFiles.list(directory)) {
+			LocalDate start = startOf(file);
+			if (start == null || !file.equals(findFile(start))) {
+				// not named after a start date and so could not be found in a segment, or hidden by a plain file
+				continue;
+			}
+			PayPeriodStore.Versioned versioned = PayPeriodStore.parse(objectMapper, file);
+			PayPeriod payPeriod = versioned.payPeriod();
+			if (!LocalDate.parse(payPeriod.getEnd()).isBefore(before) || !start.toString().equals(payPeriod.getStart())) {
+				// still open, or named after another start date than its own
+				continue;
+			}
+			years.computeIfAbsent(start.getYear(), year -> new TreeMap<>())
+				.put(start, objectMapper.writeValueAsBytes(payPeriod));
+			Map<Path, String> versions = new LinkedHashMap<>();
+			versions.put(file, versioned.version());
+			Path hidden = directory.resolve(start + PayPeriodFiles.COMPRESSED_EXTENSION);
+			if (!hidden.equals(file) && Files.isRegularFile(hidden)) {
+				versions.put(hidden, PayPeriodStore.versionOf(hidden));
+			}
+			packed.put(start, versions);
+		}
+
+		for (Map.Entry<Integer, SortedMap<LocalDate, byte[]>> year : years.entrySet()) {
+			Path segmentPath = segmentOf(year.getKey());
+			try (Closeable lock = PayPeriodStore.lock(segmentPath)) {
+				SortedMap<LocalDate, byte[]> entries = new TreeMap<>();
+				if (Files.isRegularFile(segmentPath)) {
+					try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+						entries.putAll(segment.readAll());
+					}
+				}
+				entries.putAll(year.getValue());
+				SegmentFile.write(segmentPath, entries);
+			}
+		}
+
+		// only delete the JSON files once every segment holding them is written
+		List<LocalDate> starts = new ArrayList<>();
+		for (Map.Entry<LocalDate, Map<Path, String>> entry : packed.entrySet()) {
+			boolean deleted = true;
+			for (Map.Entry<Path, String> version : entry.getValue().entrySet()) {
+				deleted &= deleteIfUnchanged(version.getKey(), version.getValue());
+			}
+			if (deleted) {
+				starts.add(entry.getKey());
+			}
+		}
+		return starts;
+	}
+
+	/**
+	 * Delete the given {@link PayPeriod} JSON file under its {@link PayPeriodStore#lock(Path) lock},
+	 * unless a writer changed it since the given version was read.
+	 *
+	 * @param file    Path to a {@linkplain PayPeriod} JSON file.
+	 * @param version Version of the file when it was read.
+	 * @return True iff the file was deleted, or was already deleted.
+	 * @throws IOException If an error is encountered when locking, reading or deleting the file.
+	 */
+	private static boolean deleteIfUnchanged(Path file, String version) throws IOException {
+		try (Closeable lock = PayPeriodStore.lock(file)) {
+			String current = PayPeriodStore.versionOf(file);
+			if (current == null) {
+				return true;
+			}
+			if (!current.equals(version)) {
+				return false;
+			}
+			Files.delete(file);
+			return true;
+		}
+	}
+
+	/**
+	 * @param file Path to a plain or compressed {@link PayPeriod} JSON file.
+	 * @return Starting date in the name of the file,
+	 * or null if the file is not named <code>YYYY-MM-DD.json</code> or <code>YYYY-MM-DD.json.gz</code>.
+	 */
+	public static LocalDate startOf(Path file) {
+		String name = PayPeriodFiles.baseName(file);
+		if (name == null) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(name);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
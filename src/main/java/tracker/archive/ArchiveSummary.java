@@ -0,0 +1,166 @@
+package tracker.archive;
+
+import tracker.PayPeriod;
+import tracker.Shift;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the {@link Shift Shifts} in a set of {@link PayPeriod} files, by pay period, month and location.
+ * <p>
+ * The contribution of every file is kept, so a changed file is applied by subtracting its old contribution and
+ * adding its new one, without revisiting any other file.
+ */
+public class ArchiveSummary {
+	/**
+	 * Totals contributed by a single {@link PayPeriod} file.
+	 *
+	 * @param start     First day of the pay period.
+	 * @param period    Totals of the whole pay period.
+	 * @param months    Totals of the pay period by month worked.
+	 * @param locations Totals of the pay period by location worked at.
+	 */
+	private record Contribution(String start, Totals period, Map<YearMonth, Totals> months, Map<String, Totals> locations) {
+	}
+
+	/** Contribution of every file in the summary. */
+	private final Map<Path, Contribution> contributions;
+	/** Totals of every file. */
+	private final Totals total;
+	/** Totals by the first day of the pay period. */
+	private final SortedMap<String, Totals> periods;
+	/** Totals by month worked. */
+	private final SortedMap<YearMonth, Totals> months;
+	/** Totals by location worked at. */
+	private final SortedMap<String, Totals> locations;
+
+	public ArchiveSummary() {
+		this.contributions = new HashMap<>();
+		this.total = new Totals();
+		this.periods = new TreeMap<>();
+		this.months = new TreeMap<>();
+		this.locations = new TreeMap<>();
+	}
+
+	/**
+	 * Set the {@link PayPeriod} read from the given file, replacing the totals of the file if it was already summarized.
+	 *
+	 * @param file      File the {@linkplain PayPeriod} was read from.
+	 * @param payPeriod {@linkplain PayPeriod} read from the file.
+	 */
+	public void put(Path file, PayPeriod payPeriod) {
+		remove(file);
+
+		Totals period = new Totals();
+		Map<YearMonth, Totals> byMonth = new HashMap<>();
+		Map<String, Totals> byLocation = new HashMap<>();
+		for (Shift shift : payPeriod.getShifts()) {
+			period.add(shift);
+			byMonth.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(shift.getEpochDay())), key -> new Totals()).add(shift);
+			byLocation.computeIfAbsent(shift.getLocation(), key -> new Totals()).add(shift);
+		}
+		Contribution contribution = new Contribution(payPeriod.getStart(), period, byMonth, byLocation);
+		contributions.put(file, contribution);
+
+		total.add(period);
+		periods.computeIfAbsent(contribution.start(), key -> new Totals()).add(period);
+		byMonth.forEach((month, totals) -> months.computeIfAbsent(month, key -> new Totals()).add(totals));
+		byLocation.forEach((location, totals) -> locations.computeIfAbsent(location, key -> new Totals()).add(totals));
+	}
+
+	/**
+	 * Remove the totals of the given file, if it was summarized.
+	 *
+	 * @param file File to remove.
+	 */
+	public void remove(Path file) {
+		Contribution contribution = contributions.remove(file);
+		if (contribution == null) {
+			return;
+		}
+
+		total.subtract(contribution.period());
+		subtract(periods, contribution.start(), contribution.period());
+		contribution.months().forEach((month, totals) -> subtract(months, month, totals));
+		contribution.locations().forEach((location, totals) -> subtract(locations, location, totals));
+	}
+
+	/**
+	 * Remove the totals of every file.
+	 */
+	public void clear() {
+		contributions.clear();
+		total.subtract(total);
+		periods.clear();
+		months.clear();
+		locations.clear();
+	}
+
+	/**
+	 * Subtract the given totals from the totals of a group, removing the group once it has no shifts left.
+	 *
+	 * @param groups Totals by group.
+	 * @param key    Group to subtract from.
+	 * @param totals Totals to subtract.
+	 * @param <K>    Type of the group key.
+	 */
+	private static <K> void subtract(Map<K, Totals> groups, K key, Totals totals) {
+		Totals group = groups.get(key);
+		if (group != null) {
+			group.subtract(totals);
+			if (group.isEmpty()) {
+				groups.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @return Number of files summarized.
+	 */
+	public int getFiles() {
+		return contributions.size();
+	}
+
+	/**
+	 * @return Set of the files summarized.
+	 */
+	public Set<Path> getPaths() {
+		return Set.copyOf(contributions.keySet());
+	}
+
+	/**
+	 * @return Totals of every file.
+	 */
+	public Totals getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return Totals by the first day of the pay period, sorted by date.
+	 */
+	public SortedMap<String, Totals> getPeriods() {
+		return Collections.unmodifiableSortedMap(periods);
+	}
+
+	/**
+	 * @return Totals by month worked, sorted by month.
+	 */
+	public SortedMap<YearMonth, Totals> getMonths() {
+		return Collections.unmodifiableSortedMap(months);
+	}
+
+	/**
+	 * @return Totals by location worked at, sorted by name.
+	 */
+	public SortedMap<String, Totals> getLocations() {
+		return Collections.unmodifiableSortedMap(locations);
+	}
+}
@@ -0,0 +1,322 @@
+package tracker.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.jackson.PayPeriodDeserializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class to check that the {@link PayPeriod} JSON files in a directory are consistent with their {@link Shift Shifts}.
+ * <p>
+ * The stored total hours and pay of every file are compared with the totals recomputed from its
+ * {@linkplain Shift Shifts}, and its end date is compared with the date 13 days after its start date.
+ * Files are checked in parallel by a fixed pool of worker threads.
+ * <p>
+ * The checksum of every file that passes is stored in a {@value #MANIFEST} file in the directory,
+ * so files left unchanged since they last passed are skipped without being parsed.
+ */
+public class ArchiveVerifier {
+	/** Name of the file holding the checksums of the files that passed verification. */
+	public static final String MANIFEST = ".checksums";
+	/** Largest rounding error, in cents, of a recomputed total still taken as exactly half a cent. */
+	private static final double HALF_CENT_ERROR = 1e-6;
+	/** Fields of a {@link PayPeriod} JSON file that must be strings. */
+	private static final List<String> TEXT_FIELDS = List.of("start", "end");
+	/** Fields of a {@link PayPeriod} JSON file that must be numbers. */
+	private static final List<String> NUMBER_FIELDS = List.of("hours", "pay");
+	/** Fields of a {@link Shift} in a {@link PayPeriod} JSON file that must be strings. */
+	private static final List<String> SHIFT_TEXT_FIELDS = List.of("location", "date", "in", "out");
+	/** Fields of a {@link Shift} in a {@link PayPeriod} JSON file that must be numbers. */
+	private static final List<String> SHIFT_NUMBER_FIELDS = List.of("payRate");
+
+	/** Status of a verified file. */
+	public enum Status {
+		/** The file was checked and is consistent. */
+		PASSED,
+		/** The file is unchanged since it last passed, and was not checked. */
+		SKIPPED,
+		/** The file was checked and is inconsistent, or could not be parsed. */
+		FAILED
+	}
+
+	/**
+	 * Result of verifying a single file.
+	 *
+	 * @param file     File verified.
+	 * @param status   Status of the file.
+	 * @param checksum Checksum of the contents of the file.
+	 * @param problems Problems found in the file, empty unless the file failed.
+	 */
+	public record Result(Path file, Status status, String checksum, List<String> problems) {
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Number of worker threads to verify files with. */
+	private final int threads;
+
+	/**
+	 * Create a new {@link ArchiveVerifier}.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param threads      Number of worker threads to verify files with.
+	 */
+	public ArchiveVerifier(ObjectMapper objectMapper, int threads) {
+		this.objectMapper = objectMapper;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Verify every {@link PayPeriod} JSON file in the given directory, then store the checksums of the files that passed.
+	 *
+	 * @param directory Directory of {@linkplain PayPeriod} JSON files.
+	 * @param full      Check every file, even those unchanged since they last passed?
+	 * @return List of the results of every file, sorted by file name.
+	 * @throws IOException If an error is encountered when reading the directory or writing the checksums.
+	 */
+	public List<Result> verify(Path directory, boolean full) throws IOException {
+		Path manifestPath = directory.resolve(MANIFEST);
+		Properties manifest = new Properties();
+		if (!full && Files.isRegularFile(manifestPath)) {
+			try (InputStream in = Files.newInputStream(manifestPath)) {
+				manifest.load(in);
+			}
+		}
+
+		List<Path> files = PayPeriodFiles.list(directory);
+		List<Result> results = new ArrayList<>(files.size());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())));
+		try {
+			List<Future<Result>> futures = new ArrayList<>(files.size());
+			for (Path file : files) {
+				String known = manifest.getProperty(file.getFileName().toString());
+				futures.add(pool.submit(() -> verifyFile(file, known)));
+			}
+			for (Future<Result> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Verification interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error verifying " + directory + ".", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		Properties passed = new Properties();
+		for (Result result : results) {
+			if (result.status() != Status.FAILED) {
+				passed.setProperty(result.file().getFileName().toString(), result.checksum());
+			}
+		}
+		Path tempPath = directory.resolve(MANIFEST + ".tmp");
+		try (OutputStream out = Files.newOutputStream(tempPath)) {
+			passed.store(out, "Checksums of verified PayPeriod files");
+		}
+		Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return results;
+	}
+
+	/**
+	 * Verify a single {@link PayPeriod} JSON file, skipping it if its checksum matches the given checksum.
+	 *
+	 * @param file  {@linkplain PayPeriod} JSON file.
+	 * @param known Checksum of the file when it last passed, may be null.
+	 * @return Result of verifying the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private Result verifyFile(Path file, String known) throws IOException {
+		byte[] contents = Files.readAllBytes(file);
+		String checksum = checksum(contents);
+		if (checksum.equals(known)) {
+			return new Result(file, Status.SKIPPED, checksum, List.of());
+		}
+
+		List<String> problems = new ArrayList<>();
+		try {
+			JsonNode payPeriodNode = PayPeriodFiles.isCompressed(file)
+				? objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(contents)))
+				: objectMapper.readTree(contents);
+			List<String> invalidFields = checkFields(payPeriodNode);
+			if (!invalidFields.isEmpty()) {
+				return new Result(file, Status.FAILED, checksum, invalidFields);
+			}
+			LocalDate start = LocalDate.parse(payPeriodNode.get("start").textValue());
+			LocalDate end = LocalDate.parse(payPeriodNode.get("end").textValue());
+			if (!end.equals(start.plusDays(13))) {
+				problems.add("End date " + end + " is not 13 days after start date " + start + ".");
+			}
+
+			List<Shift> shifts = PayPeriodDeserializer.deserializeShifts(payPeriodNode);
+			PayPeriod payPeriod = new PayPeriod(start.toString(), null, shifts);
+			if (payPeriod.getShifts().size() != shifts.size()) {
+				problems.add((shifts.size() - payPeriod.getShifts().size())
+					+ " Shifts have the same date and time clocked in as another Shift.");
+			}
+			for (Shift shift : payPeriod.getShifts()) {
+				LocalDate date = LocalDate.parse(shift.getDate());
+				if (date.isBefore(start) || date.isAfter(start.plusDays(13))) {
+					problems.add("Shift " + shift + " is outside of the pay period.");
+				}
+			}
+
+			double hours = payPeriodNode.get("hours").doubleValue();
+			if (!matches(hours, payPeriod.getHours())) {
+				problems.add("Stored hours " + hours + " do not match recomputed hours "
+					+ String.format("%.2f", payPeriod.getHours()) + ".");
+			}
+			double pay = payPeriodNode.get("pay").doubleValue();
+			if (!matches(pay, payPeriod.getPay())) {
+				problems.add("Stored pay " + pay + " does not match recomputed pay "
+					+ String.format("%.2f", payPeriod.getPay()) + ".");
+			}
+			verifyRollups(payPeriodNode, payPeriod, problems);
+		} catch (IOException | DateTimeParseException e) {
+			problems.add("Error parsing file: " + e.getMessage());
+		}
+
+		Status status = problems.isEmpty() ? Status.PASSED : Status.FAILED;
+		return new Result(file, status, checksum, List.copyOf(problems));
+	}
+
+	/**
+	 * Check that the fields read from a {@link PayPeriod} JSON file, and from each of its {@link Shift Shifts},
+	 * are there and of the right type.
+	 *
+	 * @param payPeriodNode JSON tree of the file.
+	 * @return Problem for every missing or invalid field, empty if there is none.
+	 */
+	private static List<String> checkFields(JsonNode payPeriodNode) {
+		List<String> problems = new ArrayList<>();
+		checkFields(payPeriodNode, "", TEXT_FIELDS, NUMBER_FIELDS, problems);
+		JsonNode shifts = payPeriodNode.path("shifts");
+		if (shifts.isMissingNode()) {
+			problems.add("Field shifts is missing.");
+		} else if (!shifts.isArray()) {
+			problems.add("Field shifts is not an array.");
+		} else {
+			for (int i = 0; i < shifts.size(); ++i) {
+				checkFields(shifts.get(i), "shifts[" + i + "].", SHIFT_TEXT_FIELDS, SHIFT_NUMBER_FIELDS, problems);
+			}
+		}
+		return List.copyOf(problems);
+	}
+
+	/**
+	 * Check that the given fields of a JSON object are there and of the right type.
+	 *
+	 * @param node         JSON object to check.
+	 * @param prefix       Prefix of the names of the fields in the problems, locating the object in the file.
+	 * @param textFields   Fields that must be strings.
+	 * @param numberFields Fields that must be numbers.
+	 * @param problems     List to add the problems found to.
+	 */
+	private static void checkFields(JsonNode node, String prefix, List<String> textFields, List<String> numberFields,
+	                                List<String> problems) {
+		for (String field : textFields) {
+			JsonNode value = node.path(field);
+			if (value.isMissingNode()) {
+				problems.add("Field " + prefix + field + " is missing.");
+			} else if (!value.isTextual()) {
+				problems.add("Field " + prefix + field + " is not a string.");
+			}
+		}
+		for (String field : numberFields) {
+			JsonNode value = node.path(field);
+			if (value.isMissingNode()) {
+				problems.add("Field " + prefix + field + " is missing.");
+			} else if (!value.isNumber()) {
+				problems.add("Field " + prefix + field + " is not a number.");
+			}
+		}
+	}
+
+	/**
+	 * Compare the weekly and daily rollups stored in a {@link PayPeriod} JSON file, if any,
+	 * with the rollups recomputed from its {@link Shift Shifts}.
+	 * Files written before rollups were stored have none, and pass.
+	 *
+	 * @param payPeriodNode JSON tree of the file.
+	 * @param payPeriod     {@linkplain PayPeriod} rebuilt from the {@linkplain Shift Shifts} of the file.
+	 * @param problems      List to add the problems found to.
+	 */
+	private static void verifyRollups(JsonNode payPeriodNode, PayPeriod payPeriod, List<String> problems) {
+		JsonNode adjustedPay = payPeriodNode.get("adjustedPay");
+		if (adjustedPay != null && !matches(adjustedPay.doubleValue(), payPeriod.getAdjustedPay())) {
+			problems.add("Stored pay with overtime " + adjustedPay.doubleValue() + " does not match recomputed pay "
+				+ String.format("%.2f", payPeriod.getAdjustedPay()) + ".");
+		}
+
+		JsonNode weeks = payPeriodNode.get("weeks");
+		if (weeks != null) {
+			for (int week = 0; week < PayPeriod.WEEKS; ++week) {
+				JsonNode weekNode = weeks.get(week);
+				if (weekNode == null
+					|| !matches(weekNode.path("hours").doubleValue(), payPeriod.getWeekHours(week))
+					|| !matches(weekNode.path("pay").doubleValue(), payPeriod.getWeekPay(week))
+					|| !matches(weekNode.path("overtimeHours").doubleValue(), payPeriod.getOvertimeHours(week))) {
+					problems.add("Stored totals of week " + (week + 1) + " do not match recomputed totals.");
+				}
+			}
+		}
+
+		JsonNode dayHours = payPeriodNode.get("dayHours");
+		JsonNode dayPay = payPeriodNode.get("dayPay");
+		if (dayHours != null && dayPay != null) {
+			for (int day = 0; day < PayPeriod.DAYS; ++day) {
+				if (!matches(dayHours.path(day).doubleValue(), payPeriod.getDayHours(day))
+					|| !matches(dayPay.path(day).doubleValue(), payPeriod.getDayPay(day))) {
+					problems.add("Stored totals of day " + (day + 1) + " do not match recomputed totals.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compare a stored total with a recomputed total, rounding the recomputed total to cents as it is when stored.
+	 * A total of exactly half a cent may have been stored rounded either way, as adding up the same
+	 * {@link Shift Shifts} in another order can leave it a rounding error below or above the half cent.
+	 *
+	 * @param stored     Total stored in a {@link PayPeriod} JSON file.
+	 * @param recomputed Total recomputed from the {@linkplain Shift Shifts} of the file.
+	 * @return True iff both totals round to the same number of cents, or the recomputed total is half a cent
+	 * from the stored total.
+	 */
+	private static boolean matches(double stored, double recomputed) {
+		long storedCents = Math.round(stored * 100);
+		double recomputedCents = recomputed * 100;
+		return storedCents == Math.round(recomputedCents)
+			|| Math.abs(Math.abs(recomputedCents - storedCents) - 0.5) < HALF_CENT_ERROR;
+	}
+
+	/**
+	 * @param contents Contents of a file.
+	 * @return CRC-32C checksum and length of the given contents, as a String.
+	 */
+	private static String checksum(byte[] contents) {
+		CRC32C crc = new CRC32C();
+		crc.update(contents);
+		return Long.toHexString(crc.getValue()) + ":" + contents.length;
+	}
+}
@@ -0,0 +1,214 @@
+package tracker.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class to keep an {@link ArchiveSummary} of an {@link Archive} of {@link PayPeriod PayPeriods} up to date as its files change.
+ * <p>
+ * Changes are received from a {@link WatchService} on the directory.
+ * Bursts of changes, such as an editor saving a file in several writes, are debounced:
+ * changed files are collected until no change has been received for the debounce interval,
+ * then only those files are parsed again.
+ */
+public class ArchiveWatcher {
+	/**
+	 * Callback notified every time the summary is updated.
+	 */
+	public interface Listener {
+		/**
+		 * Called after the summary is updated.
+		 *
+		 * @param summary Updated summary.
+		 * @param changed Files that changed, sorted by name, empty after a full scan.
+		 * @param failed  Files that could not be parsed, and the error encountered, left out of the summary.
+		 */
+		void onUpdate(ArchiveSummary summary, Set<Path> changed, Map<Path, IOException> failed);
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Directory of {@link PayPeriod} JSON files. */
+	private final Path directory;
+	/** Archive of the directory, to read {@link PayPeriod PayPeriods} packed into segments. */
+	private final Archive archive;
+	/** Milliseconds without a change to wait before applying the changes received. */
+	private final long debounceMillis;
+	/** Running totals of the files in the directory. */
+	private final ArchiveSummary summary;
+
+	/**
+	 * Create a new {@link ArchiveWatcher}.
+	 *
+	 * @param objectMapper   Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param directory      Directory of {@linkplain PayPeriod} JSON files.
+	 * @param debounceMillis Milliseconds without a change to wait before applying the changes received.
+	 */
+	public ArchiveWatcher(ObjectMapper objectMapper, Path directory, long debounceMillis) {
+		this.objectMapper = objectMapper;
+		this.directory = directory;
+		this.archive = new Archive(objectMapper, directory);
+		this.debounceMillis = debounceMillis;
+		this.summary = new ArchiveSummary();
+	}
+
+	/**
+	 * Watch the directory until the current thread is interrupted,
+	 * first summarizing every file then applying every change to the summary.
+	 *
+	 * @param listener Callback notified every time the summary is updated.
+	 * @throws IOException          If an error is encountered when watching or listing the directory.
+	 * @throws InterruptedException If the current thread is interrupted while waiting for changes.
+	 */
+	public void watch(Listener listener) throws IOException, InterruptedException {
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			// register before the first scan, so no change made during the scan is missed
+			directory.register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+			listener.onUpdate(summary, Set.of(), rescan());
+
+			while (true) {
+				WatchKey key = watchService.take();
+				Set<Path> changed = new TreeSet<>();
+				boolean overflow = false;
+				// keep collecting changes until the directory is quiet for the debounce interval
+				while (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							overflow = true;
+						} else {
+							Path file = directory.resolve((Path) event.context());
+							String name = file.getFileName().toString();
+							if (PayPeriodFiles.isPayPeriodName(name) || name.endsWith(SegmentFile.EXTENSION)) {
+								changed.add(file);
+							}
+						}
+					}
+					if (!key.reset()) {
+						throw new IOException("Directory " + directory + " can no longer be watched.");
+					}
+					key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+				}
+
+				if (overflow) {
+					listener.onUpdate(summary, Set.of(), rescan());
+				} else if (!changed.isEmpty()) {
+					listener.onUpdate(summary, changed, update(changed));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Summarize every {@link PayPeriod} in the archive from scratch.
+	 *
+	 * @return Files that could not be parsed, and the error encountered.
+	 * @throws IOException If an error is encountered when listing the directory.
+	 */
+	private Map<Path, IOException> rescan() throws IOException {
+		summary.clear();
+		Set<Path> files = new TreeSet<>(archive.segments());
+		files.addAll(PayPeriodFiles.list(directory));
+		return update(files);
+	}
+
+	/**
+	 * Parse the given files again and update their totals in the summary.
+	 * Segments are applied first, as JSON files take precedence over segment entries with the same starting date.
+	 * A deleted or unparsable JSON file is removed from the summary, unless its {@linkplain PayPeriod} is archived.
+	 *
+	 * @param files JSON and segment files to update.
+	 * @return Files that could not be parsed, and the error encountered.
+	 */
+	private Map<Path, IOException> update(Set<Path> files) {
+		Map<Path, IOException> failed = new LinkedHashMap<>();
+		for (Path file : files) {
+			if (!file.getFileName().toString().endsWith(SegmentFile.EXTENSION)) {
+				continue;
+			}
+			try {
+				if (Files.isRegularFile(file)) {
+					for (Map.Entry<LocalDate, PayPeriod> entry : archive.readSegment(file).entrySet()) {
+						if (archive.findFile(entry.getKey()) == null) {
+							summary.put(archive.fileOf(entry.getKey()), entry.getValue());
+						}
+					}
+				} else {
+					for (Path jsonFile : summary.getPaths()) {
+						LocalDate start = Archive.startOf(jsonFile);
+						if (start != null && file.equals(archive.segmentOf(start.getYear())) && archive.findFile(start) == null) {
+							summary.remove(jsonFile);
+						}
+					}
+				}
+			} catch (IOException e) {
+				failed.put(file, e);
+			}
+		}
+
+		for (Path file : files) {
+			LocalDate start = Archive.startOf(file);
+			if (start == null) {
+				if (PayPeriodFiles.isPayPeriodName(file.getFileName().toString())) {
+					updateUnarchived(file, failed);
+				}
+				continue;
+			}
+			try {
+				// summarize every period under the path of its plain JSON file,
+				// so a period switching between plain, compressed and archived is only counted once
+				Path key = archive.fileOf(start);
+				summary.remove(key);
+				Path existing = archive.findFile(start);
+				PayPeriod payPeriod = (existing != null)
+					? PayPeriodFiles.read(objectMapper, existing)
+					: archive.readArchived(file);
+				if (payPeriod != null) {
+					summary.put(key, payPeriod);
+				}
+			} catch (IOException e) {
+				// most likely caught mid-write, the next change to the file will parse it again
+				failed.put(file, e);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Parse a JSON file not named after its starting date again and update its totals in the summary.
+	 * Such a file cannot be archived or compressed by name, so it is summarized under its own path,
+	 * and removed from the summary if it was deleted or cannot be parsed.
+	 *
+	 * @param file   JSON file to update.
+	 * @param failed Files that could not be parsed, and the error encountered, to add to.
+	 */
+	private void updateUnarchived(Path file, Map<Path, IOException> failed) {
+		summary.remove(file);
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+		try {
+			summary.put(file, PayPeriodFiles.read(objectMapper, file));
+		} catch (IOException e) {
+			// most likely caught mid-write, the next change to the file will parse it again
+			failed.put(file, e);
+		}
+	}
+}
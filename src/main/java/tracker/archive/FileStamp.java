@@ -0,0 +1,52 @@
+package tracker.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stamp of a file, changed by any write to the file: its modification time, size and file key.
+ * <p>
+ * The file key identifies the file on its file system, such as its inode, so a file replaced by renaming another file
+ * over it, as the {@link PayPeriodStore} writes files, gets a new stamp even within the resolution of the clock.
+ *
+ * @param modified Modification time of the file, in nanoseconds since the epoch.
+ * @param size     Size of the file, in bytes.
+ * @param key      Key identifying the file on its file system, empty if the file system has none.
+ */
+public record FileStamp(long modified, long size, String key) {
+	/**
+	 * @param file File to stamp.
+	 * @return Stamp of the file.
+	 * @throws IOException If an error is encountered when reading the attributes of the file.
+	 */
+	public static FileStamp of(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		Object key = attributes.fileKey();
+		return new FileStamp(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size(),
+			(key != null) ? key.toString() : "");
+	}
+
+	/**
+	 * @param stamp Stamp written by {@link #toString()}.
+	 * @return Parsed stamp.
+	 * @throws IllegalArgumentException If the stamp is invalid.
+	 */
+	public static FileStamp parse(String stamp) {
+		String[] fields = stamp.split(":", 3);
+		if (fields.length != 3) {
+			throw new IllegalArgumentException("Invalid file stamp " + stamp + ".");
+		}
+		return new FileStamp(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]);
+	}
+
+	/**
+	 * @return Stamp as <code>modified:size:key</code>, parsed by {@link #parse(String)}.
+	 */
+	@Override
+	public String toString() {
+		return modified + ":" + size + ":" + key;
+	}
+}
@@ -0,0 +1,230 @@
+package tracker.archive;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.PayPeriodSummary;
+import tracker.jackson.PayPeriodDeserializer;
+import tracker.profile.Profiler;
+import tracker.profile.Stage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helper methods to find, read and write {@link tracker.PayPeriod PayPeriod} JSON files on disk.
+ * <p>
+ * A {@linkplain tracker.PayPeriod PayPeriod} JSON file may be stored as plain text, named <code>YYYY-MM-DD.json</code>,
+ * or compressed with gzip, named <code>YYYY-MM-DD.json.gz</code>.
+ * Compressed files are decompressed and compressed as they are streamed, without buffering the whole file.
+ */
+public final class PayPeriodFiles {
+	/** Extension of a {@linkplain tracker.PayPeriod PayPeriod} JSON file. */
+	public static final String EXTENSION = ".json";
+	/** Extension of a gzip compressed {@linkplain tracker.PayPeriod PayPeriod} JSON file. */
+	public static final String COMPRESSED_EXTENSION = ".json.gz";
+	/** Size of the buffers used to stream files. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private PayPeriodFiles() {
+	}
+
+	/**
+	 * @param path Path to check.
+	 * @return True iff the given path is a regular file named like a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 */
+	public static boolean isPayPeriodFile(Path path) {
+		return isPayPeriodName(path.getFileName().toString()) && Files.isRegularFile(path);
+	}
+
+	/**
+	 * @param name Name of a file.
+	 * @return True iff the given name has the extension of a plain or compressed {@link tracker.PayPeriod PayPeriod} JSON file.
+	 */
+	public static boolean isPayPeriodName(String name) {
+		return name.endsWith(EXTENSION) || name.endsWith(COMPRESSED_EXTENSION);
+	}
+
+	/**
+	 * @param path Path to a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 * @return True iff the file is named as a compressed {@linkplain tracker.PayPeriod PayPeriod} JSON file.
+	 */
+	public static boolean isCompressed(Path path) {
+		return path.getFileName().toString().endsWith(COMPRESSED_EXTENSION);
+	}
+
+	/**
+	 * @param path Path to a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 * @return Name of the file without its plain or compressed extension,
+	 * or null if the file does not have either extension.
+	 */
+	public static String baseName(Path path) {
+		String name = path.getFileName().toString();
+		if (name.endsWith(COMPRESSED_EXTENSION)) {
+			return name.substring(0, name.length() - COMPRESSED_EXTENSION.length());
+		} else if (name.endsWith(EXTENSION)) {
+			return name.substring(0, name.length() - EXTENSION.length());
+		}
+		return null;
+	}
+
+	/**
+	 * Open a buffered stream to read the given file, decompressing it if it is compressed.
+	 *
+	 * @param path Path to a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 * @return Stream of the JSON in the file, to be closed by the caller.
+	 * @throws IOException If an error is encountered when opening the file.
+	 */
+	public static InputStream openInput(Path path) throws IOException {
+		InputStream in = Files.newInputStream(path);
+		try {
+			return isCompressed(path) ? new GZIPInputStream(in, BUFFER_SIZE) : new BufferedInputStream(in, BUFFER_SIZE);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open a buffered stream to write the given file, compressing it if it is named as a compressed file.
+	 *
+	 * @param path Path to a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 * @return Stream to write the JSON of the file to, to be closed by the caller.
+	 * @throws IOException If an error is encountered when opening the file.
+	 */
+	public static OutputStream openOutput(Path path) throws IOException {
+		return openOutput(path, isCompressed(path));
+	}
+
+	/**
+	 * Open a buffered stream to write the given file, such as a temporary file later moved in place of a
+	 * {@link tracker.PayPeriod PayPeriod} JSON file, whatever it is named.
+	 *
+	 * @param path       Path to the file.
+	 * @param compressed Compress the file with gzip?
+	 * @return Stream to write the JSON of the file to, to be closed by the caller.
+	 * @throws IOException If an error is encountered when opening the file.
+	 */
+	public static OutputStream openOutput(Path path, boolean compressed) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+		try {
+			return compressed ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+		} catch (IOException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Read the {@link tracker.PayPeriod PayPeriod} in the given file, decompressing it if it is compressed.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@linkplain tracker.PayPeriod PayPeriod} objects.
+	 * @param path         Path to a {@linkplain tracker.PayPeriod PayPeriod} JSON file.
+	 * @return {@linkplain tracker.PayPeriod PayPeriod} in the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public static PayPeriod read(ObjectMapper objectMapper, Path path) throws IOException {
+		try (InputStream in = Profiler.time(Stage.FILE_READ, openInput(path))) {
+			return objectMapper.readValue(in, PayPeriod.class);
+		}
+	}
+
+	/**
+	 * Read the totals and rollups of the {@link tracker.PayPeriod PayPeriod} in the given file,
+	 * without parsing its {@link tracker.Shift Shifts} if the file was written with rollups.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@linkplain tracker.PayPeriod PayPeriod} objects.
+	 * @param path         Path to a {@linkplain tracker.PayPeriod PayPeriod} JSON file.
+	 * @return Summary of the {@linkplain tracker.PayPeriod PayPeriod} in the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public static PayPeriodSummary readSummary(ObjectMapper objectMapper, Path path) throws IOException {
+		PayPeriodSummary summary;
+		try (InputStream in = openInput(path);
+		     JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			summary = PayPeriodDeserializer.deserializeSummary(parser);
+		}
+		// files written before rollups were stored must be parsed in full
+		return (summary != null) ? summary : PayPeriodSummary.of(read(objectMapper, path));
+	}
+
+	/**
+	 * Read the totals and rollups of the {@link tracker.PayPeriod PayPeriod} in the given JSON, such as a segment entry,
+	 * without parsing its {@link tracker.Shift Shifts} if the JSON was written with rollups.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@linkplain tracker.PayPeriod PayPeriod} objects.
+	 * @param contents     JSON of a {@linkplain tracker.PayPeriod PayPeriod}.
+	 * @return Summary of the {@linkplain tracker.PayPeriod PayPeriod}.
+	 * @throws IOException If an error is encountered when reading the JSON.
+	 */
+	public static PayPeriodSummary readSummary(ObjectMapper objectMapper, byte[] contents) throws IOException {
+		PayPeriodSummary summary;
+		try (JsonParser parser = objectMapper.getFactory().createParser(contents)) {
+			summary = PayPeriodDeserializer.deserializeSummary(parser);
+		}
+		return (summary != null) ? summary : PayPeriodSummary.of(objectMapper.readValue(contents, PayPeriod.class));
+	}
+
+	/**
+	 * Read the JSON tree of the given file, decompressing it if it is compressed.
+	 *
+	 * @param objectMapper Object mapper to use to parse the file.
+	 * @param path         Path to a {@link tracker.PayPeriod PayPeriod} JSON file.
+	 * @return JSON tree of the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public static JsonNode readTree(ObjectMapper objectMapper, Path path) throws IOException {
+		try (InputStream in = Profiler.time(Stage.FILE_READ, openInput(path))) {
+			return objectMapper.readTree(in);
+		}
+	}
+
+	/**
+	 * List the plain and compressed {@link tracker.PayPeriod PayPeriod} JSON files directly under the given directory,
+	 * sorted by name, which sorts them by their starting date.
+	 *
+	 * @param directory Directory to list.
+	 * @return Sorted List of {@linkplain tracker.PayPeriod PayPeriod} JSON files.
+	 * @throws IOException If an error is encountered when listing the given directory.
+	 */
+	public static List<Path> list(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(PayPeriodFiles::isPayPeriodFile).sorted().toList();
+		}
+	}
+
+	/**
+	 * Collect the {@link tracker.PayPeriod PayPeriod} JSON files given directly or found directly under the given directories.
+	 *
+	 * @param sources Paths to {@linkplain tracker.PayPeriod PayPeriod} JSON files or to directories of them.
+	 * @return List of {@linkplain tracker.PayPeriod PayPeriod} JSON files, in the order the sources were given.
+	 * @throws FileNotFoundException If a source is neither a file nor a directory.
+	 * @throws IOException           If an error is encountered when listing a directory.
+	 */
+	public static List<Path> collect(List<String> sources) throws FileNotFoundException, IOException {
+		List<Path> files = new ArrayList<>();
+		for (String source : sources) {
+			Path path = Path.of(source);
+			if (Files.isDirectory(path)) {
+				files.addAll(list(path));
+			} else if (Files.isRegularFile(path)) {
+				files.add(path);
+			} else {
+				throw new FileNotFoundException(source);
+			}
+		}
+		return files;
+	}
+}
@@ -0,0 +1,622 @@
+package tracker.archive;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tracker.PayPeriod;
+import tracker.profile.Profiler;
+import tracker.profile.Stage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Class to read and write {@link PayPeriod} JSON files safely when several threads or processes write to them at once.
+ * <p>
+ * A {@linkplain PayPeriod} is read without a lock, along with a version of its file, its CRC-32C checksum and length,
+ * computed from the decompressed stream as it is parsed.
+ * Changes are then made without holding any lock, however long they take, such as while prompting the user.
+ * To write the changed {@linkplain PayPeriod}, the lock of its file is taken, and the version of the file is checked:
+ * if the file is unchanged since it was read, the changed {@linkplain PayPeriod} is written,
+ * otherwise the changes are applied again to the latest {@linkplain PayPeriod} in the file, which is written instead.
+ * Either way, the lock is only held to check the version and write the file.
+ * <p>
+ * Locks are striped per file: writers to different files never block each other.
+ * The lock of a file is a {@link ReentrantLock} for the threads of this process, held along with a
+ * {@link java.nio.channels.FileLock FileLock} on a {@value #LOCK_EXTENSION} file next to it for other processes.
+ * Several files can also be written as one transaction, with {@link #commit(Map)}.
+ * Files are written to a temporary file of their own, with a unique name, moved in place of the file,
+ * so readers never see a partly written file and writers never share a temporary file.
+ * <p>
+ * A transaction replaces its files one after the other, so a process that dies while replacing them leaves them
+ * partly replaced. Before replacing any file, a transaction writes a journal listing its files next to the first one,
+ * and keeps it locked until it is done. Every file replaced is backed up under a name holding the ID of the journal,
+ * and the journal is marked committed once every file is replaced, before the backups are deleted.
+ * The journal of a transaction whose process died is no longer locked, and the next read, write or transaction
+ * in its directory {@linkplain #recover(Path) rolls it back}, or deletes its backups if it was committed.
+ */
+public class PayPeriodStore {
+	/** Extension of the file locked by writers of a {@link PayPeriod} JSON file, after the name of the file. */
+	public static final String LOCK_EXTENSION = ".lock";
+	/** Extension of the temporary file written before replacing a {@link PayPeriod} JSON file, after the name of the file. */
+	private static final String TEMP_EXTENSION = ".tmp";
+	/**
+	 * Extension of the backup of a {@link PayPeriod} JSON file replaced by a transaction,
+	 * after the name of the file and the ID of the journal of the transaction.
+	 */
+	private static final String BACKUP_EXTENSION = ".bak";
+	/** Prefix of the name of the journal of a transaction replacing its files, followed by the ID of the journal. */
+	private static final String JOURNAL_PREFIX = ".transaction-";
+	/** Last line of the journal of a transaction that replaced every file, and whose backups can be deleted. */
+	private static final String COMMITTED = "committed";
+	/** Mark of a file in a journal that did not exist before the transaction. */
+	private static final String NEW_FILE = "new";
+	/** Mark of a file in a journal that existed before the transaction, and is backed up while it is replaced. */
+	private static final String EXISTING_FILE = "existing";
+	/** Locks of the files written by this process, by absolute path. */
+	private static final ConcurrentMap<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+	/** Locks of the directories whose transactions are being recovered by this process, by absolute path. */
+	private static final ConcurrentMap<Path, ReentrantLock> RECOVERIES = new ConcurrentHashMap<>();
+
+	/** Outcome of writing a {@link PayPeriod}. */
+	public enum Outcome {
+		/** The file was unchanged since it was read, and the changed {@link PayPeriod} was written. */
+		WRITTEN,
+		/** The file changed since it was read, and the changes were applied again to the latest {@link PayPeriod}. */
+		REAPPLIED,
+		/** The file changed since it was read, and the changes could not be applied again. Nothing was written. */
+		CONFLICT
+	}
+
+	/**
+	 * Changed {@link PayPeriod} to write as part of a transaction.
+	 *
+	 * @param payPeriod       Changed {@linkplain PayPeriod} to write.
+	 * @param expectedVersion Version of the file when the {@linkplain PayPeriod} was read, null if the file did not exist.
+	 */
+	public record Change(PayPeriod payPeriod, String expectedVersion) {
+	}
+
+	/**
+	 * Lock of a single file, held by a thread of this process and, through its lock file, by this process.
+	 */
+	private static final class Lock implements Closeable {
+		/** Lock of the file within this process. */
+		private final ReentrantLock threadLock;
+		/** Channel of the lock file. */
+		private final FileChannel channel;
+
+		/**
+		 * @param threadLock Lock of the file within this process, held.
+		 * @param channel    Channel of the lock file, locked.
+		 */
+		private Lock(ReentrantLock threadLock, FileChannel channel) {
+			this.threadLock = threadLock;
+			this.channel = channel;
+		}
+
+		/**
+		 * Take the lock of the given file, waiting for other threads and processes holding it.
+		 *
+		 * @param file Absolute path to a {@link PayPeriod} JSON file.
+		 * @return Lock held, to be closed by the caller.
+		 * @throws IOException If an error is encountered when locking the lock file.
+		 */
+		private static Lock acquire(Path file) throws IOException {
+			ReentrantLock threadLock = LOCKS.computeIfAbsent(file, path -> new ReentrantLock());
+			threadLock.lock();
+			FileChannel channel = null;
+			try {
+				channel = FileChannel.open(lockFileOf(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				// the file lock is released when its channel is closed
+				channel.lock();
+				return new Lock(threadLock, channel);
+			} catch (IOException | RuntimeException e) {
+				if (channel != null) {
+					channel.close();
+				}
+				threadLock.unlock();
+				throw e;
+			}
+		}
+
+		/**
+		 * Release the lock.
+		 *
+		 * @throws IOException If an error is encountered when closing the lock file.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				channel.close();
+			} finally {
+				threadLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * {@link PayPeriod} read from a file, with the version of the file it was read from.
+	 *
+	 * @param payPeriod {@linkplain PayPeriod} read.
+	 * @param version   Version of the file when it was read.
+	 */
+	public record Versioned(PayPeriod payPeriod, String version) {
+	}
+
+	/**
+	 * JSON tree of a {@link PayPeriod} read from a file, with the version of the file it was read from.
+	 *
+	 * @param tree    JSON tree read.
+	 * @param version Version of the file when it was read.
+	 */
+	public record VersionedTree(JsonNode tree, String version) {
+	}
+
+	/**
+	 * Stream of the decompressed contents of a {@link PayPeriod} JSON file, adding up their CRC-32C checksum
+	 * and length as they are read, to compute the version of the file without holding its contents.
+	 */
+	private static final class VersionInputStream extends CheckedInputStream {
+		/** Number of bytes read so far. */
+		private long length = 0;
+
+		/**
+		 * Open the given file, decompressing it if it is compressed.
+		 *
+		 * @param file Path to a {@linkplain PayPeriod} JSON file.
+		 * @throws IOException If an error is encountered when opening the file.
+		 */
+		private VersionInputStream(Path file) throws IOException {
+			super(Profiler.time(Stage.FILE_READ, PayPeriodFiles.openInput(file)), new CRC32C());
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				++length;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buf, int off, int len) throws IOException {
+			int read = super.read(buf, off, len);
+			if (read > 0) {
+				length += read;
+			}
+			return read;
+		}
+
+		/**
+		 * Read the rest of the file, such as the whitespace after the JSON parsed, in chunks.
+		 *
+		 * @return Version of the file, its CRC-32C checksum and length, as a String.
+		 * @throws IOException If an error is encountered when reading the file.
+		 */
+		private String version() throws IOException {
+			transferTo(OutputStream.nullOutputStream());
+			return Long.toHexString(getChecksum().getValue()) + ":" + length;
+		}
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Object writer to use for serialization of {@link PayPeriod} objects. */
+	private final ObjectWriter objectWriter;
+
+	/**
+	 * Create a new {@link PayPeriodStore}.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param objectWriter Object writer to use for serialization of {@link PayPeriod} objects.
+	 */
+	public PayPeriodStore(ObjectMapper objectMapper, ObjectWriter objectWriter) {
+		this.objectMapper = objectMapper;
+		this.objectWriter = objectWriter;
+	}
+
+	/**
+	 * Read the {@link PayPeriod} in the given file, along with the version of the file. No lock is taken,
+	 * other than to {@linkplain #recover(Path) roll back} a transaction whose process died in the directory.
+	 *
+	 * @param file Path to a {@linkplain PayPeriod} JSON file.
+	 * @return {@linkplain PayPeriod} in the file, and the version of the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public Versioned read(Path file) throws IOException {
+		recover(file.toAbsolutePath().normalize().getParent());
+		return parse(objectMapper, file);
+	}
+
+	/**
+	 * Read the {@link PayPeriod} in the given file, along with the version of the file, without recovering
+	 * its directory first, such as while holding the lock of the file, or once the caller recovered it.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@linkplain PayPeriod} objects.
+	 * @param file         Path to a {@linkplain PayPeriod} JSON file.
+	 * @return {@linkplain PayPeriod} in the file, and the version of the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public static Versioned parse(ObjectMapper objectMapper, Path file) throws IOException {
+		// parsed from the stream the version is computed from, so the version is that of the contents parsed
+		try (VersionInputStream in = new VersionInputStream(file);
+		     JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			PayPeriod payPeriod = objectMapper.readValue(parser, PayPeriod.class);
+			return new Versioned(payPeriod, in.version());
+		}
+	}
+
+	/**
+	 * Read the JSON tree of the {@link PayPeriod} in the given file, along with the version of the file,
+	 * such as to read its {@link tracker.Shift Shifts} as listed. No lock is taken,
+	 * other than to {@linkplain #recover(Path) roll back} a transaction whose process died in the directory.
+	 *
+	 * @param file Path to a {@linkplain PayPeriod} JSON file.
+	 * @return JSON tree of the file, and the version of the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public VersionedTree readTree(Path file) throws IOException {
+		recover(file.toAbsolutePath().normalize().getParent());
+		try (VersionInputStream in = new VersionInputStream(file);
+		     JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			JsonNode tree = objectMapper.readTree(parser);
+			return new VersionedTree(tree, in.version());
+		}
+	}
+
+	/**
+	 * Write a changed {@link PayPeriod} to the given file, holding the lock of the file.
+	 * If the file changed since the given version was read, the changes are applied again to the latest
+	 * {@linkplain PayPeriod} in the file by the given function, and the result is written instead.
+	 *
+	 * @param file            Path to a {@linkplain PayPeriod} JSON file.
+	 * @param expectedVersion Version of the file when the {@linkplain PayPeriod} was read, null if the file did not exist.
+	 * @param payPeriod       Changed {@linkplain PayPeriod} to write.
+	 * @param reapply         Function applying the changes again to the latest {@linkplain PayPeriod} in the file,
+	 *                        which is null if the file no longer exists, returning null if they can no longer be applied.
+	 * @return Outcome of the write.
+	 * @throws IOException If an error is encountered when locking, reading or writing the file.
+	 */
+	public Outcome write(Path file, String expectedVersion, PayPeriod payPeriod, UnaryOperator<PayPeriod> reapply) throws IOException {
+		Path absolute = file.toAbsolutePath().normalize();
+		recover(absolute.getParent());
+		try (Lock lock = Lock.acquire(absolute)) {
+			Outcome outcome = Outcome.WRITTEN;
+			PayPeriod latest = payPeriod;
+			String version = versionOf(absolute);
+			if (version == null ? expectedVersion != null : !version.equals(expectedVersion)) {
+				latest = (version != null) ? reapply.apply(parse(objectMapper, absolute).payPeriod()) : reapply.apply(null);
+				if (latest == null) {
+					return Outcome.CONFLICT;
+				}
+				outcome = Outcome.REAPPLIED;
+			}
+
+			Path tempFile = writeTemp(absolute, latest);
+			try {
+				Files.move(tempFile, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+			return outcome;
+		}
+	}
+
+	/**
+	 * Write several changed {@link PayPeriod PayPeriods} to their files as one transaction:
+	 * either every file is replaced, or none is.
+	 * <p>
+	 * Every {@linkplain PayPeriod} is first written to a temporary file, in parallel, without holding any lock.
+	 * Then the locks of every file are taken, in order of their paths so that two transactions cannot deadlock,
+	 * and the version of every file is checked. If any file changed since it was read, nothing is written.
+	 * Otherwise every file is replaced by its temporary file, keeping a backup of it until every file is replaced,
+	 * so the files already replaced are restored if replacing a file fails, or by {@link #recover(Path)}
+	 * if this process dies while replacing them.
+	 *
+	 * @param changes Changed {@linkplain PayPeriod} to write, and the version of its file when it was read, by file.
+	 * @return Sorted List of the files changed by another writer since they were read, empty if every file was written.
+	 * @throws IOException If an error is encountered when locking, reading or writing a file.
+	 */
+	public List<Path> commit(Map<Path, Change> changes) throws IOException {
+		SortedMap<Path, Change> sorted = new TreeMap<>();
+		changes.forEach((file, change) -> sorted.put(file.toAbsolutePath().normalize(), change));
+		if (sorted.isEmpty()) {
+			return List.of();
+		}
+		for (Path directory : sorted.keySet().stream().map(Path::getParent).distinct().toList()) {
+			recover(directory);
+		}
+
+		Map<Path, Path> tempFiles = new ConcurrentHashMap<>();
+		List<Lock> locks = new ArrayList<>(sorted.size());
+		try {
+			try {
+				sorted.entrySet().parallelStream().forEach(entry -> {
+					try {
+						tempFiles.put(entry.getKey(), writeTemp(entry.getKey(), entry.getValue().payPeriod()));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+
+			for (Path file : sorted.keySet()) {
+				locks.add(Lock.acquire(file));
+			}
+			List<Path> conflicts = new ArrayList<>();
+			for (Map.Entry<Path, Change> entry : sorted.entrySet()) {
+				String version = versionOf(entry.getKey());
+				String expectedVersion = entry.getValue().expectedVersion();
+				if (version == null ? expectedVersion != null : !version.equals(expectedVersion)) {
+					conflicts.add(entry.getKey());
+				}
+			}
+			if (!conflicts.isEmpty()) {
+				return conflicts;
+			}
+
+			replaceAll(sorted.keySet(), tempFiles);
+			return List.of();
+		} finally {
+			for (int i = locks.size() - 1; i >= 0; --i) {
+				locks.get(i).close();
+			}
+			for (Path tempFile : tempFiles.values()) {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+
+	/**
+	 * Replace every given file by its temporary file, restoring the files already replaced if replacing a file fails.
+	 * The files are listed in a journal, locked while they are replaced, which is marked committed once every file
+	 * is replaced: the backups are then deleted, and the journal last, so no backup outlives its journal.
+	 *
+	 * @param files     Files to replace, whose locks are held, sorted.
+	 * @param tempFiles Temporary file of every file.
+	 * @throws IOException If an error is encountered when writing the journal or replacing a file.
+	 */
+	private static void replaceAll(Collection<Path> files, Map<Path, Path> tempFiles) throws IOException {
+		Map<Path, Path> backups = new LinkedHashMap<>();
+		List<Path> replaced = new ArrayList<>();
+		StringBuilder journal = new StringBuilder();
+		for (Path file : files) {
+			journal.append(Files.exists(file) ? EXISTING_FILE : NEW_FILE).append(' ').append(file).append('\n');
+		}
+		String id = UUID.randomUUID().toString();
+		Path journalPath = files.iterator().next().resolveSibling(JOURNAL_PREFIX + id);
+		try (FileChannel journalChannel = FileChannel.open(journalPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			// the journal stays locked until the transaction is done, so recovery can tell a live transaction from a dead one
+			journalChannel.lock();
+			journalChannel.write(ByteBuffer.wrap(journal.toString().getBytes(StandardCharsets.UTF_8)));
+			journalChannel.force(true);
+			try {
+				for (Path file : files) {
+					if (Files.exists(file)) {
+						Path backup = backupOf(file, id);
+						Files.move(file, backup, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+						backups.put(file, backup);
+					}
+					Files.move(tempFiles.get(file), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					replaced.add(file);
+				}
+				// marking the journal committed commits the transaction
+				journalChannel.write(ByteBuffer.wrap((COMMITTED + "\n").getBytes(StandardCharsets.UTF_8)));
+				journalChannel.force(true);
+			} catch (IOException e) {
+				for (Path file : files) {
+					Path backup = backups.get(file);
+					if (backup != null) {
+						Files.move(backup, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} else if (replaced.contains(file)) {
+						Files.deleteIfExists(file);
+					}
+				}
+				Files.delete(journalPath);
+				throw e;
+			}
+			for (Path backup : backups.values()) {
+				Files.delete(backup);
+			}
+			Files.delete(journalPath);
+		}
+	}
+
+	/**
+	 * Recover every transaction in the given directory whose process died: a transaction that was not committed
+	 * is rolled back, every file backed up being restored from its backup and every file it created deleted,
+	 * and the backups of a transaction that was committed are deleted. Only backups named in a journal are touched.
+	 * The journal of a transaction still running is locked by its process, and is skipped.
+	 * Threads of this process recover a directory one at a time, so none reads a file another is still restoring,
+	 * and a directory without any journal is not locked at all.
+	 * Never called while holding the lock of a file, as recovering takes the locks of the files of a transaction.
+	 *
+	 * @param directory Directory of {@link PayPeriod} JSON files.
+	 * @throws IOException If an error is encountered when reading a journal or restoring a file.
+	 */
+	public static void recover(Path directory) throws IOException {
+		Path absolute = directory.toAbsolutePath().normalize();
+		if (journalsOf(absolute).isEmpty()) {
+			return;
+		}
+		ReentrantLock recovery = RECOVERIES.computeIfAbsent(absolute, path -> new ReentrantLock());
+		recovery.lock();
+		try {
+			// listed again, as another thread may have recovered them while this one waited
+			for (Path journalPath : journalsOf(absolute)) {
+				recover(journalPath, journalPath.getFileName().toString().substring(JOURNAL_PREFIX.length()));
+			}
+		} finally {
+			recovery.unlock();
+		}
+	}
+
+	/**
+	 * Roll back the transaction of the given journal, or delete its backups if it was committed,
+	 * unless its process is still running.
+	 *
+	 * @param journalPath Journal of a transaction.
+	 * @param id          ID of the journal.
+	 * @throws IOException If an error is encountered when reading the journal or restoring a file.
+	 */
+	private static void recover(Path journalPath, String id) throws IOException {
+		try (FileChannel journalChannel = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			FileLock journalLock;
+			try {
+				journalLock = journalChannel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				// locked by a transaction of this process
+				return;
+			}
+			if (journalLock == null) {
+				// locked by a transaction of another process
+				return;
+			}
+
+			List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+			boolean committed = lines.contains(COMMITTED);
+			SortedMap<Path, Boolean> files = new TreeMap<>();
+			for (String line : lines) {
+				int space = line.indexOf(' ');
+				if (space > 0) {
+					files.put(Path.of(line.substring(space + 1)), line.substring(0, space).equals(NEW_FILE));
+				}
+			}
+			List<Lock> locks = new ArrayList<>(files.size());
+			try {
+				for (Path file : files.keySet()) {
+					locks.add(Lock.acquire(file));
+				}
+				for (Map.Entry<Path, Boolean> entry : files.entrySet()) {
+					Path backup = backupOf(entry.getKey(), id);
+					if (committed) {
+						Files.deleteIfExists(backup);
+					} else if (Files.exists(backup)) {
+						Files.move(backup, entry.getKey(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} else if (entry.getValue()) {
+						Files.deleteIfExists(entry.getKey());
+					}
+				}
+				Files.delete(journalPath);
+			} finally {
+				for (int i = locks.size() - 1; i >= 0; --i) {
+					locks.get(i).close();
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// recovered or done since the directory was listed
+		}
+	}
+
+	/**
+	 * @param directory Absolute path to a directory of {@link PayPeriod} JSON files.
+	 * @return List of the journals of transactions in the directory, empty if it does not exist.
+	 * @throws IOException If an error is encountered when listing the directory.
+	 */
+	private static List<Path> journalsOf(Path directory) throws IOException {
+		List<Path> journals = new ArrayList<>();
+		try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*")) {
+			paths.forEach(journals::add);
+		} catch (NoSuchFileException e) {
+			// nothing to recover in a directory that does not exist yet
+		}
+		return journals;
+	}
+
+	/**
+	 * @param file Path to a {@link PayPeriod} JSON file.
+	 * @param id   ID of the journal of a transaction.
+	 * @return Path to the backup of the file while the transaction replaces it.
+	 */
+	private static Path backupOf(Path file, String id) {
+		return file.resolveSibling(file.getFileName() + "." + id + BACKUP_EXTENSION);
+	}
+
+	/**
+	 * Write a {@link PayPeriod} to a new temporary file next to the given file, compressed if the file is.
+	 * Every temporary file has a unique name, so concurrent writers of the same file never write to the same one.
+	 *
+	 * @param file      Path to a {@linkplain PayPeriod} JSON file.
+	 * @param payPeriod {@linkplain PayPeriod} to write.
+	 * @return Path to the temporary file written, to be moved or deleted by the caller.
+	 * @throws IOException If an error is encountered when writing the temporary file.
+	 */
+	private Path writeTemp(Path file, PayPeriod payPeriod) throws IOException {
+		// named rather than created by Files.createTempFile, which would restrict the permissions of the file it replaces
+		Path tempFile = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TEMP_EXTENSION);
+		try (OutputStream out = PayPeriodFiles.openOutput(tempFile, PayPeriodFiles.isCompressed(file))) {
+			objectWriter.writeValue(out, payPeriod);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+		return tempFile;
+	}
+
+	/**
+	 * @param file Path to a {@link PayPeriod} JSON file.
+	 * @return Version of the file, or null if it does not exist.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public static String versionOf(Path file) throws IOException {
+		try (VersionInputStream in = new VersionInputStream(file)) {
+			return in.version();
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Take the lock writers of the given file take, waiting for other threads and processes holding it,
+	 * to replace or delete the file other than through this store, such as when restoring a snapshot.
+	 * Any other file of the directory rewritten as a whole, such as a segment, can be locked the same way.
+	 *
+	 * @param file Path to a {@link PayPeriod} JSON file, or another file of its directory.
+	 * @return Lock held, to be closed by the caller.
+	 * @throws IOException If an error is encountered when locking the lock file.
+	 */
+	public static Closeable lock(Path file) throws IOException {
+		return Lock.acquire(file.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * @param file Path to a {@link PayPeriod} JSON file.
+	 * @return Path to the file locked by writers of the given file.
+	 */
+	public static Path lockFileOf(Path file) {
+		return file.resolveSibling(file.getFileName() + LOCK_EXTENSION);
+	}
+}
@@ -0,0 +1,273 @@
+package tracker.archive;
+
+import tracker.profile.Profiler;
+import tracker.profile.Stage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+
+/**
+ * An immutable file packing many closed {@link tracker.PayPeriod PayPeriods}, sorted by their starting date.
+ * <p>
+ * The file is laid out as:
+ * <ol>
+ *     <li>a header of the magic number and format version,</li>
+ *     <li>the compact JSON of every {@linkplain tracker.PayPeriod PayPeriod}, one after the other,</li>
+ *     <li>an index with the starting date, offset and length of every entry,</li>
+ *     <li>a trailer with the number of entries, the offset of the index, and the magic number.</li>
+ * </ol>
+ * Opening a segment reads the trailer and index, after which any entry is read with a single positional read.
+ * The {@link Index} of a segment can be kept to open the segment again without reading it.
+ */
+public class SegmentFile implements Closeable {
+	/** Extension of a segment file. */
+	public static final String EXTENSION = ".seg";
+	/** Magic number at the start and end of a segment file, <code>PPSG</code> in ASCII. */
+	private static final int MAGIC = 0x50505347;
+	/** Version of the segment file format. */
+	private static final int VERSION = 1;
+	/** Size of the header: magic number and version. */
+	private static final int HEADER_SIZE = 8;
+	/** Size of an index entry: starting epoch day, offset and length. */
+	private static final int INDEX_ENTRY_SIZE = 20;
+	/** Size of the trailer: number of entries, index offset and magic number. */
+	private static final int TRAILER_SIZE = 16;
+
+	/**
+	 * Index of a segment file, read when the segment is opened. Must not be modified.
+	 *
+	 * @param starts  Starting dates of the entries as epoch days, sorted.
+	 * @param offsets Offsets of the entries, at the same index as their starting date.
+	 * @param lengths Lengths of the entries, at the same index as their starting date.
+	 */
+	public record Index(long[] starts, long[] offsets, int[] lengths) {
+	}
+
+	/** Channel to read the segment file with. */
+	private final FileChannel channel;
+	/** Index of the segment file. */
+	private final Index index;
+	/** Starting dates of the entries as epoch days, sorted. */
+	private final long[] starts;
+	/** Offsets of the entries, at the same index as their starting date. */
+	private final long[] offsets;
+	/** Lengths of the entries, at the same index as their starting date. */
+	private final int[] lengths;
+
+	private SegmentFile(FileChannel channel, Index index) {
+		this.channel = channel;
+		this.index = index;
+		this.starts = index.starts();
+		this.offsets = index.offsets();
+		this.lengths = index.lengths();
+	}
+
+	/**
+	 * Open the given segment file, reading its index.
+	 *
+	 * @param path Path to a segment file.
+	 * @return Opened segment file, to be closed by the caller.
+	 * @throws IOException If an error is encountered when reading the file, or the file is not a segment file.
+	 */
+	public static SegmentFile open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE + TRAILER_SIZE) {
+				throw new IOException(path + " is not a segment file.");
+			}
+			ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+			int count = trailer.getInt();
+			long indexOffset = trailer.getLong();
+			if (trailer.getInt() != MAGIC || count < 0 || indexOffset + (long) count * INDEX_ENTRY_SIZE != size - TRAILER_SIZE) {
+				throw new IOException(path + " is not a segment file.");
+			}
+
+			ByteBuffer index = readFully(channel, indexOffset, count * INDEX_ENTRY_SIZE);
+			long[] starts = new long[count];
+			long[] offsets = new long[count];
+			int[] lengths = new int[count];
+			for (int i = 0; i < count; ++i) {
+				starts[i] = index.getLong();
+				offsets[i] = index.getLong();
+				lengths[i] = index.getInt();
+			}
+			return new SegmentFile(channel, new Index(starts, offsets, lengths));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open the given segment file with the index read when it was last opened, without reading the index again.
+	 * The file must not have changed since.
+	 *
+	 * @param path  Path to a segment file.
+	 * @param index Index of the segment file, from {@link #getIndex()}.
+	 * @return Opened segment file, to be closed by the caller.
+	 * @throws IOException If an error is encountered when opening the file.
+	 */
+	public static SegmentFile open(Path path, Index index) throws IOException {
+		return new SegmentFile(FileChannel.open(path, StandardOpenOption.READ), index);
+	}
+
+	/**
+	 * Write a new segment file with the given entries, replacing the file atomically if it already exists.
+	 *
+	 * @param path    Path to the segment file.
+	 * @param entries Compact JSON of every {@link tracker.PayPeriod PayPeriod}, by starting date.
+	 * @throws IOException If an error is encountered when writing the file.
+	 */
+	public static void write(Path path, SortedMap<LocalDate, byte[]> entries) throws IOException {
+		// a name of its own, so concurrent writers of the same segment never write to the same temporary file
+		Path tempPath = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+				writeFully(channel, header);
+
+				ByteBuffer index = ByteBuffer.allocate(entries.size() * INDEX_ENTRY_SIZE);
+				long offset = HEADER_SIZE;
+				for (Map.Entry<LocalDate, byte[]> entry : entries.entrySet()) {
+					byte[] contents = entry.getValue();
+					writeFully(channel, ByteBuffer.wrap(contents));
+					index.putLong(entry.getKey().toEpochDay()).putLong(offset).putInt(contents.length);
+					offset += contents.length;
+				}
+				writeFully(channel, index.flip());
+
+				ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).putInt(entries.size()).putLong(offset).putInt(MAGIC).flip();
+				writeFully(channel, trailer);
+				channel.force(true);
+			}
+			Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	/**
+	 * @param start Starting date of a {@link tracker.PayPeriod PayPeriod}.
+	 * @return True iff this segment holds the {@linkplain tracker.PayPeriod PayPeriod} starting on the given date.
+	 */
+	public boolean contains(LocalDate start) {
+		return Arrays.binarySearch(starts, start.toEpochDay()) >= 0;
+	}
+
+	/**
+	 * Read the compact JSON of the {@link tracker.PayPeriod PayPeriod} starting on the given date.
+	 *
+	 * @param start Starting date of the {@linkplain tracker.PayPeriod PayPeriod}.
+	 * @return Compact JSON of the {@linkplain tracker.PayPeriod PayPeriod}, or null if this segment does not hold it.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public byte[] read(LocalDate start) throws IOException {
+		int i = Arrays.binarySearch(starts, start.toEpochDay());
+		if (i < 0) {
+			return null;
+		}
+		try (Profiler.Timer timer = Profiler.time(Stage.FILE_READ)) {
+			return readFully(channel, offsets[i], lengths[i]).array();
+		}
+	}
+
+	/**
+	 * Read the compact JSON of every {@link tracker.PayPeriod PayPeriod} in this segment, in a single sequential read.
+	 *
+	 * @return Compact JSON of every {@linkplain tracker.PayPeriod PayPeriod}, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	public Map<LocalDate, byte[]> readAll() throws IOException {
+		Map<LocalDate, byte[]> entries = new LinkedHashMap<>();
+		if (starts.length == 0) {
+			return entries;
+		}
+		long length = offsets[starts.length - 1] + lengths[starts.length - 1] - HEADER_SIZE;
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Entries of " + length + " bytes are too large to read at once.");
+		}
+		ByteBuffer contents = readFully(channel, HEADER_SIZE, (int) length);
+		for (int i = 0; i < starts.length; ++i) {
+			byte[] entry = new byte[lengths[i]];
+			contents.get((int) (offsets[i] - HEADER_SIZE), entry);
+			entries.put(LocalDate.ofEpochDay(starts[i]), entry);
+		}
+		return entries;
+	}
+
+	/**
+	 * @return Index of this segment, to open it again with {@link #open(Path, Index)}.
+	 */
+	public Index getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return List of the starting dates of every {@link tracker.PayPeriod PayPeriod} in this segment, sorted.
+	 */
+	public List<LocalDate> getStarts() {
+		List<LocalDate> dates = new ArrayList<>(starts.length);
+		for (long start : starts) {
+			dates.add(LocalDate.ofEpochDay(start));
+		}
+		return dates;
+	}
+
+	/**
+	 * Close the channel to the segment file.
+	 *
+	 * @throws IOException If an error is encountered when closing the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Read exactly the given number of bytes from the given position of a channel.
+	 *
+	 * @param channel  Channel to read from.
+	 * @param position Position to start reading from.
+	 * @param length   Number of bytes to read.
+	 * @return Buffer of the bytes read, ready to be read from.
+	 * @throws IOException If an error is encountered when reading, or the channel ends before all bytes are read.
+	 */
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * Write every remaining byte of the given buffer to a channel.
+	 *
+	 * @param channel Channel to write to.
+	 * @param buffer  Buffer to write.
+	 * @throws IOException If an error is encountered when writing.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
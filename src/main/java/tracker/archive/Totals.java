@@ -0,0 +1,91 @@
+package tracker.archive;
+
+import tracker.Shift;
+
+/**
+ * Running totals of the number of {@link Shift Shifts} worked, hours worked, and amount of money earned.
+ */
+public class Totals {
+	/** Number of shifts worked. */
+	private long shifts;
+	/** Total number of hours worked. */
+	private double hours;
+	/** Total amount of money earned. */
+	private double pay;
+
+	/**
+	 * Add a {@link Shift} to these totals.
+	 *
+	 * @param shift {@linkplain Shift} to add.
+	 */
+	public void add(Shift shift) {
+		add(1, shift.calcTotalHours(), shift.calcPay());
+	}
+
+	/**
+	 * Add the given totals to these totals.
+	 *
+	 * @param other Totals to add.
+	 */
+	public void add(Totals other) {
+		add(other.shifts, other.hours, other.pay);
+	}
+
+	/**
+	 * Subtract the given totals from these totals.
+	 *
+	 * @param other Totals to subtract.
+	 */
+	public void subtract(Totals other) {
+		add(-other.shifts, -other.hours, -other.pay);
+	}
+
+	/**
+	 * Add the given values to these totals.
+	 *
+	 * @param shifts Number of shifts worked.
+	 * @param hours  Number of hours worked.
+	 * @param pay    Amount of money earned.
+	 */
+	public void add(long shifts, double hours, double pay) {
+		this.shifts += shifts;
+		this.hours += hours;
+		this.pay += pay;
+	}
+
+	/**
+	 * @return True iff no shifts are counted in these totals.
+	 */
+	public boolean isEmpty() {
+		return shifts == 0;
+	}
+
+	/**
+	 * @return Number of shifts worked.
+	 */
+	public long getShifts() {
+		return shifts;
+	}
+
+	/**
+	 * @return Total number of hours worked.
+	 */
+	public double getHours() {
+		return hours;
+	}
+
+	/**
+	 * @return Total amount of money earned.
+	 */
+	public double getPay() {
+		return pay;
+	}
+
+	/**
+	 * @return Human-readable String with these totals.
+	 */
+	@Override
+	public String toString() {
+		return "Shifts: " + shifts + ", Hours: " + String.format("%.2f", hours) + ", Earned: " + String.format("%.2f", pay);
+	}
+}
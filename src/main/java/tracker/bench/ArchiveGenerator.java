@@ -0,0 +1,160 @@
+package tracker.bench;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tracker.App;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.PayPeriodFiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of archives of valid {@link PayPeriod} JSON files, for benchmarks at realistic scale.
+ * <p>
+ * Every {@linkplain PayPeriod} is 14 days long and starts the day after the previous one ends. Each day has a morning
+ * and an afternoon slot, and every {@link Shift} takes a distinct slot, so no two {@linkplain Shift Shifts} overlap
+ * and every file passes the <code>verify</code> subcommand. The same seed and settings always generate the same files.
+ * <p>
+ * Usage: <code>java -cp shift-tracker.jar tracker.bench.ArchiveGenerator &lt;directory&gt; [years] [shifts-per-period]
+ * [seed] [locations] [rates]</code>, with comma separated locations and rates.
+ */
+public class ArchiveGenerator {
+	/** Locations to generate {@link Shift Shifts} at, unless given. */
+	public static final List<String> DEFAULT_LOCATIONS = List.of("CROSSROADS", "GRACIES", "BRICK CITY CAFE", "COLLEGE GRIND");
+	/** Pay rates to generate {@link Shift Shifts} with, unless given. */
+	public static final double[] DEFAULT_RATES = {14.20, 14.45, 14.70, 14.95, 15.20};
+	/** First day of the first generated {@link PayPeriod}, unless given. */
+	public static final LocalDate DEFAULT_START = LocalDate.of(2000, 1, 7);
+	/** Number of {@link Shift Shifts} that fit in a {@link PayPeriod}: a morning and an afternoon one each day. */
+	public static final int MAX_SHIFTS_PER_PERIOD = 2 * PayPeriod.DAYS;
+
+	/** Source of randomness. */
+	private final Random random;
+	/** Number of {@link Shift Shifts} in every {@link PayPeriod}. */
+	private final int shiftsPerPeriod;
+	/** Locations to generate {@link Shift Shifts} at. */
+	private final List<String> locations;
+	/** Pay rates to generate {@link Shift Shifts} with. */
+	private final double[] rates;
+
+	/**
+	 * Create a new {@link ArchiveGenerator}.
+	 *
+	 * @param seed            Seed of the generator.
+	 * @param shiftsPerPeriod Number of {@link Shift Shifts} in every {@link PayPeriod}.
+	 * @param locations       Locations to generate {@linkplain Shift Shifts} at.
+	 * @param rates           Pay rates to generate {@linkplain Shift Shifts} with.
+	 * @throws IllegalArgumentException If the number of {@linkplain Shift Shifts} does not fit in a {@linkplain PayPeriod},
+	 *                                  or there are no locations or no pay rates.
+	 */
+	public ArchiveGenerator(long seed, int shiftsPerPeriod, List<String> locations, double[] rates) {
+		if (shiftsPerPeriod < 0 || shiftsPerPeriod > MAX_SHIFTS_PER_PERIOD) {
+			throw new IllegalArgumentException("Shifts per period must be from 0 to " + MAX_SHIFTS_PER_PERIOD + ".");
+		}
+		if (locations.isEmpty() || rates.length == 0) {
+			throw new IllegalArgumentException("At least one location and one pay rate must be given.");
+		}
+		this.random = new Random(seed);
+		this.shiftsPerPeriod = shiftsPerPeriod;
+		this.locations = List.copyOf(locations);
+		this.rates = rates.clone();
+	}
+
+	/**
+	 * Create a new {@link ArchiveGenerator} with the {@linkplain #DEFAULT_LOCATIONS default locations}
+	 * and {@linkplain #DEFAULT_RATES default pay rates}.
+	 *
+	 * @param seed            Seed of the generator.
+	 * @param shiftsPerPeriod Number of {@link Shift Shifts} in every {@link PayPeriod}.
+	 */
+	public ArchiveGenerator(long seed, int shiftsPerPeriod) {
+		this(seed, shiftsPerPeriod, DEFAULT_LOCATIONS, DEFAULT_RATES);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: ArchiveGenerator <directory> [years] [shifts-per-period] [seed] [locations] [rates]");
+			return;
+		}
+		Path directory = Path.of(args[0]);
+		int years = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+		int shiftsPerPeriod = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		long seed = (args.length > 3) ? Long.parseLong(args[3]) : 42;
+		List<String> locations = (args.length > 4)
+			? Arrays.stream(args[4].split(",")).map(String::trim).filter(location -> !location.isEmpty()).toList()
+			: DEFAULT_LOCATIONS;
+		double[] rates = (args.length > 5)
+			? Arrays.stream(args[5].split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray()
+			: DEFAULT_RATES;
+
+		ObjectWriter objectWriter = App.newObjectWriter(App.newObjectMapper());
+		ArchiveGenerator generator = new ArchiveGenerator(seed, shiftsPerPeriod, locations, rates);
+		List<Path> files = generator.generate(directory, DEFAULT_START, years, objectWriter, false);
+		System.out.println("Generated " + files.size() + " PayPeriods of " + shiftsPerPeriod + " Shifts in " + directory + ".");
+	}
+
+	/**
+	 * Write the {@link PayPeriod PayPeriods} of the given number of years to JSON files in the given directory,
+	 * creating the directory if needed.
+	 *
+	 * @param directory    Directory to write the {@linkplain PayPeriod} JSON files to.
+	 * @param start        First day of the first {@linkplain PayPeriod}.
+	 * @param years        Number of years of {@linkplain PayPeriod PayPeriods}, which start before this many years after the first day.
+	 * @param objectWriter Object writer to write the {@linkplain PayPeriod PayPeriods} with.
+	 * @param compress     Compress the JSON files with gzip?
+	 * @return List of the files written, sorted.
+	 * @throws IOException If an error is encountered when writing a file.
+	 */
+	public List<Path> generate(Path directory, LocalDate start, int years, ObjectWriter objectWriter, boolean compress)
+		throws IOException {
+		Files.createDirectories(directory);
+		String extension = compress ? PayPeriodFiles.COMPRESSED_EXTENSION : PayPeriodFiles.EXTENSION;
+		LocalDate end = start.plusYears(years);
+		List<Path> files = new ArrayList<>();
+		for (LocalDate periodStart = start; periodStart.isBefore(end); periodStart = periodStart.plusDays(PayPeriod.DAYS)) {
+			Path file = directory.resolve(periodStart + extension);
+			try (OutputStream out = PayPeriodFiles.openOutput(file)) {
+				objectWriter.writeValue(out, generate(periodStart));
+			}
+			files.add(file);
+		}
+		return files;
+	}
+
+	/**
+	 * Generate a {@link PayPeriod} of random {@link Shift Shifts}, each in a distinct morning or afternoon slot.
+	 * Morning {@linkplain Shift Shifts} start from 6 AM and end by 2 PM, afternoon ones start from 2 PM and end by 11 PM.
+	 *
+	 * @param start First day of the pay period.
+	 * @return Generated {@linkplain PayPeriod}.
+	 */
+	public PayPeriod generate(LocalDate start) {
+		List<Integer> slots = new ArrayList<>(MAX_SHIFTS_PER_PERIOD);
+		for (int slot = 0; slot < MAX_SHIFTS_PER_PERIOD; ++slot) {
+			slots.add(slot);
+		}
+		Collections.shuffle(slots, random);
+
+		List<Shift> shifts = new ArrayList<>(shiftsPerPeriod);
+		for (int slot : slots.subList(0, shiftsPerPeriod)) {
+			LocalDate date = start.plusDays(slot / 2);
+			boolean morning = slot % 2 == 0;
+			LocalTime in = LocalTime.of(morning ? 6 : 14, 0).plusMinutes(15L * random.nextInt(16));
+			LocalTime out = in.plusMinutes(60 + 15L * random.nextInt(morning ? 14 : 18));
+			String location = locations.get(random.nextInt(locations.size()));
+			double payRate = rates[random.nextInt(rates.length)];
+			shifts.add(new Shift(location, date.toString(), in.toString(), out.toString(), payRate));
+		}
+		return new PayPeriod(start.toString(), null, shifts);
+	}
+}
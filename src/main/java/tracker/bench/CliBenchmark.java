@@ -0,0 +1,262 @@
+package tracker.bench;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tracker.App;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.tenant.TenantSettings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end benchmark of the command line application on generated archives of increasing size.
+ * <p>
+ * For every archive size, an archive is generated by the {@link ArchiveGenerator}, then the <code>read</code>,
+ * <code>add</code>, <code>edit</code> and <code>remove</code> subcommands are run on its latest {@link PayPeriod},
+ * and the <code>query</code> subcommand on the whole archive, each in a new JVM with its prompts answered by a script
+ * on standard input, as a user would run them. A run fails unless it prints what its subcommand prints on success.
+ * <p>
+ * Every run works on a copy of the generated archive restored just before it, so the runs of a subcommand changing
+ * the archive all start from the same state. The measurements and output of the runs, and the tenant settings copied
+ * into every restored archive, are kept in a separate directory.
+ * <p>
+ * Every run records its wall time, including the start of the JVM, the number of garbage collections
+ * and the time spent in them, and the peak resident set size of the JVM.
+ * <p>
+ * Usage: <code>java -cp shift-tracker.jar tracker.bench.CliBenchmark [runs] [years...]</code>
+ */
+public class CliBenchmark {
+	/** System property naming the file the {@link Probe} writes its measurements to. */
+	private static final String PROBE_PROPERTY = "tracker.bench.probe";
+	/** Number of {@link Shift Shifts} generated in every {@link PayPeriod}. */
+	private static final int SHIFTS_PER_PERIOD = 10;
+
+	/**
+	 * Entry point of the JVM of every run: records the garbage collections and peak resident set size of the JVM
+	 * when it exits, then runs the application with the given arguments.
+	 */
+	public static final class Probe {
+		public static void main(String[] args) {
+			Path probeFile = Path.of(System.getProperty(PROBE_PROPERTY));
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				long collections = 0;
+				long collectionMillis = 0;
+				for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+					collections += Math.max(0, collector.getCollectionCount());
+					collectionMillis += Math.max(0, collector.getCollectionTime());
+				}
+				try {
+					Files.writeString(probeFile, collections + " " + collectionMillis + " " + peakResidentKilobytes());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}));
+			App.main(args);
+		}
+
+		/**
+		 * @return Peak resident set size of this JVM in kilobytes, read from <code>/proc/self/status</code>,
+		 * or -1 if it is not available, as on systems other than Linux.
+		 */
+		private static long peakResidentKilobytes() {
+			try {
+				for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+					if (line.startsWith("VmHWM:")) {
+						return Long.parseLong(line.replaceAll("\\D", ""));
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				// not available on this system
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * Subcommand to run, with the script answering its prompts.
+	 *
+	 * @param name   Name of the scenario.
+	 * @param args   Arguments of the application.
+	 * @param stdin  Script written to standard input.
+	 * @param expect Text printed to standard output by a successful run.
+	 */
+	private record Scenario(String name, List<String> args, String stdin, String expect) {
+	}
+
+	/**
+	 * Measurements of a single run.
+	 *
+	 * @param wallNanos        Wall time of the run, in nanoseconds.
+	 * @param collections      Number of garbage collections.
+	 * @param collectionMillis Milliseconds spent in garbage collections.
+	 * @param peakKilobytes    Peak resident set size, in kilobytes, -1 if not available.
+	 * @param succeeded        Did the JVM exit normally and print the expected text?
+	 */
+	private record Measurement(long wallNanos, long collections, long collectionMillis, long peakKilobytes, boolean succeeded) {
+	}
+
+	/**
+	 * Directories a scenario is run in.
+	 *
+	 * @param source  Generated archive, never run on.
+	 * @param archive Copy of the generated archive every run works on.
+	 * @param scratch Directory of the tenant settings, and of the measurements and output of every run.
+	 */
+	private record Workspace(Path source, Path archive, Path scratch) {
+		/**
+		 * Replace the copy of the archive with a new copy of the generated archive and the tenant settings.
+		 *
+		 * @throws IOException If an error is encountered when deleting or copying a file.
+		 */
+		private void restore() throws IOException {
+			deleteTree(archive);
+			Files.createDirectory(archive);
+			try (Stream<Path> paths = Files.list(source)) {
+				for (Path path : paths.toList()) {
+					Files.copy(path, archive.resolve(path.getFileName()));
+				}
+			}
+			Files.copy(scratch.resolve(TenantSettings.FILE), archive.resolve(TenantSettings.FILE));
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+		int[] sizes = (args.length > 1)
+			? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+			: new int[]{1, 5, 20};
+
+		ObjectWriter objectWriter = App.newObjectWriter(App.newObjectMapper());
+		System.out.println(String.format("%6s %8s %-8s %10s %10s %10s %12s %8s",
+			"Years", "Files", "Command", "Wall ms", "GCs", "GC ms", "Peak RSS MB", "Failed"));
+		for (int years : sizes) {
+			Path directory = Files.createTempDirectory("cli-benchmark");
+			try {
+				Workspace workspace = new Workspace(directory.resolve("source"), directory.resolve("archive"),
+					Files.createDirectory(directory.resolve("scratch")));
+				List<Path> files = new ArchiveGenerator(42, SHIFTS_PER_PERIOD)
+					.generate(workspace.source(), ArchiveGenerator.DEFAULT_START, years, objectWriter, false);
+				Path latest = workspace.archive().resolve(files.get(files.size() - 1).getFileName());
+				LocalDate start = LocalDate.parse(latest.getFileName().toString().substring(0, 10));
+				// a single location skips the location prompt, and the year completes the dates entered
+				new TenantSettings(List.of(ArchiveGenerator.DEFAULT_LOCATIONS.get(0)), Shift.DEFAULT_PAY_RATE, start.getYear())
+					.store(workspace.scratch());
+
+				String day = start.plusDays(1).getMonthValue() + "/" + start.plusDays(1).getDayOfMonth();
+				List<Scenario> scenarios = List.of(
+					new Scenario("read", List.of("read", latest.toString()), "", "Shifts:"),
+					// the generator ends every Shift by 11 PM, so a Shift from 11 PM does not clash
+					new Scenario("add", List.of("add", "-d", latest.toString()), day + "\n23:00\n23:45\n", "PayPeriod updated"),
+					new Scenario("edit", List.of("edit", latest.toString()), "1\n5\n16.00\n0\n", "PayPeriod updated"),
+					new Scenario("remove", List.of("remove", latest.toString()), "1\n", "PayPeriod updated"),
+					new Scenario("query", List.of("query", workspace.archive().toString(), "-g", "MONTH"), "", "Total")
+				);
+				for (Scenario scenario : scenarios) {
+					report(years, files.size(), scenario, workspace, runs);
+				}
+			} finally {
+				deleteTree(directory);
+			}
+		}
+	}
+
+	/**
+	 * Delete the given directory and everything under it, if it exists.
+	 *
+	 * @param directory Directory to delete.
+	 * @throws IOException If an error is encountered when deleting a file.
+	 */
+	private static void deleteTree(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * Run a scenario the given number of times, each on a newly restored copy of the archive,
+	 * and print its mean wall time and garbage collections, and its highest peak resident set size.
+	 *
+	 * @param years     Number of years in the archive.
+	 * @param files     Number of {@link PayPeriod} files in the archive.
+	 * @param scenario  Scenario to run.
+	 * @param workspace Directories to run the scenario in.
+	 * @param runs      Number of runs.
+	 * @throws IOException          If an error is encountered when restoring the archive, starting a JVM or reading
+	 *                              its measurements.
+	 * @throws InterruptedException If interrupted while waiting for a JVM.
+	 */
+	private static void report(int years, int files, Scenario scenario, Workspace workspace, int runs)
+		throws IOException, InterruptedException {
+		List<Measurement> measurements = new ArrayList<>(runs);
+		for (int run = 0; run < runs; ++run) {
+			workspace.restore();
+			measurements.add(measure(scenario, workspace.scratch().resolve("probe"), workspace.scratch().resolve("stdout")));
+		}
+
+		double wallMillis = measurements.stream().mapToLong(Measurement::wallNanos).average().orElse(0) / 1e6;
+		double collections = measurements.stream().mapToLong(Measurement::collections).average().orElse(0);
+		double collectionMillis = measurements.stream().mapToLong(Measurement::collectionMillis).average().orElse(0);
+		long peakKilobytes = measurements.stream().mapToLong(Measurement::peakKilobytes).max().orElse(-1);
+		long failed = measurements.stream().filter(measurement -> !measurement.succeeded()).count();
+		System.out.println(String.format("%6d %8d %-8s %10.1f %10.1f %10.1f %12s %8d",
+			years, files, scenario.name(), wallMillis, collections, collectionMillis,
+			(peakKilobytes >= 0) ? String.format("%.1f", peakKilobytes / 1024.0) : "n/a", failed));
+	}
+
+	/**
+	 * Run a scenario once in a new JVM with the same class path as this one.
+	 *
+	 * @param scenario   Scenario to run.
+	 * @param probeFile  File for the {@link Probe} to write its measurements to.
+	 * @param outputFile File to write the standard output of the JVM to.
+	 * @return Measurements of the run.
+	 * @throws IOException          If an error is encountered when starting the JVM or reading its measurements.
+	 * @throws InterruptedException If interrupted while waiting for the JVM.
+	 */
+	private static Measurement measure(Scenario scenario, Path probeFile, Path outputFile)
+		throws IOException, InterruptedException {
+		Files.deleteIfExists(probeFile);
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-D" + PROBE_PROPERTY + "=" + probeFile);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Probe.class.getName());
+		command.addAll(scenario.args());
+
+		long begin = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+			.redirectOutput(outputFile.toFile())
+			.redirectError(ProcessBuilder.Redirect.DISCARD)
+			.start();
+		try (OutputStream in = process.getOutputStream()) {
+			in.write(scenario.stdin().getBytes(StandardCharsets.UTF_8));
+		}
+		int exitCode = process.waitFor();
+		long wallNanos = System.nanoTime() - begin;
+
+		boolean succeeded = exitCode == 0 && Files.readString(outputFile).contains(scenario.expect());
+		if (!Files.isRegularFile(probeFile)) {
+			return new Measurement(wallNanos, 0, 0, -1, false);
+		}
+		String[] fields = Files.readString(probeFile).trim().split(" ");
+		return new Measurement(wallNanos, Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]), succeeded);
+	}
+}
@@ -0,0 +1,101 @@
+package tracker.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tracker.App;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.PayPeriodFiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark comparing the disk footprint and read latency of plain and gzip compressed {@link PayPeriod} JSON files.
+ * <p>
+ * Usage: <code>java -cp shift-tracker.jar tracker.bench.CompressionBenchmark [periods] [shifts-per-period] [rounds]</code>
+ */
+public class CompressionBenchmark {
+	/** Number of {@link Shift Shifts} read, kept so the JIT cannot skip reading the files. */
+	private static long shiftsRead;
+
+	public static void main(String[] args) throws IOException {
+		int periods = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int shiftsPerPeriod = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+		ObjectMapper objectMapper = App.newObjectMapper();
+		ObjectWriter objectWriter = App.newObjectWriter(objectMapper);
+		Path directory = Files.createTempDirectory("compression-benchmark");
+		try {
+			System.out.println("Generating " + periods + " PayPeriods of " + shiftsPerPeriod + " Shifts...");
+			List<Path> plainFiles = new ArrayList<>();
+			List<Path> compressedFiles = new ArrayList<>();
+			ArchiveGenerator generator = new ArchiveGenerator(42, shiftsPerPeriod);
+			LocalDate start = ArchiveGenerator.DEFAULT_START;
+			for (int i = 0; i < periods; ++i, start = start.plusDays(PayPeriod.DAYS)) {
+				PayPeriod payPeriod = generator.generate(start);
+				Path plainFile = directory.resolve(start + PayPeriodFiles.EXTENSION);
+				Path compressedFile = directory.resolve(start + PayPeriodFiles.COMPRESSED_EXTENSION);
+				for (Path file : List.of(plainFile, compressedFile)) {
+					try (OutputStream out = PayPeriodFiles.openOutput(file)) {
+						objectWriter.writeValue(out, payPeriod);
+					}
+				}
+				plainFiles.add(plainFile);
+				compressedFiles.add(compressedFile);
+			}
+
+			System.out.println(String.format("%-12s %14s %14s %16s", "Format", "Total bytes", "Bytes/file", "Read us/file"));
+			report("plain", objectMapper, plainFiles, rounds);
+			report("gzip", objectMapper, compressedFiles, rounds);
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Measure and print the disk footprint and mean read latency of the given files.
+	 * The first round warms up the JVM and is not measured.
+	 *
+	 * @param format       Name of the file format.
+	 * @param objectMapper Object mapper to read the files with.
+	 * @param files        Files to read.
+	 * @param rounds       Number of measured rounds of reading every file.
+	 * @throws IOException If an error is encountered when reading a file.
+	 */
+	private static void report(String format, ObjectMapper objectMapper, List<Path> files, int rounds) throws IOException {
+		long bytes = 0;
+		for (Path file : files) {
+			bytes += Files.size(file);
+		}
+
+		long checksum = 0;
+		long elapsed = 0;
+		for (int round = 0; round <= rounds; ++round) {
+			long begin = System.nanoTime();
+			for (Path file : files) {
+				checksum += PayPeriodFiles.read(objectMapper, file).getShifts().size();
+			}
+			if (round > 0) {
+				elapsed += System.nanoTime() - begin;
+			}
+		}
+
+		double microsPerFile = elapsed / 1000.0 / rounds / files.size();
+		System.out.println(String.format("%-12s %14d %14d %16.1f", format, bytes, bytes / files.size(), microsPerFile));
+		shiftsRead += checksum;
+	}
+
+}
@@ -0,0 +1,191 @@
+package tracker.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import tracker.App;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.PayPeriodFiles;
+import tracker.server.PayPeriodServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Load test of the {@link PayPeriodServer} on localhost, measuring the latency and throughput of requests
+ * at increasing numbers of concurrent clients.
+ * <p>
+ * Every client sends its requests one after another, each to an endpoint drawn from a fixed mix: mostly single
+ * {@link PayPeriod PayPeriods}, then filtered {@link Shift Shifts}, aggregates, and summaries of a date range.
+ * The first level of concurrency is run twice, and its first run warms up the JVM and the cache and is not reported.
+ * <p>
+ * Usage: <code>java -cp shift-tracker.jar tracker.bench.ServerBenchmark [periods] [requests-per-client] [clients...]</code>
+ */
+public class ServerBenchmark {
+	/** Shifts generated in every {@link PayPeriod}. */
+	private static final int SHIFTS_PER_PERIOD = 10;
+
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		int periods = (args.length > 0) ? Integer.parseInt(args[0]) : 500;
+		int requests = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+		int[] levels = (args.length > 2)
+			? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+			: new int[]{1, 16, 64, 256, 1024};
+
+		ObjectMapper objectMapper = App.newObjectMapper();
+		ObjectWriter objectWriter = App.newObjectWriter(objectMapper);
+		Path directory = Files.createTempDirectory("server-benchmark");
+		try {
+			System.out.println("Generating " + periods + " PayPeriods of " + SHIFTS_PER_PERIOD + " Shifts...");
+			ArchiveGenerator generator = new ArchiveGenerator(42, SHIFTS_PER_PERIOD);
+			LocalDate start = ArchiveGenerator.DEFAULT_START;
+			for (int i = 0; i < periods; ++i, start = start.plusDays(PayPeriod.DAYS)) {
+				try (OutputStream out = PayPeriodFiles.openOutput(directory.resolve(start + PayPeriodFiles.EXTENSION))) {
+					objectWriter.writeValue(out, generator.generate(start));
+				}
+			}
+
+			Archive archive = new Archive(objectMapper, directory);
+			try (PayPeriodServer server = new PayPeriodServer(objectMapper, archive, new InetSocketAddress("127.0.0.1", 0))) {
+				server.start();
+				String base = "http://127.0.0.1:" + server.getAddress().getPort() + PayPeriodServer.CONTEXT;
+				System.out.println("Serving on " + (server.isVirtual() ? "virtual" : "platform") + " threads at " + base);
+
+				HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(PayPeriodServer.newPerRequestExecutor())
+					.build();
+				run(client, base, periods, levels[0], requests);
+
+				System.out.println(String.format("%8s %10s %12s %10s %10s %10s %10s %8s",
+					"Clients", "Requests", "Requests/s", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Errors"));
+				for (int clients : levels) {
+					run(client, base, periods, clients, requests).print(clients);
+				}
+				System.out.println("Cache hits: " + server.getCache().getHits() + ", misses: " + server.getCache().getMisses());
+			}
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Latencies of every request of a run.
+	 *
+	 * @param latencies Sorted latency of every request, in nanoseconds.
+	 * @param errors    Number of requests that failed or had a status other than 200.
+	 * @param elapsed   Nanoseconds from the start of the first request to the end of the last.
+	 */
+	private record Run(long[] latencies, int errors, long elapsed) {
+		/**
+		 * Print the throughput and latency percentiles of this run.
+		 *
+		 * @param clients Number of concurrent clients of the run.
+		 */
+		private void print(int clients) {
+			System.out.println(String.format("%8d %10d %12.0f %10.2f %10.2f %10.2f %10.2f %8d",
+				clients, latencies.length, latencies.length * 1e9 / elapsed,
+				percentile(0.50), percentile(0.90), percentile(0.99), latencies[latencies.length - 1] / 1e6, errors));
+		}
+
+		/**
+		 * @param fraction Fraction of requests, from 0 to 1.
+		 * @return Latency no greater than that of the given fraction of requests, in milliseconds.
+		 */
+		private double percentile(double fraction) {
+			int index = (int) Math.ceil(fraction * latencies.length) - 1;
+			return latencies[Math.max(0, index)] / 1e6;
+		}
+	}
+
+	/**
+	 * Send requests from the given number of concurrent clients, each sending requests one after another.
+	 *
+	 * @param client   HTTP client to send requests with.
+	 * @param base     URL every endpoint is under.
+	 * @param periods  Number of {@link PayPeriod PayPeriods} in the archive.
+	 * @param clients  Number of concurrent clients.
+	 * @param requests Number of requests sent by every client.
+	 * @return Latencies of every request.
+	 * @throws InterruptedException If interrupted while waiting for the clients.
+	 * @throws ExecutionException   If a client fails.
+	 */
+	private static Run run(HttpClient client, String base, int periods, int clients, int requests)
+		throws InterruptedException, ExecutionException {
+		ExecutorService pool = PayPeriodServer.newPerRequestExecutor();
+		long begin = System.nanoTime();
+		List<Future<long[]>> futures = new ArrayList<>(clients);
+		int[] errors = new int[clients];
+		for (int c = 0; c < clients; ++c) {
+			int id = c;
+			futures.add(pool.submit(() -> {
+				Random random = new Random(id);
+				long[] latencies = new long[requests];
+				for (int r = 0; r < requests; ++r) {
+					HttpRequest request = HttpRequest.newBuilder(URI.create(base + pick(random, periods))).GET().build();
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+						if (response.statusCode() != 200) {
+							++errors[id];
+						}
+					} catch (IOException e) {
+						++errors[id];
+					}
+					latencies[r] = System.nanoTime() - sent;
+				}
+				return latencies;
+			}));
+		}
+
+		long[] latencies = new long[clients * requests];
+		for (int c = 0; c < clients; ++c) {
+			System.arraycopy(futures.get(c).get(), 0, latencies, c * requests, requests);
+		}
+		long elapsed = System.nanoTime() - begin;
+		pool.shutdown();
+		Arrays.sort(latencies);
+		return new Run(latencies, Arrays.stream(errors).sum(), elapsed);
+	}
+
+	/**
+	 * @param random  Source of randomness.
+	 * @param periods Number of {@link PayPeriod PayPeriods} in the archive.
+	 * @return Path and query of a request, below {@link PayPeriodServer#CONTEXT}.
+	 */
+	private static String pick(Random random, int periods) {
+		LocalDate start = ArchiveGenerator.DEFAULT_START.plusDays(14L * random.nextInt(periods));
+		int endpoint = random.nextInt(10);
+		if (endpoint < 6) {
+			return "/periods/" + start;
+		} else if (endpoint < 8) {
+			return "/shifts?from=" + start + "&to=" + start.plusDays(55) + "&location=GRACIES";
+		} else if (endpoint < 9) {
+			return "/aggregate?groupBy=MONTH&from=" + start + "&to=" + start.plusDays(364);
+		}
+		return "/periods?from=" + start + "&to=" + start.plusDays(111);
+	}
+
+}
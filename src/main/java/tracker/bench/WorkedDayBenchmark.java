@@ -0,0 +1,138 @@
+package tracker.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.App;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.PayPeriodFiles;
+import tracker.calendar.DayBitmap;
+import tracker.calendar.WorkedDayIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark comparing calendar, streak and gap queries answered by the {@link WorkedDayIndex}
+ * with the same queries answered by parsing every {@link PayPeriod} and walking the date of every {@link Shift}.
+ * <p>
+ * Usage: <code>java -cp shift-tracker.jar tracker.bench.WorkedDayBenchmark [years] [rounds]</code>
+ */
+public class WorkedDayBenchmark {
+	/** Number of {@link Shift Shifts} generated in every {@link PayPeriod}. */
+	private static final int SHIFTS_PER_PERIOD = 10;
+	/** Location every query is restricted to. */
+	private static final String LOCATION = ArchiveGenerator.DEFAULT_LOCATIONS.get(0);
+	/** Number of times the index is queried every round, as a single query is too fast to time on its own. */
+	private static final int QUERIES_PER_ROUND = 1000;
+
+	/** Sum of the query results, kept so the JIT cannot skip the queries. */
+	private static long checksum;
+
+	public static void main(String[] args) throws IOException {
+		int years = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+		ObjectMapper objectMapper = App.newObjectMapper();
+		Path directory = Files.createTempDirectory("worked-day-benchmark");
+		try {
+			List<Path> files = new ArchiveGenerator(42, SHIFTS_PER_PERIOD)
+				.generate(directory, ArchiveGenerator.DEFAULT_START, years, App.newObjectWriter(objectMapper), false);
+			LocalDate from = ArchiveGenerator.DEFAULT_START;
+			LocalDate to = from.plusYears(years);
+			System.out.println("Generated " + files.size() + " PayPeriods of " + SHIFTS_PER_PERIOD + " Shifts.");
+
+			long begin = System.nanoTime();
+			WorkedDayIndex index = WorkedDayIndex.open(objectMapper, directory);
+			System.out.println(String.format("Built index of %d files in %.1f ms.", index.getSources(), (System.nanoTime() - begin) / 1e6));
+			begin = System.nanoTime();
+			index = WorkedDayIndex.open(objectMapper, directory);
+			System.out.println(String.format("Opened index in %.1f ms.", (System.nanoTime() - begin) / 1e6));
+
+			System.out.println(String.format("%-10s %14s", "Method", "Query us"));
+			double scanMicros = 0;
+			double indexMicros = 0;
+			for (int round = 0; round <= rounds; ++round) {
+				begin = System.nanoTime();
+				checksum += scan(objectMapper, files, from, to);
+				long scanned = System.nanoTime() - begin;
+
+				begin = System.nanoTime();
+				for (int query = 0; query < QUERIES_PER_ROUND; ++query) {
+					checksum += query(index.getDays(LOCATION), from, to);
+				}
+				long queried = (System.nanoTime() - begin) / QUERIES_PER_ROUND;
+
+				// the first round warms up the JVM and is not measured
+				if (round > 0) {
+					scanMicros += scanned / 1000.0 / rounds;
+					indexMicros += queried / 1000.0 / rounds;
+				}
+			}
+			System.out.println(String.format("%-10s %14.1f", "scan", scanMicros));
+			System.out.println(String.format("%-10s %14.1f", "index", indexMicros));
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Count the days worked at the location, and find the longest streak and gap, by parsing every file.
+	 *
+	 * @param objectMapper Object mapper to read the files with.
+	 * @param files        {@link PayPeriod} JSON files.
+	 * @param from         First day to look at.
+	 * @param to           Last day to look at.
+	 * @return Sum of the number of days worked and the lengths of the longest streak and gap.
+	 * @throws IOException If an error is encountered when reading a file.
+	 */
+	private static long scan(ObjectMapper objectMapper, List<Path> files, LocalDate from, LocalDate to) throws IOException {
+		TreeSet<LocalDate> days = new TreeSet<>();
+		for (Path file : files) {
+			for (Shift shift : PayPeriodFiles.read(objectMapper, file).getShifts()) {
+				LocalDate date = LocalDate.parse(shift.getDate());
+				if (shift.getLocation().equals(LOCATION) && !date.isBefore(from) && !date.isAfter(to)) {
+					days.add(date);
+				}
+			}
+		}
+
+		long longestStreak = 0;
+		long longestGap = 0;
+		long streak = 0;
+		long gap = 0;
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			if (days.contains(day)) {
+				longestStreak = Math.max(longestStreak, ++streak);
+				gap = 0;
+			} else {
+				longestGap = Math.max(longestGap, ++gap);
+				streak = 0;
+			}
+		}
+		return days.size() + longestStreak + longestGap;
+	}
+
+	/**
+	 * Count the days worked, and find the longest streak and gap, from a bitmap of the days worked.
+	 *
+	 * @param days Days worked.
+	 * @param from First day to look at.
+	 * @param to   Last day to look at.
+	 * @return Sum of the number of days worked and the lengths of the longest streak and gap.
+	 */
+	private static long query(DayBitmap days, LocalDate from, LocalDate to) {
+		DayBitmap.Run streak = days.longestRun(from, to);
+		DayBitmap.Run gap = days.longestGap(from, to);
+		return days.count(from, to) + ((streak != null) ? streak.length() : 0) + ((gap != null) ? gap.length() : 0);
+	}
+}
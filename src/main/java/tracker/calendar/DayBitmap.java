@@ -0,0 +1,297 @@
+package tracker.calendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Bitmap of days, with one bit per day keyed by its epoch day, set if the day is in the bitmap.
+ * <p>
+ * Bit 0 is {@link #ORIGIN}, so a bitmap of every day from then to this century takes a few kilobytes,
+ * and combining bitmaps or finding the next day in or out of a bitmap takes a few operations per 64 days.
+ * Days before {@linkplain #ORIGIN} cannot be in a bitmap.
+ */
+public class DayBitmap {
+	/** First day that can be in a bitmap. */
+	public static final LocalDate ORIGIN = LocalDate.of(1900, 1, 1);
+	/** Epoch day of {@link #ORIGIN}. */
+	private static final long ORIGIN_EPOCH_DAY = ORIGIN.toEpochDay();
+
+	/**
+	 * Run of consecutive days.
+	 *
+	 * @param start First day of the run.
+	 * @param end   Last day of the run.
+	 */
+	public record Run(LocalDate start, LocalDate end) {
+		/**
+		 * @return Number of days in the run.
+		 */
+		public long length() {
+			return end.toEpochDay() - start.toEpochDay() + 1;
+		}
+	}
+
+	/** Bits of the days in the bitmap, by days since {@link #ORIGIN}. */
+	private final BitSet bits;
+
+	/**
+	 * Create a new, empty {@link DayBitmap}.
+	 */
+	public DayBitmap() {
+		this(new BitSet());
+	}
+
+	/**
+	 * @param bits Bits of the days in the bitmap, by days since {@link #ORIGIN}, owned by the bitmap.
+	 */
+	private DayBitmap(BitSet bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Add the given day to the bitmap.
+	 *
+	 * @param epochDay Epoch day of the day to add.
+	 * @throws IllegalArgumentException If the day is before {@link #ORIGIN}.
+	 */
+	public void add(long epochDay) {
+		bits.set(indexOf(epochDay));
+	}
+
+	/**
+	 * @param day Day to look up.
+	 * @return Is the day in the bitmap?
+	 */
+	public boolean contains(LocalDate day) {
+		long index = day.toEpochDay() - ORIGIN_EPOCH_DAY;
+		return index >= 0 && index <= Integer.MAX_VALUE && bits.get((int) index);
+	}
+
+	/**
+	 * @return Is no day in the bitmap?
+	 */
+	public boolean isEmpty() {
+		return bits.isEmpty();
+	}
+
+	/**
+	 * @return First day in the bitmap, or null if it is empty.
+	 */
+	public LocalDate first() {
+		return bits.isEmpty() ? null : dayOf(bits.nextSetBit(0));
+	}
+
+	/**
+	 * @return Last day in the bitmap, or null if it is empty.
+	 */
+	public LocalDate last() {
+		return bits.isEmpty() ? null : dayOf(bits.length() - 1);
+	}
+
+	/**
+	 * @param from First day to count.
+	 * @param to   Last day to count.
+	 * @return Number of days in the bitmap from the first to the last day.
+	 */
+	public int count(LocalDate from, LocalDate to) {
+		return slice(from, to).cardinality();
+	}
+
+	/**
+	 * @param other Other bitmap.
+	 * @return New bitmap of the days in both bitmaps.
+	 */
+	public DayBitmap and(DayBitmap other) {
+		BitSet result = (BitSet) bits.clone();
+		result.and(other.bits);
+		return new DayBitmap(result);
+	}
+
+	/**
+	 * @param other Other bitmap.
+	 * @return New bitmap of the days in either bitmap.
+	 */
+	public DayBitmap or(DayBitmap other) {
+		BitSet result = (BitSet) bits.clone();
+		result.or(other.bits);
+		return new DayBitmap(result);
+	}
+
+	/**
+	 * @param other Other bitmap.
+	 * @return New bitmap of the days in this bitmap but not in the other.
+	 */
+	public DayBitmap andNot(DayBitmap other) {
+		BitSet result = (BitSet) bits.clone();
+		result.andNot(other.bits);
+		return new DayBitmap(result);
+	}
+
+	/**
+	 * @param from First day of the range.
+	 * @param to   Last day of the range.
+	 * @return New bitmap of the days from the first to the last day that are not in this bitmap.
+	 */
+	public DayBitmap complement(LocalDate from, LocalDate to) {
+		BitSet result = new BitSet();
+		int fromIndex = indexOf(from.toEpochDay());
+		int toIndex = indexOf(to.toEpochDay()) + 1;
+		if (fromIndex < toIndex) {
+			result.set(fromIndex, toIndex);
+			result.andNot(bits);
+		}
+		return new DayBitmap(result);
+	}
+
+	/**
+	 * @param from First day to list.
+	 * @param to   Last day to list.
+	 * @return List of the days in the bitmap from the first to the last day, sorted.
+	 */
+	public List<LocalDate> days(LocalDate from, LocalDate to) {
+		int fromIndex = indexOf(from.toEpochDay());
+		int toIndex = indexOf(to.toEpochDay()) + 1;
+		List<LocalDate> days = new ArrayList<>();
+		for (int index = bits.nextSetBit(fromIndex); index >= 0 && index < toIndex; index = bits.nextSetBit(index + 1)) {
+			days.add(dayOf(index));
+		}
+		return days;
+	}
+
+	/**
+	 * Find the runs of consecutive days in the bitmap, such as streaks of days worked.
+	 * Runs are cut at the first and last day.
+	 *
+	 * @param from First day to look at.
+	 * @param to   Last day to look at.
+	 * @return List of the runs from the first to the last day, sorted.
+	 */
+	public List<Run> runs(LocalDate from, LocalDate to) {
+		return runs(slice(from, to), from);
+	}
+
+	/**
+	 * Find the runs of consecutive days not in the bitmap, such as gaps between days worked.
+	 * Runs are cut at the first and last day.
+	 *
+	 * @param from First day to look at.
+	 * @param to   Last day to look at.
+	 * @return List of the runs from the first to the last day, sorted.
+	 */
+	public List<Run> gaps(LocalDate from, LocalDate to) {
+		int length = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+		if (length <= 0) {
+			return List.of();
+		}
+		BitSet gaps = slice(from, to);
+		gaps.flip(0, length);
+		return runs(gaps, from);
+	}
+
+	/**
+	 * @param from First day to look at.
+	 * @param to   Last day to look at.
+	 * @return Longest run of consecutive days in the bitmap from the first to the last day, the first if several are
+	 * as long, or null if there is none.
+	 */
+	public Run longestRun(LocalDate from, LocalDate to) {
+		return longest(slice(from, to), from);
+	}
+
+	/**
+	 * @param from First day to look at.
+	 * @param to   Last day to look at.
+	 * @return Longest run of consecutive days not in the bitmap from the first to the last day, the first if several
+	 * are as long, or null if there is none.
+	 */
+	public Run longestGap(LocalDate from, LocalDate to) {
+		int length = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+		if (length <= 0) {
+			return null;
+		}
+		BitSet gaps = slice(from, to);
+		gaps.flip(0, length);
+		return longest(gaps, from);
+	}
+
+	/**
+	 * @param day Last day of the run.
+	 * @return Run of consecutive days in the bitmap ending on the given day, such as the current streak of days worked,
+	 * or null if the day is not in the bitmap.
+	 */
+	public Run runEndingOn(LocalDate day) {
+		if (!contains(day)) {
+			return null;
+		}
+		int index = indexOf(day.toEpochDay());
+		return new Run(dayOf(bits.previousClearBit(index) + 1), day);
+	}
+
+	/**
+	 * @param from First day of the slice.
+	 * @param to   Last day of the slice.
+	 * @return New BitSet of the bits from the first to the last day, bit 0 being the first day.
+	 */
+	private BitSet slice(LocalDate from, LocalDate to) {
+		int fromIndex = indexOf(from.toEpochDay());
+		int toIndex = indexOf(to.toEpochDay()) + 1;
+		return (fromIndex < toIndex) ? bits.get(fromIndex, toIndex) : new BitSet();
+	}
+
+	/**
+	 * @param slice BitSet of days, bit 0 being the given first day.
+	 * @param from  First day of the slice.
+	 * @return List of the runs of set bits in the slice, sorted.
+	 */
+	private static List<Run> runs(BitSet slice, LocalDate from) {
+		List<Run> runs = new ArrayList<>();
+		for (int start = slice.nextSetBit(0); start >= 0; start = slice.nextSetBit(start)) {
+			int end = slice.nextClearBit(start);
+			runs.add(new Run(from.plusDays(start), from.plusDays(end - 1)));
+			start = end;
+		}
+		return runs;
+	}
+
+	/**
+	 * @param slice BitSet of days, bit 0 being the given first day.
+	 * @param from  First day of the slice.
+	 * @return Longest run of set bits in the slice, the first if several are as long, or null if there is none.
+	 */
+	private static Run longest(BitSet slice, LocalDate from) {
+		int longestStart = -1;
+		int longestEnd = -1;
+		for (int start = slice.nextSetBit(0); start >= 0; start = slice.nextSetBit(start)) {
+			int end = slice.nextClearBit(start);
+			if (end - start > longestEnd - longestStart) {
+				longestStart = start;
+				longestEnd = end;
+			}
+			start = end;
+		}
+		return (longestStart >= 0) ? new Run(from.plusDays(longestStart), from.plusDays(longestEnd - 1)) : null;
+	}
+
+	/**
+	 * @param epochDay Epoch day of a day.
+	 * @return Index of the bit of the day.
+	 * @throws IllegalArgumentException If the day is before {@link #ORIGIN} or too far after it.
+	 */
+	private static int indexOf(long epochDay) {
+		long index = epochDay - ORIGIN_EPOCH_DAY;
+		if (index < 0 || index >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Day " + LocalDate.ofEpochDay(epochDay) + " is out of range of the bitmap.");
+		}
+		return (int) index;
+	}
+
+	/**
+	 * @param index Index of the bit of a day.
+	 * @return Day of the bit.
+	 */
+	private static LocalDate dayOf(int index) {
+		return LocalDate.ofEpochDay(ORIGIN_EPOCH_DAY + index);
+	}
+}
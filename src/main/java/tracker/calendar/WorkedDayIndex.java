@@ -0,0 +1,402 @@
+package tracker.calendar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.FileStamp;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.SegmentFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Index of the days worked in a directory of {@link PayPeriod PayPeriods}, as a {@link DayBitmap} of every day with a
+ * {@link Shift} and one per location, so calendar, streak and gap queries never parse a {@linkplain PayPeriod}.
+ * <p>
+ * The index is stored in a {@value #FILE} file in the directory, holding the days worked at every location in every
+ * JSON file and segment, with the {@link FileStamp} of the file when they were read. Opening the index stats every
+ * file, and reads again only those whose stamp changed, in parallel, so files written by any means are picked up.
+ * Writers also {@linkplain #update(ObjectMapper, Path) update} the index with the file they wrote, if there is one.
+ * <p>
+ * As in the {@link Archive}, a JSON file takes precedence over a segment entry with the same starting date.
+ * The index is derived from the files: an index that cannot be read is rebuilt from them.
+ * Days before {@link DayBitmap#ORIGIN} are not indexed.
+ */
+public class WorkedDayIndex {
+	/** Name of the file holding the index in the directory. */
+	public static final String FILE = ".worked-days";
+	/** Magic number at the start of an index file, <code>WDIX</code> in ASCII. */
+	private static final int MAGIC = 0x57444958;
+	/** Version of the index file format. */
+	private static final int VERSION = 1;
+	/** Epoch day of the first day that can be indexed. */
+	private static final long ORIGIN_EPOCH_DAY = DayBitmap.ORIGIN.toEpochDay();
+
+	/**
+	 * Days worked in a JSON file or segment, with the stamp of the file when they were read.
+	 *
+	 * @param stamp   Stamp of the file when it was read.
+	 * @param periods Days worked in every {@link PayPeriod} of the file, as epoch days, by location, by starting date.
+	 */
+	private record Source(FileStamp stamp, SortedMap<LocalDate, SortedMap<String, int[]>> periods) {
+	}
+
+	/**
+	 * File read again by a refresh.
+	 *
+	 * @param name   Name of the file.
+	 * @param source Days worked in the file, or null if it was deleted since the directory was listed.
+	 */
+	private record Change(String name, Source source) {
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Archive the index is of. */
+	private final Archive archive;
+	/** Days worked in every JSON file and segment, by file name. */
+	private final SortedMap<String, Source> sources;
+	/** Every day worked. */
+	private DayBitmap days;
+	/** Days worked at every location, by location. */
+	private SortedMap<String, DayBitmap> locations;
+
+	/**
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param directory    Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @param sources      Days worked in every JSON file and segment, by file name.
+	 */
+	private WorkedDayIndex(ObjectMapper objectMapper, Path directory, SortedMap<String, Source> sources) {
+		this.objectMapper = objectMapper;
+		this.archive = new Archive(objectMapper, directory);
+		this.sources = sources;
+		build();
+	}
+
+	/**
+	 * Open the index of the given directory, reading again every file that changed since it was indexed,
+	 * and storing the index if any did.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param directory    Directory of {@linkplain PayPeriod} JSON files and segments.
+	 * @return Index of the directory, up to date.
+	 * @throws IOException If an error is encountered when reading the directory or writing the index.
+	 */
+	public static WorkedDayIndex open(ObjectMapper objectMapper, Path directory) throws IOException {
+		WorkedDayIndex index = new WorkedDayIndex(objectMapper, directory, load(directory.resolve(FILE)));
+		if (index.refresh() > 0) {
+			index.store();
+		}
+		return index;
+	}
+
+	/**
+	 * Update the index of the directory of the given file with the days worked in it, if the directory has an index.
+	 * Only the given file is read, so writers keep the index in step at the cost of reading back the file they wrote.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param file         {@linkplain PayPeriod} JSON file or segment that was written.
+	 * @throws IOException If an error is encountered when reading the file or reading or writing the index.
+	 */
+	public static void update(ObjectMapper objectMapper, Path file) throws IOException {
+		Path directory = file.toAbsolutePath().normalize().getParent();
+		Path indexPath = directory.resolve(FILE);
+		if (!Files.isRegularFile(indexPath)) {
+			return;
+		}
+		SortedMap<String, Source> sources = load(indexPath);
+		String name = file.getFileName().toString();
+		Source source = read(objectMapper, file);
+		if (source != null) {
+			sources.put(name, source);
+		} else {
+			sources.remove(name);
+		}
+		store(indexPath, sources);
+	}
+
+	/**
+	 * Read again every JSON file and segment that changed since it was indexed, in parallel,
+	 * and drop those that were deleted.
+	 *
+	 * @return Number of files read again or dropped.
+	 * @throws IOException If an error is encountered when reading the directory or a file.
+	 */
+	public int refresh() throws IOException {
+		List<Path> files = new ArrayList<>(PayPeriodFiles.list(archive.getDirectory()));
+		files.addAll(archive.segments());
+
+		List<Change> changed;
+		try {
+			changed = files.parallelStream()
+				.map(file -> {
+					try {
+						String name = file.getFileName().toString();
+						Source source = sources.get(name);
+						if (source != null && source.stamp().equals(stampOf(file))) {
+							return null;
+						}
+						return new Change(name, read(objectMapper, file));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.filter(Objects::nonNull)
+				.toList();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		SortedSet<String> names = new TreeSet<>();
+		for (Path file : files) {
+			names.add(file.getFileName().toString());
+		}
+		int dropped = sources.size();
+		sources.keySet().retainAll(names);
+		dropped -= sources.size();
+		for (Change change : changed) {
+			if (change.source() != null) {
+				sources.put(change.name(), change.source());
+			} else {
+				sources.remove(change.name());
+			}
+		}
+		if (!changed.isEmpty() || dropped > 0) {
+			build();
+		}
+		return changed.size() + dropped;
+	}
+
+	/**
+	 * Store the index in the directory, replacing the index file atomically.
+	 *
+	 * @throws IOException If an error is encountered when writing the index.
+	 */
+	public void store() throws IOException {
+		store(archive.getDirectory().resolve(FILE), sources);
+	}
+
+	/**
+	 * @return Every day worked.
+	 */
+	public DayBitmap getDays() {
+		return days;
+	}
+
+	/**
+	 * @param location Location of the {@link Shift Shifts}, ignoring case.
+	 * @return Days worked at the location, empty if none were.
+	 */
+	public DayBitmap getDays(String location) {
+		for (Map.Entry<String, DayBitmap> entry : locations.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(location)) {
+				return entry.getValue();
+			}
+		}
+		return new DayBitmap();
+	}
+
+	/**
+	 * @return Days worked at every location, by location, sorted.
+	 */
+	public SortedMap<String, DayBitmap> getLocations() {
+		return Collections.unmodifiableSortedMap(locations);
+	}
+
+	/**
+	 * @return Number of JSON files and segments indexed.
+	 */
+	public int getSources() {
+		return sources.size();
+	}
+
+	/**
+	 * Build the bitmaps of every day worked, and of the days worked at every location, from the indexed files.
+	 */
+	private void build() {
+		SortedMap<LocalDate, SortedMap<String, int[]>> periods = new TreeMap<>();
+		// JSON files take precedence over segment entries with the same starting date
+		sources.forEach((name, source) -> {
+			if (name.endsWith(SegmentFile.EXTENSION)) {
+				periods.putAll(source.periods());
+			}
+		});
+		sources.forEach((name, source) -> {
+			if (!name.endsWith(SegmentFile.EXTENSION)) {
+				periods.putAll(source.periods());
+			}
+		});
+
+		DayBitmap days = new DayBitmap();
+		SortedMap<String, DayBitmap> locations = new TreeMap<>();
+		for (SortedMap<String, int[]> period : periods.values()) {
+			period.forEach((location, epochDays) -> {
+				DayBitmap locationDays = locations.computeIfAbsent(location, key -> new DayBitmap());
+				for (int epochDay : epochDays) {
+					days.add(epochDay);
+					locationDays.add(epochDay);
+				}
+			});
+		}
+		this.days = days;
+		this.locations = locations;
+	}
+
+	/**
+	 * Read the days worked in the given JSON file or segment, with the stamp of the file before it was read,
+	 * so a file changed while it is read is read again by the next refresh.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param file         {@linkplain PayPeriod} JSON file or segment.
+	 * @return Days worked in the file, or null if it does not exist.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private static Source read(ObjectMapper objectMapper, Path file) throws IOException {
+		try {
+			FileStamp stamp = FileStamp.of(file);
+			SortedMap<LocalDate, SortedMap<String, int[]>> periods = new TreeMap<>();
+			if (file.getFileName().toString().endsWith(SegmentFile.EXTENSION)) {
+				new Archive(objectMapper, file.getParent()).readSegment(file).forEach((start, payPeriod) -> periods.put(start, daysOf(payPeriod)));
+			} else {
+				PayPeriod payPeriod = PayPeriodFiles.read(objectMapper, file);
+				periods.put(LocalDate.parse(payPeriod.getStart()), daysOf(payPeriod));
+			}
+			return new Source(stamp, periods);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param payPeriod {@link PayPeriod} to index.
+	 * @return Days worked in the {@linkplain PayPeriod} from {@link DayBitmap#ORIGIN}, as sorted epoch days, by location.
+	 */
+	private static SortedMap<String, int[]> daysOf(PayPeriod payPeriod) {
+		SortedMap<String, SortedSet<Integer>> days = new TreeMap<>();
+		for (Shift shift : payPeriod.getShifts()) {
+			if (shift.getEpochDay() < ORIGIN_EPOCH_DAY) {
+				continue;
+			}
+			days.computeIfAbsent(shift.getLocation(), location -> new TreeSet<>()).add((int) shift.getEpochDay());
+		}
+		SortedMap<String, int[]> period = new TreeMap<>();
+		days.forEach((location, epochDays) -> period.put(location, epochDays.stream().mapToInt(Integer::intValue).toArray()));
+		return period;
+	}
+
+	/**
+	 * @param file {@link PayPeriod} JSON file or segment.
+	 * @return Stamp of the file, or null if it does not exist.
+	 * @throws IOException If an error is encountered when reading the attributes of the file.
+	 */
+	private static FileStamp stampOf(Path file) throws IOException {
+		try {
+			return FileStamp.of(file);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Load the index file, laid out as the magic number and format version, then the name, stamp and days worked of
+	 * every file. A missing index, or one that cannot be read, is loaded empty, so it is rebuilt from the files.
+	 *
+	 * @param indexPath Path to the index file.
+	 * @return Days worked in every JSON file and segment, by file name.
+	 * @throws IOException If an error is encountered when reading the index file, other than it being invalid.
+	 */
+	private static SortedMap<String, Source> load(Path indexPath) throws IOException {
+		SortedMap<String, Source> sources = new TreeMap<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return new TreeMap<>();
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; ++i) {
+				String name = in.readUTF();
+				FileStamp stamp = FileStamp.parse(in.readUTF());
+				SortedMap<LocalDate, SortedMap<String, int[]>> periods = new TreeMap<>();
+				int periodCount = in.readInt();
+				for (int j = 0; j < periodCount; ++j) {
+					LocalDate start = LocalDate.ofEpochDay(in.readLong());
+					SortedMap<String, int[]> period = new TreeMap<>();
+					int locationCount = in.readInt();
+					for (int k = 0; k < locationCount; ++k) {
+						String location = in.readUTF();
+						int[] epochDays = new int[in.readInt()];
+						for (int l = 0; l < epochDays.length; ++l) {
+							epochDays[l] = in.readInt();
+						}
+						period.put(location, epochDays);
+					}
+					periods.put(start, period);
+				}
+				sources.put(name, new Source(stamp, periods));
+			}
+			return sources;
+		} catch (NoSuchFileException | EOFException | IllegalArgumentException | NegativeArraySizeException e) {
+			// missing, truncated or corrupt: rebuilt from the files
+			return new TreeMap<>();
+		}
+	}
+
+	/**
+	 * Write the index file to a temporary file moved in its place, so concurrent readers never see a partly written
+	 * index. Of two writers storing at once, the last one wins, and the files the other indexed are read again
+	 * by the next refresh, as their stamps no longer match.
+	 *
+	 * @param indexPath Path to the index file.
+	 * @param sources   Days worked in every JSON file and segment, by file name.
+	 * @throws IOException If an error is encountered when writing the index file.
+	 */
+	private static void store(Path indexPath, SortedMap<String, Source> sources) throws IOException {
+		Path tempFile = Files.createTempFile(indexPath.getParent(), FILE, ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(sources.size());
+				for (Map.Entry<String, Source> entry : sources.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeUTF(entry.getValue().stamp().toString());
+					out.writeInt(entry.getValue().periods().size());
+					for (Map.Entry<LocalDate, SortedMap<String, int[]>> period : entry.getValue().periods().entrySet()) {
+						out.writeLong(period.getKey().toEpochDay());
+						out.writeInt(period.getValue().size());
+						for (Map.Entry<String, int[]> location : period.getValue().entrySet()) {
+							out.writeUTF(location.getKey());
+							out.writeInt(location.getValue().length);
+							for (int epochDay : location.getValue()) {
+								out.writeInt(epochDay);
+							}
+						}
+					}
+				}
+			}
+			Files.move(tempFile, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+}
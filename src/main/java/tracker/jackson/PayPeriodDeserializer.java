@@ -2,12 +2,16 @@ package tracker.jackson;
 
 import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import tracker.PayPeriod;
+import tracker.PayPeriodSummary;
 import tracker.Shift;
+import tracker.profile.Profiler;
+import tracker.profile.Stage;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -27,12 +31,36 @@ public class PayPeriodDeserializer extends StdDeserializer<PayPeriod> {
 		super(payPeriod);
 	}
 
+	/**
+	 * Read a whole {@link PayPeriod}, rebuilding its totals and rollups from its {@link Shift Shifts}.
+	 * The stored totals and rollups are rounded to cents, and adding them up again as {@linkplain Shift Shifts}
+	 * are added or removed would carry the rounding into every later write, so they are only read by
+	 * {@link #deserializeSummary(JsonParser)}.
+	 */
 	@Override
 	public PayPeriod deserialize(JsonParser parser, DeserializationContext context) throws IOException, JacksonException {
-		ObjectCodec codec = parser.getCodec();
-		JsonNode payPeriodNode = codec.readTree(parser);
+		String start;
+		List<Shift> shifts;
+		try (Profiler.Timer timer = Profiler.time(Stage.DESERIALIZE)) {
+			ObjectCodec codec = parser.getCodec();
+			JsonNode payPeriodNode = codec.readTree(parser);
 
-		String start = payPeriodNode.get("start").textValue();
+			start = payPeriodNode.get("start").textValue();
+			shifts = deserializeShifts(payPeriodNode);
+		}
+		try (Profiler.Timer timer = Profiler.time(Stage.REBUILD)) {
+			return new PayPeriod(start, null, shifts);
+		}
+	}
+
+	/**
+	 * Create every {@link Shift} listed in the given {@link PayPeriod} JSON object, in the order they are listed.
+	 * Unlike a {@linkplain PayPeriod}, the List returned keeps {@linkplain Shift Shifts} with the same date and time clocked in.
+	 *
+	 * @param payPeriodNode {@linkplain PayPeriod} JSON object.
+	 * @return List of {@linkplain Shift Shifts} in the JSON object.
+	 */
+	public static List<Shift> deserializeShifts(JsonNode payPeriodNode) {
 		List<Shift> shifts = new ArrayList<>();
 		JsonNode shiftsNode = payPeriodNode.get("shifts");
 		Iterator<JsonNode> it = shiftsNode.elements();
@@ -45,7 +73,86 @@ public class PayPeriodDeserializer extends StdDeserializer<PayPeriod> {
 			double payRate = shiftNode.get("payRate").doubleValue();
 			shifts.add(new Shift(location, date, in, out, payRate));
 		}
+		return shifts;
+	}
+
+	/**
+	 * Read the dates, totals and rollups of a {@link PayPeriod} written by {@link PayPeriodSerializer},
+	 * streaming the JSON object only up to its {@link Shift Shifts}, which are not parsed.
+	 *
+	 * @param parser Parser positioned before the {@linkplain PayPeriod} JSON object.
+	 * @return Summary of the {@linkplain PayPeriod},
+	 * or null if the JSON object was written without rollups and its {@linkplain Shift Shifts} must be parsed.
+	 * @throws IOException If an error is encountered when reading the JSON object.
+	 */
+	public static PayPeriodSummary deserializeSummary(JsonParser parser) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			return null;
+		}
 
-		return new PayPeriod(start, null, shifts);
+		String start = null;
+		String end = null;
+		Double hours = null;
+		Double pay = null;
+		Double adjustedPay = null;
+		double[] weekHours = null;
+		double[] weekPay = null;
+		double[] dayHours = null;
+		double[] dayPay = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			if ("shifts".equals(field)) {
+				break;
+			}
+			parser.nextToken();
+			switch (field) {
+				case "start" -> start = parser.getText();
+				case "end" -> end = parser.getText();
+				case "hours" -> hours = parser.getDoubleValue();
+				case "pay" -> pay = parser.getDoubleValue();
+				case "adjustedPay" -> adjustedPay = parser.getDoubleValue();
+				case "weeks" -> {
+					weekHours = new double[PayPeriod.WEEKS];
+					weekPay = new double[PayPeriod.WEEKS];
+					for (int week = 0; parser.nextToken() == JsonToken.START_OBJECT; ++week) {
+						while (parser.nextToken() == JsonToken.FIELD_NAME) {
+							String weekField = parser.getCurrentName();
+							parser.nextToken();
+							if (week < PayPeriod.WEEKS && "hours".equals(weekField)) {
+								weekHours[week] = parser.getDoubleValue();
+							} else if (week < PayPeriod.WEEKS && "pay".equals(weekField)) {
+								weekPay[week] = parser.getDoubleValue();
+							}
+						}
+					}
+				}
+				case "dayHours" -> dayHours = readDays(parser);
+				case "dayPay" -> dayPay = readDays(parser);
+				default -> parser.skipChildren();
+			}
+		}
+
+		if (start == null || end == null || hours == null || pay == null || adjustedPay == null
+			|| weekHours == null || dayHours == null || dayPay == null) {
+			return null;
+		}
+		return new PayPeriodSummary(start, end, hours, pay, adjustedPay, weekHours, weekPay, dayHours, dayPay);
+	}
+
+	/**
+	 * Read an array of one number for every day of a {@link PayPeriod}.
+	 *
+	 * @param parser Parser positioned on the start of the array.
+	 * @return Numbers of the array, indexed by day.
+	 * @throws IOException If an error is encountered when reading the array.
+	 */
+	private static double[] readDays(JsonParser parser) throws IOException {
+		double[] days = new double[PayPeriod.DAYS];
+		for (int day = 0; parser.nextToken() != JsonToken.END_ARRAY; ++day) {
+			if (day < PayPeriod.DAYS) {
+				days[day] = parser.getDoubleValue();
+			}
+		}
+		return days;
 	}
 }
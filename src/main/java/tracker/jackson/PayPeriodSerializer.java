@@ -1,6 +1,7 @@
 package tracker.jackson;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import tracker.PayPeriod;
@@ -31,6 +32,11 @@ public class PayPeriodSerializer extends StdSerializer<PayPeriod> {
 		return Math.round(db * 100) / 100.0;
 	}
 
+	/**
+	 * Write the given {@link PayPeriod}: its dates, totals, weekly and daily rollups, then its {@link Shift Shifts}.
+	 * The rollups are written before the {@linkplain Shift Shifts}, so they can be read without parsing the
+	 * {@linkplain Shift Shifts}, see {@link PayPeriodDeserializer#deserializeSummary(JsonParser)}.
+	 */
 	@Override
 	public void serialize(PayPeriod payPeriod, JsonGenerator gen, SerializerProvider provider) throws IOException {
 		gen.writeStartObject();
@@ -38,9 +44,36 @@ public class PayPeriodSerializer extends StdSerializer<PayPeriod> {
 		gen.writeStringField("end", payPeriod.getEnd());
 		gen.writeNumberField("hours", roundDouble(payPeriod.getHours()));
 		gen.writeNumberField("pay", roundDouble(payPeriod.getPay()));
+		gen.writeNumberField("adjustedPay", roundDouble(payPeriod.getAdjustedPay()));
+		gen.writeArrayFieldStart("weeks");
+		for (int week = 0; week < PayPeriod.WEEKS; ++week) {
+			gen.writeStartObject();
+			gen.writeNumberField("hours", roundDouble(payPeriod.getWeekHours(week)));
+			gen.writeNumberField("pay", roundDouble(payPeriod.getWeekPay(week)));
+			gen.writeNumberField("overtimeHours", roundDouble(payPeriod.getOvertimeHours(week)));
+			gen.writeNumberField("overtimePay", roundDouble(payPeriod.getOvertimePay(week)));
+			gen.writeEndObject();
+		}
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("dayHours");
+		for (int day = 0; day < PayPeriod.DAYS; ++day) {
+			gen.writeNumber(roundDouble(payPeriod.getDayHours(day)));
+		}
+		gen.writeEndArray();
+		gen.writeArrayFieldStart("dayPay");
+		for (int day = 0; day < PayPeriod.DAYS; ++day) {
+			gen.writeNumber(roundDouble(payPeriod.getDayPay(day)));
+		}
+		gen.writeEndArray();
 		gen.writeArrayFieldStart("shifts");
 		for (Shift shift : payPeriod.getShifts()) {
-			gen.writeObject(shift);
+			gen.writeStartObject();
+			gen.writeStringField("location", shift.getLocation());
+			gen.writeStringField("date", shift.getDate());
+			gen.writeStringField("in", shift.getIn());
+			gen.writeStringField("out", shift.getOut());
+			gen.writeNumberField("payRate", shift.getPayRate());
+			gen.writeEndObject();
 		}
 		gen.writeEndArray();
 		gen.writeEndObject();
@@ -0,0 +1,212 @@
+package tracker.merge;
+
+import tracker.Shift;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class to find duplicate and conflicting {@link Shift Shifts} when merging {@link tracker.PayPeriod PayPeriods}.
+ * <p>
+ * Every {@linkplain Shift} offered is packed into two primitive longs:
+ * a slot key made of the date and time clocked in, which is how a {@linkplain tracker.PayPeriod PayPeriod} orders
+ * its {@linkplain Shift Shifts}, and a value made of the time clocked out, location id and pay rate in cents.
+ * The keys are stored in an open-addressing hash table of parallel long arrays, next to the {@linkplain Shift} added
+ * in each slot, so each offer runs in constant time without allocating.
+ * <p>
+ * A {@linkplain Shift} with a slot key not seen before is added.
+ * A {@linkplain Shift} with the same slot key and value as one already added is a duplicate.
+ * A {@linkplain Shift} with the same slot key but a different value is a conflict, and the first one added is kept.
+ */
+public class ShiftDeduplicator {
+	/** Slot key marking an empty slot, never produced by {@link #slotKey(Shift)} for a real date. */
+	private static final long EMPTY = Long.MIN_VALUE;
+	/** Number of bits used to store a time of day in minutes. */
+	private static final int MINUTE_BITS = 11;
+	/** Number of bits used to store a location id. */
+	private static final int LOCATION_BITS = 20;
+	/** Mask to extract a location id. */
+	private static final long LOCATION_MASK = (1L << LOCATION_BITS) - 1;
+
+	/** Outcome of offering a {@link Shift} to this deduplicator. */
+	public enum Result {
+		/** No {@linkplain Shift} with the same date and time clocked in was offered before. */
+		ADDED,
+		/** An identical {@linkplain Shift} was offered before. */
+		DUPLICATE,
+		/** A different {@linkplain Shift} with the same date and time clocked in was offered before. */
+		CONFLICT
+	}
+
+	/**
+	 * A {@link Shift} rejected because a different {@linkplain Shift} with the same date and time clocked in was kept.
+	 *
+	 * @param kept     {@linkplain Shift} kept.
+	 * @param rejected {@linkplain Shift} rejected.
+	 */
+	public record Conflict(Shift kept, Shift rejected) {
+	}
+
+	/** Slot keys, {@link #EMPTY} where a slot is unused. */
+	private long[] keys;
+	/** Values of the slots, at the same index as their slot key. */
+	private long[] values;
+	/** {@link Shift Shifts} added, at the same index as their slot key. */
+	private Shift[] shifts;
+	/** Mask to turn a hash into a slot index, one less than the table capacity. */
+	private int mask;
+	/** Number of used slots. */
+	private int size;
+
+	/** Number of duplicate {@link Shift Shifts} offered. */
+	private long duplicates;
+	/** Conflicting {@link Shift Shifts} offered. */
+	private final List<Conflict> conflicts;
+
+	/**
+	 * Create a new {@link ShiftDeduplicator} with room for a small number of {@link Shift Shifts}.
+	 */
+	public ShiftDeduplicator() {
+		this(16);
+	}
+
+	/**
+	 * Create a new {@link ShiftDeduplicator} with room for the expected number of {@link Shift Shifts},
+	 * so the table does not need to grow while they are offered.
+	 *
+	 * @param expectedShifts Expected number of unique {@linkplain Shift Shifts}.
+	 */
+	public ShiftDeduplicator(int expectedShifts) {
+		int capacity = Integer.highestOneBit(Math.max(expectedShifts, 8) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		this.values = new long[capacity];
+		this.shifts = new Shift[capacity];
+		this.mask = capacity - 1;
+		this.size = 0;
+		this.duplicates = 0;
+		this.conflicts = new ArrayList<>();
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Offer a {@link Shift} to this deduplicator, recording it if no {@linkplain Shift}
+	 * with the same date and time clocked in has been offered before.
+	 *
+	 * @param shift {@linkplain Shift} to offer.
+	 * @return Whether the {@linkplain Shift} was added, a duplicate, or a conflict.
+	 */
+	public Result offer(Shift shift) {
+		long key = slotKey(shift);
+		long value = slotValue(shift);
+
+		int index = indexOf(key);
+		if (keys[index] == EMPTY) {
+			keys[index] = key;
+			values[index] = value;
+			shifts[index] = shift;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+			return Result.ADDED;
+		}
+		if (values[index] == value) {
+			++duplicates;
+			return Result.DUPLICATE;
+		}
+		conflicts.add(new Conflict(shifts[index], shift));
+		return Result.CONFLICT;
+	}
+
+	/**
+	 * @return Number of unique {@link Shift Shifts} added.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return Number of duplicate {@link Shift Shifts} offered.
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return List of conflicting {@link Shift Shifts} offered, in the order they were offered.
+	 */
+	public List<Conflict> getConflicts() {
+		return List.copyOf(conflicts);
+	}
+
+	/**
+	 * Find the slot holding the given key, or the empty slot where it would be inserted, with linear probing.
+	 *
+	 * @param key Slot key to find.
+	 * @return Index of the slot.
+	 */
+	private int indexOf(long key) {
+		int index = mix(key) & mask;
+		while (keys[index] != EMPTY && keys[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Double the capacity of the table and reinsert every used slot.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		Shift[] oldShifts = shifts;
+		keys = new long[oldKeys.length * 2];
+		values = new long[oldValues.length * 2];
+		shifts = new Shift[oldShifts.length * 2];
+		mask = keys.length - 1;
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldKeys[i] != EMPTY) {
+				int index = indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+				shifts[index] = oldShifts[i];
+			}
+		}
+	}
+
+	/**
+	 * Spread the bits of the given key, so that keys of consecutive dates do not cluster in the table.
+	 *
+	 * @param key Key to hash.
+	 * @return Hash of the key.
+	 */
+	private static int mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/**
+	 * @param shift {@link Shift} to pack.
+	 * @return Date and time clocked in of the {@linkplain Shift}, packed into a long.
+	 */
+	static long slotKey(Shift shift) {
+		return (shift.getEpochDay() << MINUTE_BITS) | shift.getInMinute();
+	}
+
+	/**
+	 * Pack the time clocked out, location id and pay rate of the given {@link Shift} into a long.
+	 * The pay rate is rounded to cents, the precision the pay rate is entered with.
+	 *
+	 * @param shift {@linkplain Shift} to pack.
+	 * @return Time clocked out, location id and pay rate of the {@linkplain Shift}, packed into a long.
+	 */
+	static long slotValue(Shift shift) {
+		long cents = Math.round(shift.getPayRate() * 100);
+		return (cents << (MINUTE_BITS + LOCATION_BITS))
+			| ((shift.getLocationId() & LOCATION_MASK) << MINUTE_BITS)
+			| shift.getOutMinute();
+	}
+}
@@ -0,0 +1,332 @@
+package tracker.profile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the time spent and memory allocated in every {@link Stage} of a run of the application.
+ * <p>
+ * A stage is timed with a {@link Timer} in a try-with-resources statement, which adds the elapsed wall time and the
+ * bytes allocated by the current thread to the totals of the stage, and commits a {@link StageEvent} to the
+ * Java Flight Recorder if it is recording. A stream read as it is parsed is timed by wrapping it instead,
+ * adding up the time spent in its reads alone. Totals are kept in {@link LongAdder LongAdders},
+ * so stages timed on many threads at once do not contend.
+ * <p>
+ * Stages nest: a stage timed while another is running on the same thread, such as the reads of a file parsed
+ * in the deserializer, is left out of the time and memory of the outer stage, so every run is only counted once
+ * and the stages add up to the time they cover.
+ * <p>
+ * The profiler is disabled until {@link #enable()} is called: until then, timing a stage returns a shared timer
+ * that does nothing, and the JVM is not asked to account for the memory allocated by every thread.
+ */
+public final class Profiler {
+	/** Is the profiler enabled? */
+	private static volatile boolean enabled = false;
+	/** Thread bean measuring the bytes allocated by a thread, null if disabled or the JVM cannot measure them. */
+	private static volatile com.sun.management.ThreadMXBean threads = null;
+	/** Number of times every stage was timed, indexed by {@link Stage#ordinal()}. */
+	private static final LongAdder[] COUNTS = adders();
+	/** Nanoseconds spent in every stage, indexed by {@link Stage#ordinal()}. */
+	private static final LongAdder[] NANOS = adders();
+	/** Bytes allocated in every stage, indexed by {@link Stage#ordinal()}. */
+	private static final LongAdder[] BYTES = adders();
+	/** Number of times every stage was timed without measuring the bytes allocated, indexed by {@link Stage#ordinal()}. */
+	private static final LongAdder[] UNMEASURED = adders();
+	/** Innermost timer running on every thread, null if none is. */
+	private static final ThreadLocal<Timer> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Timer of a single run of a {@link Stage}, stopped when closed.
+	 */
+	public static final class Timer implements AutoCloseable {
+		/** Timer returned while the profiler is disabled, which records nothing. */
+		private static final Timer DISABLED = new Timer();
+
+		/** Stage timed, null for the {@linkplain #DISABLED disabled} timer. */
+		private final Stage stage;
+		/** Flight Recorder event of the stage, null for the {@linkplain #DISABLED disabled} timer. */
+		private final StageEvent event;
+		/** Value of {@link System#nanoTime()} when the timer was started. */
+		private final long startNanos;
+		/** Bytes allocated by the current thread when the timer was started, negative if unknown. */
+		private final long startBytes;
+		/** Timer that was running on the thread when this one was started, null if none was. */
+		private final Timer parent;
+		/** Nanoseconds spent in stages timed while this timer was running, left out of its own. */
+		private long nestedNanos = 0;
+		/** Bytes allocated in stages timed while this timer was running, left out of its own. */
+		private long nestedBytes = 0;
+
+		/**
+		 * Start a new {@link Timer} of the given stage, nested in the timer running on the current thread, if any.
+		 *
+		 * @param stage Stage to time.
+		 */
+		private Timer(Stage stage) {
+			this.stage = stage;
+			this.parent = CURRENT.get();
+			CURRENT.set(this);
+			this.event = new StageEvent();
+			this.startBytes = allocatedBytes();
+			event.begin();
+			this.startNanos = System.nanoTime();
+		}
+
+		/**
+		 * Create the {@linkplain #DISABLED disabled} timer.
+		 */
+		private Timer() {
+			this.stage = null;
+			this.event = null;
+			this.startNanos = 0;
+			this.startBytes = -1;
+			this.parent = null;
+		}
+
+		/**
+		 * Stop the timer, adding the time elapsed and bytes allocated, less those of the stages nested in it,
+		 * to the totals of its stage, and all of them to the stages of the timer it is nested in.
+		 */
+		@Override
+		public void close() {
+			if (stage == null) {
+				return;
+			}
+			long nanos = System.nanoTime() - startNanos;
+			long bytes = (startBytes < 0) ? -1 : allocatedBytes() - startBytes;
+			CURRENT.set(parent);
+			nested(nanos, bytes);
+			record(stage, nanos - nestedNanos, (bytes < 0) ? -1 : bytes - nestedBytes);
+			if (event.shouldCommit()) {
+				event.stage = stage.getLabel();
+				event.allocated = bytes;
+				event.commit();
+			}
+		}
+
+		/**
+		 * Leave a run nested in the timer of the current thread, if any, out of the timer's own time and memory.
+		 *
+		 * @param nanos Nanoseconds spent in the nested run.
+		 * @param bytes Bytes allocated in the nested run, negative if unknown.
+		 */
+		private static void nested(long nanos, long bytes) {
+			Timer current = CURRENT.get();
+			if (current != null) {
+				current.nestedNanos += nanos;
+				current.nestedBytes += Math.max(bytes, 0);
+			}
+		}
+	}
+
+	/**
+	 * Stream adding up the time spent and bytes allocated in its reads, recorded as a single run of a {@link Stage}
+	 * when the stream is closed.
+	 */
+	private static final class TimedInputStream extends FilterInputStream {
+		/** Stage timed. */
+		private final Stage stage;
+		/** Nanoseconds spent in reads so far. */
+		private long nanos = 0;
+		/** Bytes allocated in reads so far, negative if unknown. */
+		private long bytes = 0;
+		/** Was the run recorded? */
+		private boolean recorded = false;
+
+		/**
+		 * @param stage Stage to time.
+		 * @param in    Stream to time the reads of.
+		 */
+		private TimedInputStream(Stage stage, InputStream in) {
+			super(in);
+			this.stage = stage;
+		}
+
+		@Override
+		public int read() throws IOException {
+			long startBytes = allocatedBytes();
+			long startNanos = System.nanoTime();
+			try {
+				return super.read();
+			} finally {
+				add(startNanos, startBytes);
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long startBytes = allocatedBytes();
+			long startNanos = System.nanoTime();
+			try {
+				return super.read(b, off, len);
+			} finally {
+				add(startNanos, startBytes);
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long startBytes = allocatedBytes();
+			long startNanos = System.nanoTime();
+			try {
+				return super.skip(n);
+			} finally {
+				add(startNanos, startBytes);
+			}
+		}
+
+		/**
+		 * Close the stream, recording the time spent and bytes allocated in its reads the first time it is closed.
+		 *
+		 * @throws IOException If an error is encountered when closing the stream.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (!recorded) {
+					recorded = true;
+					record(stage, nanos, bytes);
+				}
+			}
+		}
+
+		/**
+		 * Add a read to the totals of the stream.
+		 *
+		 * @param startNanos Value of {@link System#nanoTime()} when the read started.
+		 * @param startBytes Bytes allocated by the current thread when the read started, negative if unknown.
+		 */
+		private void add(long startNanos, long startBytes) {
+			long readNanos = System.nanoTime() - startNanos;
+			long readBytes = (startBytes < 0) ? -1 : allocatedBytes() - startBytes;
+			Timer.nested(readNanos, readBytes);
+			nanos += readNanos;
+			bytes = (readBytes < 0 || bytes < 0) ? -1 : bytes + readBytes;
+		}
+	}
+
+	private Profiler() {
+	}
+
+	/**
+	 * Enable the profiler, and the accounting of the memory allocated by every thread if the JVM supports it.
+	 * Stages timed before are not recorded.
+	 */
+	public static synchronized void enable() {
+		if (!enabled) {
+			threads = allocationBean();
+			enabled = true;
+		}
+	}
+
+	/**
+	 * Start timing a run of the given stage, until the timer returned is closed.
+	 *
+	 * @param stage Stage to time.
+	 * @return Started timer, or a shared timer recording nothing if the profiler is disabled.
+	 */
+	public static Timer time(Stage stage) {
+		return enabled ? new Timer(stage) : Timer.DISABLED;
+	}
+
+	/**
+	 * Time the reads from the given stream as a run of the given stage, recorded when the stream is closed,
+	 * so a stream parsed as it is read is timed apart from parsing it.
+	 *
+	 * @param stage Stage to time.
+	 * @param in    Stream to time the reads of.
+	 * @return Stream reading from the given stream, or the given stream itself if the profiler is disabled,
+	 * to be closed by the caller.
+	 */
+	public static InputStream time(Stage stage, InputStream in) {
+		return enabled ? new TimedInputStream(stage, in) : in;
+	}
+
+	/**
+	 * Record the time since the JVM was started as the {@link Stage#JVM_START} stage.
+	 * Meant to be called once, when the application is entered, and recorded only if the profiler is enabled.
+	 */
+	public static void recordJvmStart() {
+		if (!enabled) {
+			return;
+		}
+		long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+		record(Stage.JVM_START, millis * 1_000_000, -1);
+	}
+
+	/**
+	 * Add a run of a stage to its totals.
+	 *
+	 * @param stage Stage run.
+	 * @param nanos Nanoseconds spent in the stage.
+	 * @param bytes Bytes allocated in the stage, negative if unknown.
+	 */
+	private static void record(Stage stage, long nanos, long bytes) {
+		COUNTS[stage.ordinal()].increment();
+		NANOS[stage.ordinal()].add(nanos);
+		if (bytes < 0) {
+			UNMEASURED[stage.ordinal()].increment();
+		} else {
+			BYTES[stage.ordinal()].add(bytes);
+		}
+	}
+
+	/**
+	 * Print the number of runs, total and mean latency, and memory allocated of every stage that was run.
+	 *
+	 * @param out Stream to print to.
+	 */
+	public static void report(PrintStream out) {
+		out.println(String.format("%-26s %8s %12s %12s %14s", "Stage", "Count", "Total ms", "Mean ms", "Allocated KB"));
+		for (Stage stage : Stage.values()) {
+			long count = COUNTS[stage.ordinal()].sum();
+			if (count == 0) {
+				continue;
+			}
+			double totalMillis = NANOS[stage.ordinal()].sum() / 1e6;
+			boolean measured = UNMEASURED[stage.ordinal()].sum() < count;
+			String allocated = measured ? String.format("%.1f", BYTES[stage.ordinal()].sum() / 1024.0) : "-";
+			out.println(String.format("%-26s %8d %12.3f %12.3f %14s",
+				stage.getLabel(), count, totalMillis, totalMillis / count, allocated));
+		}
+	}
+
+	/**
+	 * @return Bytes allocated by the current thread so far, or -1 if the JVM cannot measure them.
+	 */
+	private static long allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = threads;
+		return (bean != null) ? bean.getCurrentThreadAllocatedBytes() : -1;
+	}
+
+	/**
+	 * @return Thread bean measuring the bytes allocated by a thread, or null if the JVM cannot measure them.
+	 */
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean allocationThreads
+			&& allocationThreads.isThreadAllocatedMemorySupported()) {
+			allocationThreads.setThreadAllocatedMemoryEnabled(true);
+			return allocationThreads;
+		}
+		return null;
+	}
+
+	/**
+	 * @return Array of a new adder for every {@link Stage}.
+	 */
+	private static LongAdder[] adders() {
+		LongAdder[] adders = new LongAdder[Stage.values().length];
+		for (int i = 0; i < adders.length; ++i) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+}
@@ -0,0 +1,36 @@
+package tracker.profile;
+
+/**
+ * Stage of a run of the application timed by the {@link Profiler}.
+ */
+public enum Stage {
+	/** Starting the JVM, until the application is entered. */
+	JVM_START("JVM start"),
+	/** Constructing the object mapper and registering the custom de/serializers. */
+	OBJECT_MAPPER("ObjectMapper construction"),
+	/** Reading the bytes of a {@link tracker.PayPeriod PayPeriod} JSON file or segment entry. */
+	FILE_READ("File read"),
+	/** Parsing JSON into a tree and creating its {@link tracker.Shift Shifts}, in the {@link tracker.jackson.PayPeriodDeserializer PayPeriodDeserializer}. */
+	DESERIALIZE("PayPeriodDeserializer"),
+	/** Creating a {@link tracker.PayPeriod PayPeriod} from its {@link tracker.Shift Shifts}, adding up its totals and rollups. */
+	REBUILD("PayPeriod rebuild"),
+	/** Serializing a {@link tracker.PayPeriod PayPeriod} and writing it to its JSON file. */
+	WRITE("writePayPeriod");
+
+	/** Name of the stage printed in the report. */
+	private final String label;
+
+	/**
+	 * @param label Name of the stage printed in the report.
+	 */
+	Stage(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return Name of the stage printed in the report.
+	 */
+	public String getLabel() {
+		return label;
+	}
+}
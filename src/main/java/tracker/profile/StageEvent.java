@@ -0,0 +1,29 @@
+package tracker.profile;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every {@link Stage} timed by the {@link Profiler},
+ * so stages show up next to GC and I/O events when the application is run with <code>-XX:StartFlightRecording</code>.
+ */
+@Name("tracker.Stage")
+@Label("Shift Tracker Stage")
+@Category("Shift Tracker")
+@Description("A timed stage of a run of the Shift Tracker.")
+@StackTrace(false)
+class StageEvent extends Event {
+	/** Name of the stage. */
+	@Label("Stage")
+	String stage;
+
+	/** Number of bytes allocated by the thread during the stage. */
+	@Label("Allocated")
+	@DataAmount
+	long allocated;
+}
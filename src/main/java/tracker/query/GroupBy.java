@@ -0,0 +1,52 @@
+package tracker.query;
+
+import tracker.Shift;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Ways to group the {@link Shift Shifts} selected by a query.
+ */
+public enum GroupBy {
+	/** Every {@linkplain Shift} in a single group. */
+	NONE,
+	/** Group by ISO week worked, such as <code>2024-W03</code>. */
+	WEEK,
+	/** Group by month worked, such as <code>2024-01</code>. */
+	MONTH,
+	/** Group by location worked at. */
+	LOCATION,
+	/** Group by hourly pay rate. */
+	RATE;
+
+	/**
+	 * @param shift {@link Shift} to group.
+	 * @return Key of the group the {@linkplain Shift} belongs to.
+	 */
+	public String keyOf(Shift shift) {
+		return switch (this) {
+			case NONE -> "All";
+			case WEEK -> {
+				LocalDate date = LocalDate.ofEpochDay(shift.getEpochDay());
+				yield String.format(Locale.US, "%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+			}
+			case MONTH -> YearMonth.from(LocalDate.ofEpochDay(shift.getEpochDay())).toString();
+			case LOCATION -> shift.getLocation();
+			case RATE -> String.format(Locale.US, "%.2f", shift.getPayRate());
+		};
+	}
+
+	/**
+	 * @return Comparator sorting the keys of groups, by pay rate for {@link #RATE}, else alphabetically.
+	 */
+	public Comparator<String> order() {
+		if (this == RATE) {
+			return Comparator.comparingDouble(Double::parseDouble);
+		}
+		return Comparator.naturalOrder();
+	}
+}
@@ -0,0 +1,238 @@
+package tracker.query;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.SegmentFile;
+import tracker.archive.Totals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class to filter and aggregate the {@link Shift Shifts} of every {@link PayPeriod} in an {@link Archive}.
+ * <p>
+ * The date range of the filter is pushed down to the storage: a {@linkplain PayPeriod} JSON file is skipped when the
+ * starting date in its name, or else the <code>start</code> and <code>end</code> fields at the head of the file,
+ * fall outside the range, and a segment entry is skipped when its starting date in the segment index does.
+ * Skipped {@linkplain PayPeriod PayPeriods} are never parsed.
+ * <p>
+ * Every JSON file and segment is aggregated in parallel into partial totals, which are merged at the end.
+ */
+public class QueryEngine {
+	/**
+	 * Result of a query.
+	 *
+	 * @param groups  Totals of the selected {@link Shift Shifts} by group, sorted in the order of the group by.
+	 * @param total   Totals of every selected {@linkplain Shift}.
+	 * @param scanned Number of {@link PayPeriod PayPeriods} parsed.
+	 * @param skipped Number of {@linkplain PayPeriod PayPeriods} skipped without being parsed.
+	 */
+	public record Result(SortedMap<String, Totals> groups, Totals total, int scanned, int skipped) {
+	}
+
+	/**
+	 * Totals aggregated from part of the archive, merged into the result of the query.
+	 */
+	private static final class Partial {
+		/** Totals by group. */
+		private final Map<String, Totals> groups = new HashMap<>();
+		/** Totals of every selected {@link Shift}. */
+		private final Totals total = new Totals();
+		/** Number of {@link PayPeriod PayPeriods} parsed. */
+		private int scanned = 0;
+		/** Number of {@link PayPeriod PayPeriods} skipped. */
+		private int skipped = 0;
+
+		/**
+		 * Merge the given partial totals into these totals.
+		 *
+		 * @param other Partial totals to merge.
+		 * @return These totals.
+		 */
+		private Partial merge(Partial other) {
+			other.groups.forEach((key, totals) -> groups.computeIfAbsent(key, k -> new Totals()).add(totals));
+			total.add(other.total);
+			scanned += other.scanned;
+			skipped += other.skipped;
+			return this;
+		}
+	}
+
+	/**
+	 * Part of the archive to aggregate.
+	 */
+	private interface Task {
+		/**
+		 * @return Totals of this part of the archive.
+		 * @throws IOException If an error is encountered when reading this part of the archive.
+		 */
+		Partial run() throws IOException;
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Archive to query. */
+	private final Archive archive;
+
+	/**
+	 * Create a new {@link QueryEngine} over the given archive.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param archive      Archive to query.
+	 */
+	public QueryEngine(ObjectMapper objectMapper, Archive archive) {
+		this.objectMapper = objectMapper;
+		this.archive = archive;
+	}
+
+	/**
+	 * Aggregate the {@link Shift Shifts} passing the given filter, by the given group.
+	 *
+	 * @param filter  Filter selecting the {@linkplain Shift Shifts} to aggregate.
+	 * @param groupBy How to group the selected {@linkplain Shift Shifts}.
+	 * @return Result of the query.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public Result run(ShiftFilter filter, GroupBy groupBy) throws IOException {
+		List<Task> tasks = new ArrayList<>();
+		for (Path file : PayPeriodFiles.list(archive.getDirectory())) {
+			tasks.add(() -> scanFile(file, filter, groupBy));
+		}
+		for (Path segment : archive.segments()) {
+			tasks.add(() -> scanSegment(segment, filter, groupBy));
+		}
+
+		Partial result;
+		try {
+			result = tasks.parallelStream()
+				.map(task -> {
+					try {
+						return task.run();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.reduce(Partial::merge)
+				.orElseGet(Partial::new);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		SortedMap<String, Totals> groups = new TreeMap<>(groupBy.order());
+		groups.putAll(result.groups);
+		return new Result(Collections.unmodifiableSortedMap(groups), result.total, result.scanned, result.skipped);
+	}
+
+	/**
+	 * Aggregate a single {@link PayPeriod} JSON file, unless its dates are outside of the date range of the filter.
+	 *
+	 * @param file    {@linkplain PayPeriod} JSON file.
+	 * @param filter  Filter selecting the {@link Shift Shifts} to aggregate.
+	 * @param groupBy How to group the selected {@linkplain Shift Shifts}.
+	 * @return Totals of the file.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private Partial scanFile(Path file, ShiftFilter filter, GroupBy groupBy) throws IOException {
+		Partial partial = new Partial();
+		LocalDate start = Archive.startOf(file);
+		boolean overlaps = (start != null) ? filter.overlaps(start, start.plusDays(13)) : headerOverlaps(file, filter);
+		if (overlaps) {
+			aggregate(partial, PayPeriodFiles.read(objectMapper, file), filter, groupBy);
+		} else {
+			++partial.skipped;
+		}
+		return partial;
+	}
+
+	/**
+	 * Aggregate the entries of a segment file whose starting date in the index is within the date range of the filter,
+	 * leaving out entries replaced by a JSON file.
+	 *
+	 * @param segmentPath Segment file.
+	 * @param filter      Filter selecting the {@link Shift Shifts} to aggregate.
+	 * @param groupBy     How to group the selected {@linkplain Shift Shifts}.
+	 * @return Totals of the segment.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private Partial scanSegment(Path segmentPath, ShiftFilter filter, GroupBy groupBy) throws IOException {
+		Partial partial = new Partial();
+		try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+			for (LocalDate start : segment.getStarts()) {
+				if (archive.findFile(start) != null) {
+					continue;
+				}
+				if (filter.overlaps(start, start.plusDays(13))) {
+					aggregate(partial, objectMapper.readValue(segment.read(start), PayPeriod.class), filter, groupBy);
+				} else {
+					++partial.skipped;
+				}
+			}
+		}
+		return partial;
+	}
+
+	/**
+	 * Add the {@link Shift Shifts} of the given {@link PayPeriod} passing the filter to the given partial totals.
+	 *
+	 * @param partial   Partial totals to add to.
+	 * @param payPeriod {@linkplain PayPeriod} to aggregate.
+	 * @param filter    Filter selecting the {@linkplain Shift Shifts} to aggregate.
+	 * @param groupBy   How to group the selected {@linkplain Shift Shifts}.
+	 */
+	private static void aggregate(Partial partial, PayPeriod payPeriod, ShiftFilter filter, GroupBy groupBy) {
+		++partial.scanned;
+		for (Shift shift : payPeriod.getShifts()) {
+			if (filter.test(shift)) {
+				partial.total.add(shift);
+				partial.groups.computeIfAbsent(groupBy.keyOf(shift), key -> new Totals()).add(shift);
+			}
+		}
+	}
+
+	/**
+	 * Check the <code>start</code> and <code>end</code> fields of a {@link PayPeriod} JSON file against the filter,
+	 * streaming the file only until both fields are read, which are written before the {@link Shift Shifts}.
+	 *
+	 * @param file   {@linkplain PayPeriod} JSON file.
+	 * @param filter Filter to check.
+	 * @return True iff the dates of the file overlap the date range of the filter, or cannot be found.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private boolean headerOverlaps(Path file, ShiftFilter filter) throws IOException {
+		LocalDate start = null;
+		LocalDate end = null;
+		try (InputStream in = PayPeriodFiles.openInput(file);
+		     JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return true;
+			}
+			while ((start == null || end == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("start".equals(field)) {
+					start = LocalDate.parse(parser.getText());
+				} else if ("end".equals(field)) {
+					end = LocalDate.parse(parser.getText());
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return start == null || end == null || filter.overlaps(start, end);
+	}
+}
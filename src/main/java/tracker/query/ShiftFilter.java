@@ -0,0 +1,96 @@
+package tracker.query;
+
+import tracker.LocationRegistry;
+import tracker.Shift;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Filter selecting the {@link Shift Shifts} to include in a query,
+ * by date range, location, day of the week, and pay rate.
+ * <p>
+ * Besides testing single {@linkplain Shift Shifts}, the date range is tested against the first and last day of a
+ * whole {@link tracker.PayPeriod PayPeriod}, so a {@linkplain tracker.PayPeriod PayPeriod} outside of the range
+ * is skipped without being parsed.
+ */
+public class ShiftFilter {
+	/** First day to include, inclusive, may be null. */
+	private final LocalDate from;
+	/** Last day to include, inclusive, may be null. */
+	private final LocalDate to;
+	/** Ids of the locations to include, null to include every location. */
+	private final BitSet locations;
+	/** Days of the week to include, as a bit set indexed by {@link DayOfWeek#getValue()}, 0 to include every day. */
+	private final int weekdays;
+	/** Lowest pay rate to include. */
+	private final double minRate;
+	/** Highest pay rate to include. */
+	private final double maxRate;
+
+	/**
+	 * Create a new {@link ShiftFilter}. Every argument may be null or empty to not filter on it.
+	 *
+	 * @param from      First day to include, inclusive.
+	 * @param to        Last day to include, inclusive.
+	 * @param locations Names of the locations to include.
+	 * @param weekdays  Days of the week to include.
+	 * @param minRate   Lowest pay rate to include.
+	 * @param maxRate   Highest pay rate to include.
+	 */
+	public ShiftFilter(LocalDate from, LocalDate to, Collection<String> locations, Collection<DayOfWeek> weekdays,
+	                   Double minRate, Double maxRate) {
+		this.from = from;
+		this.to = to;
+
+		if (locations == null || locations.isEmpty()) {
+			this.locations = null;
+		} else {
+			this.locations = new BitSet();
+			for (String location : locations) {
+				this.locations.set(LocationRegistry.intern(location));
+			}
+		}
+
+		int weekdayBits = 0;
+		if (weekdays != null) {
+			for (DayOfWeek weekday : weekdays) {
+				weekdayBits |= 1 << weekday.getValue();
+			}
+		}
+		this.weekdays = weekdayBits;
+
+		this.minRate = (minRate != null) ? minRate : Double.NEGATIVE_INFINITY;
+		this.maxRate = (maxRate != null) ? maxRate : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @param start First day of a range of dates.
+	 * @param end   Last day of a range of dates.
+	 * @return True iff any day of the given range is within the date range of this filter.
+	 */
+	public boolean overlaps(LocalDate start, LocalDate end) {
+		return (from == null || !end.isBefore(from)) && (to == null || !start.isAfter(to));
+	}
+
+	/**
+	 * @param shift {@link Shift} to test.
+	 * @return True iff the {@linkplain Shift} passes every condition of this filter.
+	 */
+	public boolean test(Shift shift) {
+		long epochDay = shift.getEpochDay();
+		if ((from != null && epochDay < from.toEpochDay()) || (to != null && epochDay > to.toEpochDay())) {
+			return false;
+		}
+		if (locations != null && !locations.get(shift.getLocationId())) {
+			return false;
+		}
+		// the epoch, 1970-01-01, was a Thursday
+		if (weekdays != 0 && (weekdays & (1 << (Math.floorMod(epochDay + 3, 7) + 1))) == 0) {
+			return false;
+		}
+		return shift.getPayRate() >= minRate && shift.getPayRate() <= maxRate;
+	}
+}
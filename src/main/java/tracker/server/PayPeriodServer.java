@@ -0,0 +1,472 @@
+package tracker.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tracker.PayPeriod;
+import tracker.PayPeriodSummary;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.Totals;
+import tracker.query.GroupBy;
+import tracker.query.ShiftFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP server exposing the {@link PayPeriod PayPeriods} of an {@link Archive} as JSON, read only.
+ * <p>
+ * Every request is handled on its own thread: a virtual thread when the JVM supports them, else a platform thread
+ * from a cached pool. {@linkplain PayPeriod PayPeriods} are parsed once into a {@link PeriodCache} shared by every
+ * request, and responses are written with the {@link ObjectMapper} of the application.
+ * <p>
+ * Endpoints, all under {@value #CONTEXT}:
+ * <ul>
+ *     <li><code>GET /periods</code> - summaries of every {@linkplain PayPeriod}, optionally between
+ *     <code>from</code> and <code>to</code>, read from the totals and rollups stored ahead of its
+ *     {@link Shift Shifts}.</li>
+ *     <li><code>GET /periods/YYYY-MM-DD</code> - the {@linkplain PayPeriod} starting on the given date, with its
+ *     {@link Shift Shifts}.</li>
+ *     <li><code>GET /periods/YYYY-MM-DD/shifts</code> - the {@linkplain Shift Shifts} of the {@linkplain PayPeriod}
+ *     starting on the given date.</li>
+ *     <li><code>GET /shifts</code> - the {@linkplain Shift Shifts} passing a filter.</li>
+ *     <li><code>GET /aggregate</code> - the totals of the {@linkplain Shift Shifts} passing a filter, by
+ *     <code>groupBy</code>.</li>
+ * </ul>
+ * Filters are given by the query parameters <code>from</code>, <code>to</code>, <code>location</code>,
+ * <code>weekday</code>, <code>minRate</code> and <code>maxRate</code>, where <code>location</code> and
+ * <code>weekday</code> may be repeated, as by the <code>query</code> subcommand.
+ */
+public class PayPeriodServer implements Closeable {
+	/** Path every endpoint is under. */
+	public static final String CONTEXT = "/api";
+	/** Number of incoming connections to queue before refusing connections. */
+	private static final int BACKLOG = 4096;
+	/** System property disabling Nagle's algorithm on the connections of the JDK HTTP server. */
+	private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+	static {
+		// the JDK server writes the headers and body of a response separately, so with Nagle's algorithm
+		// the body waits on the delayed ACK of the headers, adding about 40 ms to every request
+		if (System.getProperty(NODELAY) == null) {
+			System.setProperty(NODELAY, "true");
+		}
+	}
+
+	/**
+	 * A {@link Shift} as written in responses.
+	 *
+	 * @param location Name of the location worked at.
+	 * @param date     Date worked in the format <code>YYYY-MM-DD</code>.
+	 * @param in       Time clocked in, in the format <code>HH:MM</code>.
+	 * @param out      Time clocked out, in the format <code>HH:MM</code>.
+	 * @param payRate  Hourly pay rate.
+	 * @param hours    Number of hours worked.
+	 * @param pay      Amount of money earned.
+	 */
+	public record ShiftView(String location, String date, String in, String out, double payRate, double hours, double pay) {
+		/**
+		 * @param shift {@link Shift} to write.
+		 * @return View of the {@linkplain Shift}.
+		 */
+		public static ShiftView of(Shift shift) {
+			return new ShiftView(shift.getLocation(), shift.getDate(), shift.getIn(), shift.getOut(), shift.getPayRate(),
+				round(shift.calcTotalHours()), round(shift.calcPay()));
+		}
+	}
+
+	/**
+	 * {@link Totals} as written in responses.
+	 *
+	 * @param shifts Number of {@link Shift Shifts}.
+	 * @param hours  Number of hours worked.
+	 * @param pay    Amount of money earned.
+	 */
+	public record TotalsView(long shifts, double hours, double pay) {
+		/**
+		 * @param totals {@link Totals} to write.
+		 * @return View of the {@linkplain Totals}.
+		 */
+		public static TotalsView of(Totals totals) {
+			return new TotalsView(totals.getShifts(), round(totals.getHours()), round(totals.getPay()));
+		}
+	}
+
+	/**
+	 * Response of the aggregate endpoint.
+	 *
+	 * @param groups Totals of the selected {@link Shift Shifts} by group, in the order of the group by.
+	 * @param total  Totals of every selected {@linkplain Shift}.
+	 */
+	public record AggregateView(Map<String, TotalsView> groups, TotalsView total) {
+	}
+
+	/**
+	 * Error from handling a request, sent as the response with its status code.
+	 */
+	private static final class RequestException extends Exception {
+		/** HTTP status code of the response. */
+		private final int status;
+
+		/**
+		 * @param status  HTTP status code of the response.
+		 * @param message Message describing the error.
+		 */
+		private RequestException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+
+	/** Object mapper to write responses with. */
+	private final ObjectMapper objectMapper;
+	/** Cache of the parsed {@link PayPeriod PayPeriods} of the archive. */
+	private final PeriodCache cache;
+	/** Executor running every request on its own thread. */
+	private final ExecutorService executor;
+	/** Underlying HTTP server. */
+	private final HttpServer server;
+
+	/**
+	 * Create a new {@link PayPeriodServer} bound to the given address. The server is not started.
+	 *
+	 * @param objectMapper Object mapper to read {@link PayPeriod PayPeriods} and write responses with.
+	 * @param archive      Archive to serve.
+	 * @param address      Address to bind to, with port 0 to bind to any free port.
+	 * @throws IOException If the server cannot be bound to the address.
+	 */
+	public PayPeriodServer(ObjectMapper objectMapper, Archive archive, InetSocketAddress address) throws IOException {
+		this.objectMapper = objectMapper;
+		this.cache = new PeriodCache(objectMapper, archive);
+		this.executor = newPerRequestExecutor();
+		this.server = HttpServer.create(address, BACKLOG);
+		this.server.createContext(CONTEXT, this::handle);
+		this.server.setExecutor(executor);
+	}
+
+	/**
+	 * @return Executor starting a new virtual thread for every task, or a cached pool of platform threads
+	 * when the JVM does not support virtual threads.
+	 */
+	public static ExecutorService newPerRequestExecutor() {
+		try {
+			// virtual threads are available from Java 21, while this project targets Java 17
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * @return True iff requests are handled on virtual threads.
+	 */
+	public boolean isVirtual() {
+		return !(executor instanceof ThreadPoolExecutor);
+	}
+
+	/**
+	 * Start accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * @return Address the server is bound to.
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * @return Cache of the parsed {@link PayPeriod PayPeriods} of the archive.
+	 */
+	public PeriodCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Stop accepting requests, wait up to a second for requests in progress, then stop the executor.
+	 */
+	@Override
+	public void close() {
+		server.stop(1);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Route a request to its endpoint and send the response, or the error from handling it.
+	 *
+	 * @param exchange Request and response.
+	 * @throws IOException If an error is encountered when sending the response.
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			int status = 200;
+			Object body;
+			try {
+				if (!exchange.getRequestMethod().equals("GET")) {
+					exchange.getResponseHeaders().set("Allow", "GET");
+					throw new RequestException(405, "Method " + exchange.getRequestMethod() + " not allowed.");
+				}
+				String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+				Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+				body = route(path, query);
+			} catch (RequestException e) {
+				status = e.status;
+				body = Map.of("error", e.getMessage());
+			} catch (IOException | RuntimeException e) {
+				status = 500;
+				body = Map.of("error", "Error reading archive: " + e.getMessage());
+			}
+
+			byte[] response = objectMapper.writeValueAsBytes(body);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		}
+	}
+
+	/**
+	 * @param path  Path of the request, below {@value #CONTEXT}.
+	 * @param query Query parameters of the request.
+	 * @return Body of the response.
+	 * @throws RequestException If the request is invalid, or names a {@link PayPeriod} not in the archive.
+	 * @throws IOException      If an error is encountered when reading the archive.
+	 */
+	private Object route(String path, Map<String, List<String>> query) throws RequestException, IOException {
+		String[] parts = path.replaceAll("^/+|/+$", "").split("/+");
+		if (parts.length == 1 && parts[0].equals("periods")) {
+			return periods(filterOf(query));
+		} else if (parts.length == 2 && parts[0].equals("periods")) {
+			return period(parts[1]);
+		} else if (parts.length == 3 && parts[0].equals("periods") && parts[2].equals("shifts")) {
+			return period(parts[1]).getShifts().stream().map(ShiftView::of).toList();
+		} else if (parts.length == 1 && parts[0].equals("shifts")) {
+			return shifts(filterOf(query));
+		} else if (parts.length == 1 && parts[0].equals("aggregate")) {
+			return aggregate(filterOf(query), groupByOf(query));
+		}
+		throw new RequestException(404, "No endpoint at " + CONTEXT + path + ".");
+	}
+
+	/**
+	 * @param filter Filter whose date range selects the {@link PayPeriod PayPeriods} to summarize.
+	 * @return Summaries of the {@linkplain PayPeriod PayPeriods} overlapping the date range of the filter, sorted.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	private List<PayPeriodSummary> periods(ShiftFilter filter) throws IOException {
+		List<PayPeriodSummary> summaries = new ArrayList<>();
+		for (Map.Entry<LocalDate, PayPeriodSummary> entry : cache.summaries().entrySet()) {
+			if (filter.overlaps(entry.getKey(), entry.getKey().plusDays(PayPeriod.DAYS - 1))) {
+				PayPeriodSummary summary = entry.getValue();
+				summaries.add(new PayPeriodSummary(summary.start(), summary.end(), round(summary.hours()),
+					round(summary.pay()), round(summary.adjustedPay()), round(summary.weekHours()),
+					round(summary.weekPay()), round(summary.dayHours()), round(summary.dayPay())));
+			}
+		}
+		return summaries;
+	}
+
+	/**
+	 * @param start Starting date of a {@link PayPeriod}, from the path of the request.
+	 * @return {@linkplain PayPeriod} starting on the given date.
+	 * @throws RequestException If the date is invalid, or no {@linkplain PayPeriod} in the archive starts on it.
+	 * @throws IOException      If an error is encountered when reading the archive.
+	 */
+	private PayPeriod period(String start) throws RequestException, IOException {
+		PayPeriod payPeriod = cache.get(parseDate(start));
+		if (payPeriod == null) {
+			throw new RequestException(404, "No PayPeriod starts on " + start + ".");
+		}
+		return payPeriod;
+	}
+
+	/**
+	 * @param filter Filter selecting the {@link Shift Shifts} to list.
+	 * @return {@linkplain Shift Shifts} passing the filter, sorted.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	private List<ShiftView> shifts(ShiftFilter filter) throws IOException {
+		List<ShiftView> shifts = new ArrayList<>();
+		for (Map.Entry<LocalDate, PayPeriod> entry : cache.all().entrySet()) {
+			if (filter.overlaps(entry.getKey(), entry.getKey().plusDays(PayPeriod.DAYS - 1))) {
+				for (Shift shift : entry.getValue().getShifts()) {
+					if (filter.test(shift)) {
+						shifts.add(ShiftView.of(shift));
+					}
+				}
+			}
+		}
+		return shifts;
+	}
+
+	/**
+	 * @param filter  Filter selecting the {@link Shift Shifts} to aggregate.
+	 * @param groupBy How to group the selected {@linkplain Shift Shifts}.
+	 * @return Totals of the {@linkplain Shift Shifts} passing the filter, by group.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	private AggregateView aggregate(ShiftFilter filter, GroupBy groupBy) throws IOException {
+		Map<String, Totals> groups = new HashMap<>();
+		Totals total = new Totals();
+		for (Map.Entry<LocalDate, PayPeriod> entry : cache.all().entrySet()) {
+			if (filter.overlaps(entry.getKey(), entry.getKey().plusDays(PayPeriod.DAYS - 1))) {
+				for (Shift shift : entry.getValue().getShifts()) {
+					if (filter.test(shift)) {
+						total.add(shift);
+						groups.computeIfAbsent(groupBy.keyOf(shift), key -> new Totals()).add(shift);
+					}
+				}
+			}
+		}
+
+		SortedMap<String, Totals> sorted = new TreeMap<>(groupBy.order());
+		sorted.putAll(groups);
+		Map<String, TotalsView> views = new LinkedHashMap<>();
+		sorted.forEach((key, totals) -> views.put(key, TotalsView.of(totals)));
+		return new AggregateView(views, TotalsView.of(total));
+	}
+
+	/**
+	 * @param query Query parameters of a request.
+	 * @return Filter given by the query parameters.
+	 * @throws RequestException If a query parameter is invalid.
+	 */
+	private static ShiftFilter filterOf(Map<String, List<String>> query) throws RequestException {
+		List<DayOfWeek> weekdays = new ArrayList<>();
+		for (String weekday : query.getOrDefault("weekday", List.of())) {
+			try {
+				weekdays.add(DayOfWeek.valueOf(weekday.toUpperCase(Locale.ROOT)));
+			} catch (IllegalArgumentException e) {
+				throw new RequestException(400, "Invalid weekday " + weekday + ".");
+			}
+		}
+		return new ShiftFilter(
+			query.containsKey("from") ? parseDate(query.get("from").get(0)) : null,
+			query.containsKey("to") ? parseDate(query.get("to").get(0)) : null,
+			query.get("location"),
+			weekdays,
+			parseRate(query, "minRate"),
+			parseRate(query, "maxRate")
+		);
+	}
+
+	/**
+	 * @param query Query parameters of a request.
+	 * @return How to group {@link Shift Shifts}, given by the <code>groupBy</code> parameter, {@link GroupBy#NONE} if not given.
+	 * @throws RequestException If the parameter is invalid.
+	 */
+	private static GroupBy groupByOf(Map<String, List<String>> query) throws RequestException {
+		if (!query.containsKey("groupBy")) {
+			return GroupBy.NONE;
+		}
+		String groupBy = query.get("groupBy").get(0);
+		try {
+			return GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new RequestException(400, "Invalid groupBy " + groupBy + ".");
+		}
+	}
+
+	/**
+	 * @param date Date in the format <code>YYYY-MM-DD</code>.
+	 * @return Parsed date.
+	 * @throws RequestException If the date is invalid.
+	 */
+	private static LocalDate parseDate(String date) throws RequestException {
+		try {
+			return LocalDate.parse(date);
+		} catch (DateTimeParseException e) {
+			throw new RequestException(400, "Invalid date " + date + ".");
+		}
+	}
+
+	/**
+	 * @param query Query parameters of a request.
+	 * @param name  Name of a pay rate parameter.
+	 * @return Pay rate given by the parameter, or null if not given.
+	 * @throws RequestException If the pay rate is invalid.
+	 */
+	private static Double parseRate(Map<String, List<String>> query, String name) throws RequestException {
+		if (!query.containsKey(name)) {
+			return null;
+		}
+		String rate = query.get(name).get(0);
+		try {
+			return Double.parseDouble(rate);
+		} catch (NumberFormatException e) {
+			throw new RequestException(400, "Invalid " + name + " " + rate + ".");
+		}
+	}
+
+	/**
+	 * Round the given number to two decimal places, as totals are written in {@link PayPeriod} JSON files.
+	 *
+	 * @param number Number to round.
+	 * @return Number with 2 decimal places.
+	 */
+	private static double round(double number) {
+		return Math.round(number * 100) / 100.0;
+	}
+
+	/**
+	 * @param numbers Numbers to round.
+	 * @return New array of the numbers, each rounded to two decimal places.
+	 */
+	private static double[] round(double[] numbers) {
+		double[] rounded = new double[numbers.length];
+		for (int i = 0; i < numbers.length; ++i) {
+			rounded[i] = round(numbers[i]);
+		}
+		return rounded;
+	}
+
+	/**
+	 * @param rawQuery Raw query string of a request, may be null.
+	 * @return Values of every query parameter, by name, in the order given.
+	 */
+	private static Map<String, List<String>> parseQuery(String rawQuery) {
+		Map<String, List<String>> query = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return query;
+		}
+		for (String parameter : rawQuery.split("&")) {
+			if (parameter.isEmpty()) {
+				continue;
+			}
+			int equals = parameter.indexOf('=');
+			String name = URLDecoder.decode((equals >= 0) ? parameter.substring(0, equals) : parameter, StandardCharsets.UTF_8);
+			String value = (equals >= 0) ? URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8) : "";
+			query.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+		}
+		return query;
+	}
+}
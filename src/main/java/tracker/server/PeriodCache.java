@@ -0,0 +1,308 @@
+package tracker.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.PayPeriodSummary;
+import tracker.archive.Archive;
+import tracker.archive.FileStamp;
+import tracker.archive.PayPeriodFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of the parsed {@link PayPeriod PayPeriods} of an {@link Archive}, and of their {@link PayPeriodSummary summaries},
+ * shared by concurrent requests.
+ * <p>
+ * Every JSON file and segment is cached with the {@link FileStamp} of the file it was parsed from.
+ * Summaries are read and cached apart from the {@linkplain PayPeriod PayPeriods}, without parsing any
+ * {@link tracker.Shift Shift}.
+ * A single {@linkplain PayPeriod} is looked up by stat'ing its file, which is parsed again only when its stamp changed.
+ * <p>
+ * Lookups of every {@linkplain PayPeriod} reuse a snapshot of the whole archive while the stamp of the directory is
+ * unchanged, which the command line tool changes on every write, as it replaces files by renaming a temporary file.
+ * Files edited in place are seen once the snapshot is older than {@value #MAX_AGE_MILLIS} milliseconds.
+ * <p>
+ * Cached {@linkplain PayPeriod PayPeriods} and summaries are shared between requests and must not be modified.
+ */
+public class PeriodCache {
+	/** Milliseconds a snapshot of the archive is used for before every file is stat'ed again. */
+	public static final long MAX_AGE_MILLIS = 1000;
+
+	/**
+	 * Value parsed from a file, with the stamp of the file when it was parsed.
+	 *
+	 * @param stamp Stamp of the file when it was parsed.
+	 * @param value Value parsed from the file.
+	 * @param <T>   Type of the value.
+	 */
+	private record Entry<T>(FileStamp stamp, T value) {
+	}
+
+	/**
+	 * Value of every {@link PayPeriod} in the archive, with the stamp of the directory when they were looked up.
+	 *
+	 * @param directory Stamp of the directory when the {@linkplain PayPeriod PayPeriods} were looked up.
+	 * @param checked   Time the {@linkplain PayPeriod PayPeriods} were looked up, in milliseconds since the epoch.
+	 * @param values    Value of every {@linkplain PayPeriod} in the archive, by starting date, sorted.
+	 * @param <T>       Type of the values.
+	 */
+	private record Snapshot<T>(FileStamp directory, long checked, SortedMap<LocalDate, T> values) {
+	}
+
+	/**
+	 * Function reading a value from a file.
+	 *
+	 * @param <T> Type of the value.
+	 */
+	private interface Reader<T> {
+		/**
+		 * @param file File to read.
+		 * @return Value read from the file.
+		 * @throws IOException If an error is encountered when reading the file.
+		 */
+		T read(Path file) throws IOException;
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Archive to read {@link PayPeriod PayPeriods} from. */
+	private final Archive archive;
+	/** {@link PayPeriod PayPeriods} parsed from JSON files, by path. */
+	private final ConcurrentMap<Path, Entry<PayPeriod>> files;
+	/** {@link PayPeriod PayPeriods} parsed from segment files, by path. */
+	private final ConcurrentMap<Path, Entry<SortedMap<LocalDate, PayPeriod>>> segments;
+	/** Summaries read from JSON files, by path. */
+	private final ConcurrentMap<Path, Entry<PayPeriodSummary>> fileSummaries;
+	/** Summaries read from segment files, by path. */
+	private final ConcurrentMap<Path, Entry<SortedMap<LocalDate, PayPeriodSummary>>> segmentSummaries;
+	/** Last snapshot of every {@link PayPeriod} in the archive, null until the first lookup. */
+	private volatile Snapshot<PayPeriod> snapshot;
+	/** Last snapshot of the summary of every {@link PayPeriod} in the archive, null until the first lookup. */
+	private volatile Snapshot<PayPeriodSummary> summarySnapshot;
+	/** Number of lookups served from the cache. */
+	private final LongAdder hits;
+	/** Number of lookups that parsed a file. */
+	private final LongAdder misses;
+
+	/**
+	 * Create a new, empty {@link PeriodCache}.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param archive      Archive to read {@linkplain PayPeriod PayPeriods} from.
+	 */
+	public PeriodCache(ObjectMapper objectMapper, Archive archive) {
+		this.objectMapper = objectMapper;
+		this.archive = archive;
+		this.files = new ConcurrentHashMap<>();
+		this.segments = new ConcurrentHashMap<>();
+		this.fileSummaries = new ConcurrentHashMap<>();
+		this.segmentSummaries = new ConcurrentHashMap<>();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+
+	/**
+	 * Get every {@link PayPeriod} in the archive, from its JSON file if there is one, else from its segment.
+	 * Unless the last snapshot is still current, files that changed since they were cached are parsed again
+	 * in parallel, and files that were deleted are evicted.
+	 *
+	 * @return Every {@linkplain PayPeriod} in the archive, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public SortedMap<LocalDate, PayPeriod> all() throws IOException {
+		snapshot = refresh(snapshot, files, segments, this::file, this::segment,
+			payPeriod -> LocalDate.parse(payPeriod.getStart()));
+		return snapshot.values();
+	}
+
+	/**
+	 * Get the summary of every {@link PayPeriod} in the archive, from its JSON file if there is one, else from its segment,
+	 * reading only the totals and rollups stored ahead of its {@link tracker.Shift Shifts}.
+	 * Unless the last snapshot is still current, files that changed since they were cached are read again
+	 * in parallel, and files that were deleted are evicted.
+	 *
+	 * @return Summary of every {@linkplain PayPeriod} in the archive, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public SortedMap<LocalDate, PayPeriodSummary> summaries() throws IOException {
+		summarySnapshot = refresh(summarySnapshot, fileSummaries, segmentSummaries, this::fileSummary,
+			this::segmentSummaries, summary -> LocalDate.parse(summary.start()));
+		return summarySnapshot.values();
+	}
+
+	/**
+	 * Get the {@link PayPeriod} starting on the given date, from its JSON file if there is one, else from its segment.
+	 *
+	 * @param start Starting date of the {@linkplain PayPeriod}.
+	 * @return {@linkplain PayPeriod} starting on the given date, or null if no {@linkplain PayPeriod} in the archive does.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public PayPeriod get(LocalDate start) throws IOException {
+		Path file = archive.findFile(start);
+		if (file != null) {
+			try {
+				return file(file);
+			} catch (NoSuchFileException e) {
+				// deleted since it was found, fall back to the segment
+			}
+		}
+		Path segmentPath = archive.segmentOf(start.getYear());
+		if (!Files.isRegularFile(segmentPath)) {
+			return null;
+		}
+		return segment(segmentPath).get(start);
+	}
+
+	/**
+	 * Reuse the given snapshot while it is current, else look up the value of every {@link PayPeriod} in the archive.
+	 *
+	 * @param last          Last snapshot, or null if there is none.
+	 * @param fileCache     Cache of the values read from JSON files, from which deleted files are evicted.
+	 * @param segmentCache  Cache of the values read from segment files, from which deleted segments are evicted.
+	 * @param fileReader    Function reading the value of a JSON file through its cache.
+	 * @param segmentReader Function reading the values of a segment file through its cache.
+	 * @param startOf       Function getting the starting date of a value.
+	 * @param <T>           Type of the values.
+	 * @return Current snapshot.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	private <T> Snapshot<T> refresh(Snapshot<T> last, ConcurrentMap<Path, ?> fileCache, ConcurrentMap<Path, ?> segmentCache,
+	                                Reader<T> fileReader, Reader<SortedMap<LocalDate, T>> segmentReader,
+	                                Function<T, LocalDate> startOf) throws IOException {
+		FileStamp directory = FileStamp.of(archive.getDirectory());
+		long now = System.currentTimeMillis();
+		if (last != null && last.directory().equals(directory) && now - last.checked() < MAX_AGE_MILLIS) {
+			hits.increment();
+			return last;
+		}
+
+		List<Path> segmentPaths = archive.segments();
+		List<Path> filePaths = PayPeriodFiles.list(archive.getDirectory());
+
+		List<SortedMap<LocalDate, T>> segmentValues;
+		List<T> fileValues;
+		try {
+			segmentValues = segmentPaths.parallelStream()
+				.map(segmentPath -> {
+					try {
+						return segmentReader.read(segmentPath);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.toList();
+			fileValues = filePaths.parallelStream()
+				.map(file -> {
+					try {
+						return fileReader.read(file);
+					} catch (NoSuchFileException e) {
+						// deleted since the directory was listed
+						return null;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.toList();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		segmentCache.keySet().retainAll(new HashSet<>(segmentPaths));
+		fileCache.keySet().retainAll(new HashSet<>(filePaths));
+
+		SortedMap<LocalDate, T> values = new TreeMap<>();
+		segmentValues.forEach(values::putAll);
+		for (T value : fileValues) {
+			if (value != null) {
+				values.put(startOf.apply(value), value);
+			}
+		}
+		return new Snapshot<>(directory, now, Collections.unmodifiableSortedMap(values));
+	}
+
+	/**
+	 * @return Number of lookups served from the cache.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Number of lookups that parsed a file.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @param file {@link PayPeriod} JSON file.
+	 * @return {@linkplain PayPeriod} in the file, parsed again if the file changed since it was cached.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private PayPeriod file(Path file) throws IOException {
+		return cached(files, file, path -> PayPeriodFiles.read(objectMapper, path));
+	}
+
+	/**
+	 * @param segmentPath Segment file.
+	 * @return {@link PayPeriod PayPeriods} in the segment, parsed again if the segment changed since it was cached.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private SortedMap<LocalDate, PayPeriod> segment(Path segmentPath) throws IOException {
+		return cached(segments, segmentPath, path -> Collections.unmodifiableSortedMap(archive.readSegment(path)));
+	}
+
+	/**
+	 * @param file {@link PayPeriod} JSON file.
+	 * @return Summary of the {@linkplain PayPeriod} in the file, read again if the file changed since it was cached.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private PayPeriodSummary fileSummary(Path file) throws IOException {
+		return cached(fileSummaries, file, path -> PayPeriodFiles.readSummary(objectMapper, path));
+	}
+
+	/**
+	 * @param segmentPath Segment file.
+	 * @return Summaries of the {@link PayPeriod PayPeriods} in the segment,
+	 * read again if the segment changed since it was cached.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private SortedMap<LocalDate, PayPeriodSummary> segmentSummaries(Path segmentPath) throws IOException {
+		return cached(segmentSummaries, segmentPath,
+			path -> Collections.unmodifiableSortedMap(archive.readSegmentSummaries(path)));
+	}
+
+	/**
+	 * @param cache  Cache of the values read from files of the kind of the given file.
+	 * @param file   File to read.
+	 * @param reader Function reading the value of the file.
+	 * @param <T>    Type of the value.
+	 * @return Value of the file, read again if the file changed since it was cached.
+	 * @throws IOException If an error is encountered when reading the file.
+	 */
+	private <T> T cached(ConcurrentMap<Path, Entry<T>> cache, Path file, Reader<T> reader) throws IOException {
+		FileStamp stamp = FileStamp.of(file);
+		Entry<T> entry = cache.get(file);
+		if (entry != null && entry.stamp().equals(stamp)) {
+			hits.increment();
+			return entry.value();
+		}
+		misses.increment();
+		T value = reader.read(file);
+		cache.put(file, new Entry<>(stamp, value));
+		return value;
+	}
+}
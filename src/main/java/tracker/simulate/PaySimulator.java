@@ -0,0 +1,142 @@
+package tracker.simulate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.SegmentFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class to recompute the pay of every {@link Shift} in an {@link Archive} by a {@link RateSchedule},
+ * reporting the difference with the pay earned for every {@link PayPeriod}, without rewriting any file.
+ * <p>
+ * Every JSON file and segment is recomputed in parallel. The pay of a {@linkplain Shift} is recomputed from its
+ * primitive fields, so no object is allocated per {@linkplain Shift} beyond parsing it.
+ */
+public class PaySimulator {
+	/**
+	 * Pay of a single {@link PayPeriod}, earned and recomputed by the schedule.
+	 *
+	 * @param start        First day of the pay period.
+	 * @param shifts       Number of {@link Shift Shifts} worked.
+	 * @param hours        Total number of hours worked.
+	 * @param pay          Total amount of money earned.
+	 * @param simulatedPay Total amount of money that would have been earned by the schedule.
+	 */
+	public record Delta(LocalDate start, int shifts, double hours, double pay, double simulatedPay) {
+		/**
+		 * @return Difference between the recomputed and earned pay.
+		 */
+		public double delta() {
+			return simulatedPay - pay;
+		}
+	}
+
+	/**
+	 * Part of the archive to recompute.
+	 */
+	private interface Task {
+		/**
+		 * @return Pay of every {@link PayPeriod} in this part of the archive.
+		 * @throws IOException If an error is encountered when reading this part of the archive.
+		 */
+		List<Delta> run() throws IOException;
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Archive to recompute. */
+	private final Archive archive;
+
+	/**
+	 * Create a new {@link PaySimulator} over the given archive.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param archive      Archive to recompute.
+	 */
+	public PaySimulator(ObjectMapper objectMapper, Archive archive) {
+		this.objectMapper = objectMapper;
+		this.archive = archive;
+	}
+
+	/**
+	 * Recompute the pay of every {@link PayPeriod} in the archive by the given schedule.
+	 *
+	 * @param schedule Schedule of pay rates to recompute by.
+	 * @return Pay of every {@linkplain PayPeriod}, by starting date, sorted.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public SortedMap<LocalDate, Delta> run(RateSchedule schedule) throws IOException {
+		List<Task> tasks = new ArrayList<>();
+		for (Path file : PayPeriodFiles.list(archive.getDirectory())) {
+			tasks.add(() -> List.of(simulate(PayPeriodFiles.read(objectMapper, file), schedule)));
+		}
+		for (Path segment : archive.segments()) {
+			tasks.add(() -> simulateSegment(segment, schedule));
+		}
+
+		SortedMap<LocalDate, Delta> deltas = new TreeMap<>();
+		try {
+			tasks.parallelStream()
+				.map(task -> {
+					try {
+						return task.run();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.toList()
+				.forEach(list -> list.forEach(delta -> deltas.put(delta.start(), delta)));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return Collections.unmodifiableSortedMap(deltas);
+	}
+
+	/**
+	 * Recompute the entries of a segment file, leaving out entries replaced by a JSON file.
+	 *
+	 * @param segmentPath Segment file.
+	 * @param schedule    Schedule of pay rates to recompute by.
+	 * @return Pay of every {@link PayPeriod} in the segment.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private List<Delta> simulateSegment(Path segmentPath, RateSchedule schedule) throws IOException {
+		List<Delta> deltas = new ArrayList<>();
+		try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+			for (LocalDate start : segment.getStarts()) {
+				if (archive.findFile(start) == null) {
+					deltas.add(simulate(objectMapper.readValue(segment.read(start), PayPeriod.class), schedule));
+				}
+			}
+		}
+		return deltas;
+	}
+
+	/**
+	 * Recompute the pay of a single {@link PayPeriod} by the given schedule.
+	 *
+	 * @param payPeriod {@linkplain PayPeriod} to recompute.
+	 * @param schedule  Schedule of pay rates to recompute by.
+	 * @return Pay of the {@linkplain PayPeriod}.
+	 */
+	private static Delta simulate(PayPeriod payPeriod, RateSchedule schedule) {
+		double simulatedPay = 0;
+		for (Shift shift : payPeriod.getShifts()) {
+			simulatedPay += schedule.calcPay(shift);
+		}
+		return new Delta(LocalDate.parse(payPeriod.getStart()), payPeriod.getShifts().size(),
+			payPeriod.getHours(), payPeriod.getPay(), simulatedPay);
+	}
+}
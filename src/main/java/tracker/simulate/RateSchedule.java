@@ -0,0 +1,98 @@
+package tracker.simulate;
+
+import tracker.Shift;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Schedule of pay rates, each in effect from a given date until the next one.
+ * <p>
+ * A rate is either absolute, replacing the pay rate of a {@link Shift}, or relative, added to it,
+ * so a retroactive raise of 50 cents from a date is written <code>YYYY-MM-DD=+0.50</code>.
+ * {@linkplain Shift Shifts} worked before the first date of the schedule keep their pay rate.
+ * <p>
+ * The schedule is held in sorted primitive arrays and looked up by binary search,
+ * so no object is allocated to find the rate of a {@linkplain Shift}.
+ */
+public class RateSchedule {
+	/** Dates each rate takes effect, as days since the epoch, sorted. */
+	private final long[] epochDays;
+	/** Rates taking effect on the day at the same index. */
+	private final double[] rates;
+	/** Is the rate at the same index added to the pay rate of a {@link Shift}, instead of replacing it? */
+	private final boolean[] relative;
+
+	/**
+	 * Create a new {@link RateSchedule} from the given entries.
+	 *
+	 * @param entries Entries in the format <code>YYYY-MM-DD=rate</code>, or <code>YYYY-MM-DD=+rate</code>
+	 *                and <code>YYYY-MM-DD=-rate</code> for a rate relative to the pay rate of each {@link Shift}.
+	 * @throws IllegalArgumentException If an entry is not in the expected format.
+	 * @throws DateTimeParseException   If the date of an entry cannot be parsed.
+	 */
+	public RateSchedule(Collection<String> entries) throws IllegalArgumentException, DateTimeParseException {
+		// a later entry for the same date replaces an earlier one
+		Map<LocalDate, String> sorted = new TreeMap<>();
+		for (String entry : entries) {
+			int separator = entry.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Rate schedule entry " + entry + " is not in the format YYYY-MM-DD=rate.");
+			}
+			sorted.put(LocalDate.parse(entry.substring(0, separator).trim()), entry.substring(separator + 1).trim());
+		}
+
+		this.epochDays = new long[sorted.size()];
+		this.rates = new double[sorted.size()];
+		this.relative = new boolean[sorted.size()];
+		int i = 0;
+		for (Map.Entry<LocalDate, String> entry : sorted.entrySet()) {
+			String rate = entry.getValue();
+			epochDays[i] = entry.getKey().toEpochDay();
+			relative[i] = rate.startsWith("+") || rate.startsWith("-");
+			try {
+				rates[i] = Double.parseDouble(rate);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Rate " + rate + " for " + entry.getKey() + " is not a number.");
+			}
+			++i;
+		}
+	}
+
+	/**
+	 * @param epochDay Day worked, as days since the epoch.
+	 * @param payRate  Pay rate the day was worked at.
+	 * @return Pay rate in effect on the given day by this schedule.
+	 */
+	public double rateOn(long epochDay, double payRate) {
+		int index = Arrays.binarySearch(epochDays, epochDay);
+		if (index < 0) {
+			// the entry in effect is the one before the insertion point
+			index = -index - 2;
+		}
+		if (index < 0) {
+			return payRate;
+		}
+		return relative[index] ? payRate + rates[index] : rates[index];
+	}
+
+	/**
+	 * @param shift {@link Shift} to pay.
+	 * @return Amount of money the {@linkplain Shift} would have earned by this schedule,
+	 * for the same hours as {@link Shift#calcPay()}.
+	 */
+	public double calcPay(Shift shift) {
+		return shift.calcTotalHours() * rateOn(shift.getEpochDay(), shift.getPayRate());
+	}
+
+	/**
+	 * @return True iff the schedule has no entries, and changes no pay rate.
+	 */
+	public boolean isEmpty() {
+		return epochDays.length == 0;
+	}
+}
@@ -0,0 +1,599 @@
+package tracker.snapshot;
+
+import tracker.PayPeriod;
+import tracker.archive.FileStamp;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.PayPeriodStore;
+import tracker.archive.SegmentFile;
+import tracker.tenant.TenantSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed store of snapshots of a directory of {@link PayPeriod} files.
+ * <p>
+ * The contents of every file are stored once, as an object named by their SHA-256 hash, however many files or snapshots
+ * hold them. A snapshot is a manifest of the hash and size of every file in the directory at the time it was taken:
+ * the {@linkplain PayPeriod} JSON files, the segments and the settings of the tenant. Snapshots are named by the time
+ * they were taken, in UTC, so they sort in the order they were taken.
+ * <p>
+ * An index of the {@link FileStamp} and hash of every file at the last snapshot is kept, so only files whose stamp
+ * changed are hashed again, in parallel, and a snapshot takes time in proportion to what changed. Restores copy only
+ * the files that differ from the snapshot, and check the hash of every object they copy.
+ * <p>
+ * Layout of the store:
+ * <pre>
+ * objects/ab/cdef...                        contents of a file, named by their hash
+ * snapshots/YYYYMMDDTHHMMSSmmmZ.properties  manifest of a snapshot: file name = hash:size
+ * index.properties                          stamp and hash of every file at the last snapshot: file name = hash stamp
+ * </pre>
+ */
+public class SnapshotStore {
+	/** Name of the directory of objects in the store. */
+	public static final String OBJECTS = "objects";
+	/** Name of the directory of manifests in the store. */
+	public static final String SNAPSHOTS = "snapshots";
+	/** Name of the index of the files at the last snapshot in the store. */
+	public static final String INDEX = "index.properties";
+	/** Extension of a manifest. */
+	private static final String MANIFEST_EXTENSION = ".properties";
+	/** Key of the index holding the directory it describes, which cannot be the name of a file. */
+	private static final String SOURCE_KEY = ".";
+	/** Extension of a temporary file, renamed over its target once written. */
+	private static final String TEMP = ".tmp";
+	/** Algorithm hashing the contents of files. */
+	private static final String ALGORITHM = "SHA-256";
+	/** Format of the name of a snapshot, sorting in the order snapshots were taken. */
+	private static final DateTimeFormatter ID_FORMAT =
+		DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+	/**
+	 * A file in a snapshot.
+	 *
+	 * @param hash Hash of the contents of the file, naming its object.
+	 * @param size Size of the file, in bytes.
+	 */
+	public record Entry(String hash, long size) {
+		/**
+		 * @param entry Entry written by {@link #toString()}.
+		 * @return Parsed entry.
+		 * @throws IllegalArgumentException If the entry is invalid.
+		 */
+		private static Entry parse(String entry) {
+			int colon = entry.indexOf(':');
+			if (colon < 0) {
+				throw new IllegalArgumentException("Invalid snapshot entry " + entry + ".");
+			}
+			return new Entry(entry.substring(0, colon), Long.parseLong(entry.substring(colon + 1)));
+		}
+
+		/**
+		 * @return Entry as <code>hash:size</code>, parsed by {@link #parse(String)}.
+		 */
+		@Override
+		public String toString() {
+			return hash + ":" + size;
+		}
+	}
+
+	/**
+	 * Result of taking a snapshot.
+	 *
+	 * @param id         Name of the snapshot.
+	 * @param files      Number of files in the snapshot.
+	 * @param hashed     Number of files hashed, as their stamp changed since the last snapshot.
+	 * @param added      Number of objects added to the store.
+	 * @param bytesAdded Number of bytes of the objects added to the store.
+	 */
+	public record Result(String id, int files, int hashed, int added, long bytesAdded) {
+	}
+
+	/**
+	 * Summary of a snapshot in the store.
+	 *
+	 * @param id    Name of the snapshot.
+	 * @param files Number of files in the snapshot.
+	 * @param bytes Total size of the files in the snapshot, in bytes.
+	 */
+	public record Info(String id, int files, long bytes) {
+	}
+
+	/**
+	 * Result of restoring a snapshot.
+	 *
+	 * @param id        Name of the snapshot restored.
+	 * @param restored  Number of files copied from the store.
+	 * @param unchanged Number of files already matching the snapshot.
+	 * @param deleted   Names of the files deleted, as they are not in the snapshot, sorted.
+	 */
+	public record RestoreResult(String id, int restored, int unchanged, List<String> deleted) {
+	}
+
+	/**
+	 * Outcome of snapshotting or restoring a single file.
+	 *
+	 * @param name    Name of the file.
+	 * @param entry   Hash and size of the file.
+	 * @param stamp   Stamp of the file, taken before it was read or after it was written.
+	 * @param changed Was the file hashed, or restored?
+	 * @param added   Number of bytes added to the store, 0 if its object was already stored.
+	 */
+	private record Outcome(String name, Entry entry, FileStamp stamp, boolean changed, long added) {
+	}
+
+	/**
+	 * A file to snapshot or restore.
+	 */
+	private interface Task {
+		/**
+		 * @return Outcome of snapshotting or restoring the file.
+		 * @throws IOException If an error is encountered when reading or writing the file.
+		 */
+		Outcome run() throws IOException;
+	}
+
+	/** Root directory of the store. */
+	private final Path root;
+
+	/**
+	 * Create a new {@link SnapshotStore} in the given directory, which is created by the first snapshot.
+	 *
+	 * @param root Root directory of the store.
+	 */
+	public SnapshotStore(Path root) {
+		this.root = root;
+	}
+
+	/**
+	 * @param directory Directory of {@link PayPeriod} files.
+	 * @return List of the files a snapshot of the directory holds: {@linkplain PayPeriod} JSON files, segments, and
+	 * the settings of the tenant, sorted.
+	 * @throws IOException If an error is encountered when listing the directory.
+	 */
+	public static List<Path> tracked(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths
+				.filter(path -> {
+					String name = path.getFileName().toString();
+					return PayPeriodFiles.isPayPeriodName(name) || name.endsWith(SegmentFile.EXTENSION)
+						|| name.equals(TenantSettings.FILE);
+				})
+				.filter(Files::isRegularFile)
+				.sorted()
+				.toList();
+		}
+	}
+
+	/**
+	 * Take a snapshot of the given directory, hashing only the files whose stamp changed since the last snapshot,
+	 * and storing the contents of those not already in the store.
+	 *
+	 * @param directory Directory of {@link PayPeriod} files.
+	 * @return Result of the snapshot.
+	 * @throws IOException If an error is encountered when reading the directory or writing the store.
+	 */
+	public Result snapshot(Path directory) throws IOException {
+		Files.createDirectories(root.resolve(OBJECTS));
+		Files.createDirectories(root.resolve(SNAPSHOTS));
+		Properties index = loadIndex(directory);
+
+		List<Task> tasks = new ArrayList<>();
+		for (Path file : tracked(directory)) {
+			String name = file.getFileName().toString();
+			String indexed = index.getProperty(name);
+			tasks.add(() -> {
+				FileStamp stamp = FileStamp.of(file);
+				String hash = indexedHash(indexed, stamp);
+				if (hash != null) {
+					return new Outcome(name, new Entry(hash, stamp.size()), stamp, false, 0);
+				}
+				return store(name, file, stamp);
+			});
+		}
+		List<Outcome> outcomes = runAll(tasks);
+
+		Properties manifest = new Properties();
+		Properties newIndex = new Properties();
+		newIndex.setProperty(SOURCE_KEY, sourceOf(directory));
+		int hashed = 0;
+		int added = 0;
+		long bytesAdded = 0;
+		for (Outcome outcome : outcomes) {
+			manifest.setProperty(outcome.name(), outcome.entry().toString());
+			newIndex.setProperty(outcome.name(), outcome.entry().hash() + " " + outcome.stamp());
+			if (outcome.changed()) {
+				++hashed;
+			}
+			if (outcome.added() > 0) {
+				++added;
+				bytesAdded += outcome.added();
+			}
+		}
+
+		String id = newId();
+		write(manifestOf(id), manifest, "Snapshot of " + directory.toAbsolutePath().normalize());
+		write(root.resolve(INDEX), newIndex, "Files at the last snapshot");
+		return new Result(id, outcomes.size(), hashed, added, bytesAdded);
+	}
+
+	/**
+	 * @return Summary of every snapshot in the store, in the order they were taken.
+	 * @throws IOException If an error is encountered when reading the store.
+	 */
+	public List<Info> list() throws IOException {
+		List<Info> infos = new ArrayList<>();
+		for (String id : ids()) {
+			long bytes = 0;
+			Map<String, Entry> manifest = manifest(id);
+			for (Entry entry : manifest.values()) {
+				bytes += entry.size();
+			}
+			infos.add(new Info(id, manifest.size(), bytes));
+		}
+		return infos;
+	}
+
+	/**
+	 * Find the snapshot of the given point in time: the last snapshot taken at or before it.
+	 *
+	 * @param point <code>latest</code>, the name of a snapshot, or a prefix of the name of a snapshot, such as
+	 *              <code>20240115</code> or <code>2024-01-15</code> for the end of the 15th of January 2024, in UTC.
+	 * @return Name of the last snapshot at or before the given point in time, or null if there is none.
+	 * @throws IOException If an error is encountered when reading the store.
+	 */
+	public String resolve(String point) throws IOException {
+		NavigableSet<String> ids = ids();
+		if (point.equalsIgnoreCase("latest")) {
+			return ids.isEmpty() ? null : ids.last();
+		}
+		// '~' sorts after every character of a name, so the prefix matches every snapshot it starts
+		return ids.floor(point.replaceAll("[-:]", "").toUpperCase(Locale.ROOT) + "~");
+	}
+
+	/**
+	 * @param id Name of a snapshot.
+	 * @return Hash and size of every file in the snapshot, by name, sorted.
+	 * @throws IOException If an error is encountered when reading the manifest of the snapshot.
+	 */
+	public SortedMap<String, Entry> manifest(String id) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(manifestOf(id))) {
+			properties.load(in);
+		}
+		SortedMap<String, Entry> manifest = new TreeMap<>();
+		for (String name : properties.stringPropertyNames()) {
+			try {
+				manifest.put(name, Entry.parse(properties.getProperty(name)));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Invalid manifest of snapshot " + id + ": " + e.getMessage(), e);
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * Restore the given snapshot into the given directory, creating it if needed. Only files that differ from the
+	 * snapshot are copied, in parallel, each replacing its file at once, and files the snapshot does not hold are deleted.
+	 * A half-applied transaction in the directory is rolled back first, and every {@link PayPeriod} JSON file is checked
+	 * and replaced or deleted under the lock its writers take, so a concurrent write is either overwritten
+	 * or sees the restored file as changed.
+	 *
+	 * @param id        Name of the snapshot.
+	 * @param directory Directory to restore the snapshot into.
+	 * @return Result of the restore.
+	 * @throws IOException If an error is encountered when reading the store or writing the directory,
+	 *                     or an object does not match its hash.
+	 */
+	public RestoreResult restore(String id, Path directory) throws IOException {
+		SortedMap<String, Entry> manifest = manifest(id);
+		Files.createDirectories(directory);
+		PayPeriodStore.recover(directory);
+		Properties index = loadIndex(directory);
+		String indexedSource = readIndex().getProperty(SOURCE_KEY);
+
+		List<Task> tasks = new ArrayList<>();
+		for (Map.Entry<String, Entry> file : manifest.entrySet()) {
+			String name = file.getKey();
+			Entry entry = file.getValue();
+			String indexed = index.getProperty(name);
+			tasks.add(() -> {
+				Path target = directory.resolve(name);
+				try (Closeable lock = lockOf(target)) {
+					if (indexed != null && Files.isRegularFile(target)) {
+						FileStamp stamp = FileStamp.of(target);
+						if (entry.hash().equals(indexedHash(indexed, stamp))) {
+							return new Outcome(name, entry, stamp, false, 0);
+						}
+					}
+					copyObject(entry.hash(), target);
+					return new Outcome(name, entry, FileStamp.of(target), true, 0);
+				}
+			});
+		}
+		List<Outcome> outcomes = runAll(tasks);
+
+		List<String> deleted = new ArrayList<>();
+		for (Path file : tracked(directory)) {
+			String name = file.getFileName().toString();
+			if (!manifest.containsKey(name)) {
+				try (Closeable lock = lockOf(file)) {
+					Files.deleteIfExists(file);
+				}
+				deleted.add(name);
+			}
+		}
+
+		if (indexedSource != null && !indexedSource.equals(sourceOf(directory))) {
+			// keep the index of the directory snapshots are taken of
+			return new RestoreResult(id, restored(outcomes), outcomes.size() - restored(outcomes), List.copyOf(deleted));
+		}
+		// the directory now holds the snapshot, so the next snapshot only hashes files changed after the restore
+		Properties newIndex = new Properties();
+		newIndex.setProperty(SOURCE_KEY, sourceOf(directory));
+		for (Outcome outcome : outcomes) {
+			newIndex.setProperty(outcome.name(), outcome.entry().hash() + " " + outcome.stamp());
+		}
+		write(root.resolve(INDEX), newIndex, "Files at the last snapshot");
+		return new RestoreResult(id, restored(outcomes), outcomes.size() - restored(outcomes), List.copyOf(deleted));
+	}
+
+	/**
+	 * @param outcomes Outcomes of restoring files.
+	 * @return Number of files copied from the store.
+	 */
+	private static int restored(List<Outcome> outcomes) {
+		return (int) outcomes.stream().filter(Outcome::changed).count();
+	}
+
+	/**
+	 * Hash a file while copying it into the store, then keep the copy as its object unless the object already exists.
+	 *
+	 * @param name  Name of the file.
+	 * @param file  File to store.
+	 * @param stamp Stamp of the file, taken before it is read.
+	 * @return Outcome of storing the file.
+	 * @throws IOException If an error is encountered when reading the file or writing the store.
+	 */
+	private Outcome store(String name, Path file, FileStamp stamp) throws IOException {
+		Path temp = Files.createTempFile(root.resolve(OBJECTS), "object", TEMP);
+		try {
+			MessageDigest digest = newDigest();
+			long size;
+			try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+				size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			String hash = HexFormat.of().formatHex(digest.digest());
+			Path object = objectOf(hash);
+			if (Files.isRegularFile(object)) {
+				return new Outcome(name, new Entry(hash, size), stamp, true, 0);
+			}
+			Files.createDirectories(object.getParent());
+			try {
+				Files.move(temp, object);
+			} catch (FileAlreadyExistsException e) {
+				// stored by another file with the same contents
+				return new Outcome(name, new Entry(hash, size), stamp, true, 0);
+			}
+			return new Outcome(name, new Entry(hash, size), stamp, true, size);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Copy an object from the store over the given file at once, checking the contents against the hash of the object.
+	 *
+	 * @param hash   Hash of the object.
+	 * @param target File to replace.
+	 * @throws IOException If an error is encountered when reading the object or writing the file,
+	 *                     or the object does not match its hash.
+	 */
+	private void copyObject(String hash, Path target) throws IOException {
+		// a name of its own, as a copy made with Files.createTempFile would only be readable by its owner
+		Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TEMP);
+		try {
+			MessageDigest digest = newDigest();
+			try (InputStream in = new DigestInputStream(Files.newInputStream(objectOf(hash)), digest);
+			     OutputStream out = Files.newOutputStream(temp)) {
+				in.transferTo(out);
+			}
+			if (!HexFormat.of().formatHex(digest.digest()).equals(hash)) {
+				throw new IOException("Object " + hash + " in the snapshot store does not match its hash.");
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * @param file File of the directory being restored.
+	 * @return Lock taken by the writers of the file if it is a {@link PayPeriod} JSON file, to be closed by the caller,
+	 * or null for other files, which no writer locks.
+	 * @throws IOException If an error is encountered when locking the file.
+	 */
+	private static Closeable lockOf(Path file) throws IOException {
+		return PayPeriodFiles.isPayPeriodName(file.getFileName().toString()) ? PayPeriodStore.lock(file) : null;
+	}
+
+	/**
+	 * Run every task in parallel.
+	 *
+	 * @param tasks Tasks to run.
+	 * @return Outcome of every task, in the order of the tasks.
+	 * @throws IOException If an error is encountered by a task.
+	 */
+	private static List<Outcome> runAll(List<Task> tasks) throws IOException {
+		try {
+			return tasks.parallelStream()
+				.map(task -> {
+					try {
+						return task.run();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.toList();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * @param indexed Entry of a file in the index, <code>hash stamp</code>, may be null.
+	 * @param stamp   Current stamp of the file.
+	 * @return Hash of the file in the index, or null if the file is not indexed, or changed since it was.
+	 */
+	private static String indexedHash(String indexed, FileStamp stamp) {
+		if (indexed == null) {
+			return null;
+		}
+		String[] fields = indexed.split(" ", 2);
+		try {
+			return (fields.length == 2 && FileStamp.parse(fields[1]).equals(stamp)) ? fields[0] : null;
+		} catch (IllegalArgumentException e) {
+			// an invalid entry is hashed again
+			return null;
+		}
+	}
+
+	/**
+	 * @param directory Directory of {@link PayPeriod} files.
+	 * @return Index of the files at the last snapshot, empty if there is none or it describes another directory.
+	 * @throws IOException If an error is encountered when reading the index.
+	 */
+	private Properties loadIndex(Path directory) throws IOException {
+		Properties index = readIndex();
+		if (!sourceOf(directory).equals(index.getProperty(SOURCE_KEY))) {
+			index.clear();
+		}
+		return index;
+	}
+
+	/**
+	 * @return Index of the files at the last snapshot, empty if there is none.
+	 * @throws IOException If an error is encountered when reading the index.
+	 */
+	private Properties readIndex() throws IOException {
+		Properties index = new Properties();
+		Path indexPath = root.resolve(INDEX);
+		if (Files.isRegularFile(indexPath)) {
+			try (InputStream in = Files.newInputStream(indexPath)) {
+				index.load(in);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return Names of every snapshot in the store, sorted in the order they were taken.
+	 * @throws IOException If an error is encountered when listing the store.
+	 */
+	private NavigableSet<String> ids() throws IOException {
+		NavigableSet<String> ids = new TreeSet<>();
+		Path snapshots = root.resolve(SNAPSHOTS);
+		if (!Files.isDirectory(snapshots)) {
+			return ids;
+		}
+		try (Stream<Path> paths = Files.list(snapshots)) {
+			paths.map(path -> path.getFileName().toString())
+				.filter(name -> name.endsWith(MANIFEST_EXTENSION))
+				.forEach(name -> ids.add(name.substring(0, name.length() - MANIFEST_EXTENSION.length())));
+		}
+		return ids;
+	}
+
+	/**
+	 * @return Name for a new snapshot, from the current time, after the name of every snapshot in the store.
+	 * @throws IOException If an error is encountered when listing the store.
+	 */
+	private String newId() throws IOException {
+		NavigableSet<String> ids = ids();
+		Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		String id = ID_FORMAT.format(now);
+		while (!ids.isEmpty() && id.compareTo(ids.last()) <= 0) {
+			now = now.plusMillis(1);
+			id = ID_FORMAT.format(now);
+		}
+		return id;
+	}
+
+	/**
+	 * @param id Name of a snapshot.
+	 * @return Path to the manifest of the snapshot.
+	 */
+	private Path manifestOf(String id) {
+		return root.resolve(SNAPSHOTS).resolve(id + MANIFEST_EXTENSION);
+	}
+
+	/**
+	 * @param hash Hash of the contents of a file.
+	 * @return Path to the object of the contents, under a directory named by the first two characters of the hash.
+	 */
+	private Path objectOf(String hash) {
+		return root.resolve(OBJECTS).resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+	}
+
+	/**
+	 * @param directory Directory of {@link PayPeriod} files.
+	 * @return Absolute path of the directory, as recorded in the index.
+	 */
+	private static String sourceOf(Path directory) {
+		return directory.toAbsolutePath().normalize().toString();
+	}
+
+	/**
+	 * Write the given properties to a temporary file, then rename it over the given file.
+	 *
+	 * @param path       File to write.
+	 * @param properties Properties to write.
+	 * @param comment    Comment at the head of the file.
+	 * @throws IOException If an error is encountered when writing the file.
+	 */
+	private static void write(Path path, Properties properties, String comment) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + TEMP);
+		try (OutputStream out = Files.newOutputStream(temp)) {
+			properties.store(out, comment);
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return New digest of the hashing algorithm.
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
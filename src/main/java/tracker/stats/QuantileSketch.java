@@ -0,0 +1,253 @@
+package tracker.stats;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch estimating the quantiles of a stream of values in constant memory, in the manner of a merging t-digest.
+ * <p>
+ * Values are buffered, then merged into a sorted list of centroids, each holding the mean and weight of a run of values.
+ * Centroids near the median may hold many values, while centroids near either tail hold few,
+ * so quantiles near the tails stay accurate. The number of centroids is bounded by the compression of the sketch.
+ * <p>
+ * Two sketches of parts of a stream merge into the sketch of the whole stream, so parts can be sketched in parallel.
+ */
+public class QuantileSketch {
+	/** Default compression, bounding the number of centroids to about this many. */
+	public static final int DEFAULT_COMPRESSION = 100;
+
+	/** Compression of the sketch. */
+	private final double compression;
+	/** Means of the centroids, sorted. */
+	private double[] means;
+	/** Weights of the centroids, at the same index as their mean. */
+	private double[] weights;
+	/** Number of centroids. */
+	private int centroids = 0;
+	/** Values and weights added since the centroids were last merged. */
+	private final double[] bufferMeans;
+	/** Weights of the buffered values, at the same index as the value. */
+	private final double[] bufferWeights;
+	/** Number of buffered values. */
+	private int buffered = 0;
+	/** Total weight of the centroids and buffered values. */
+	private double count = 0;
+	/** Smallest value added. */
+	private double min = Double.POSITIVE_INFINITY;
+	/** Largest value added. */
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Create a new, empty {@link QuantileSketch} with the {@linkplain #DEFAULT_COMPRESSION default compression}.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Create a new, empty {@link QuantileSketch}.
+	 *
+	 * @param compression Compression of the sketch, higher is more accurate and uses more memory.
+	 */
+	public QuantileSketch(int compression) {
+		this.compression = Math.max(10, compression);
+		int capacity = (int) Math.ceil(this.compression) * 2;
+		this.means = new double[capacity];
+		this.weights = new double[capacity];
+		this.bufferMeans = new double[capacity * 4];
+		this.bufferWeights = new double[capacity * 4];
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 *
+	 * @param value Value to add.
+	 */
+	public void add(double value) {
+		add(value, 1);
+	}
+
+	/**
+	 * Add a value of the given weight to the sketch.
+	 *
+	 * @param value  Value to add.
+	 * @param weight Weight of the value.
+	 */
+	private void add(double value, double weight) {
+		if (buffered == bufferMeans.length) {
+			compress();
+		}
+		bufferMeans[buffered] = value;
+		bufferWeights[buffered] = weight;
+		++buffered;
+		count += weight;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Merge the given sketch into this sketch.
+	 *
+	 * @param other Sketch to merge, left unchanged.
+	 * @return This sketch.
+	 */
+	public QuantileSketch merge(QuantileSketch other) {
+		for (int i = 0; i < other.centroids; ++i) {
+			add(other.means[i], other.weights[i]);
+		}
+		for (int i = 0; i < other.buffered; ++i) {
+			add(other.bufferMeans[i], other.bufferWeights[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Merge the buffered values into the centroids, keeping the number of centroids bounded.
+	 */
+	private void compress() {
+		if (buffered == 0) {
+			return;
+		}
+		int n = centroids + buffered;
+		double[] allMeans = Arrays.copyOf(means, n);
+		double[] allWeights = Arrays.copyOf(weights, n);
+		System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+		System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+		sort(allMeans, allWeights);
+
+		double[] mergedMeans = new double[means.length];
+		double[] mergedWeights = new double[weights.length];
+		int merged = 0;
+		double soFar = 0;
+		double limit = count * maxQuantile(0);
+		double mean = allMeans[0];
+		double weight = allWeights[0];
+		for (int i = 1; i < n; ++i) {
+			if (soFar + weight + allWeights[i] <= limit) {
+				// weighted running mean of the centroid
+				weight += allWeights[i];
+				mean += (allMeans[i] - mean) * allWeights[i] / weight;
+			} else {
+				if (merged == mergedMeans.length) {
+					mergedMeans = Arrays.copyOf(mergedMeans, merged * 2);
+					mergedWeights = Arrays.copyOf(mergedWeights, merged * 2);
+				}
+				mergedMeans[merged] = mean;
+				mergedWeights[merged] = weight;
+				++merged;
+				soFar += weight;
+				limit = count * maxQuantile(soFar / count);
+				mean = allMeans[i];
+				weight = allWeights[i];
+			}
+		}
+		if (merged == mergedMeans.length) {
+			mergedMeans = Arrays.copyOf(mergedMeans, merged + 1);
+			mergedWeights = Arrays.copyOf(mergedWeights, merged + 1);
+		}
+		mergedMeans[merged] = mean;
+		mergedWeights[merged] = weight;
+		++merged;
+
+		means = mergedMeans;
+		weights = mergedWeights;
+		centroids = merged;
+		buffered = 0;
+	}
+
+	/**
+	 * Scale function of the sketch, limiting a centroid starting at the given quantile
+	 * to span at most one unit of <code>compression / 2&pi; &middot; asin(2q - 1)</code>.
+	 *
+	 * @param quantile Quantile at which a centroid starts.
+	 * @return Highest quantile the centroid may reach.
+	 */
+	private double maxQuantile(double quantile) {
+		double k = Math.asin(2 * Math.min(1, quantile) - 1) + 2 * Math.PI / compression;
+		return (k >= Math.PI / 2) ? 1 : (Math.sin(k) + 1) / 2;
+	}
+
+	/**
+	 * Sort the given means in place, moving their weights along with them.
+	 *
+	 * @param means   Means to sort.
+	 * @param weights Weights at the same index as their mean.
+	 */
+	private static void sort(double[] means, double[] weights) {
+		Integer[] order = new Integer[means.length];
+		for (int i = 0; i < order.length; ++i) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(means[a], means[b]));
+		double[] sortedMeans = new double[means.length];
+		double[] sortedWeights = new double[weights.length];
+		for (int i = 0; i < order.length; ++i) {
+			sortedMeans[i] = means[order[i]];
+			sortedWeights[i] = weights[order[i]];
+		}
+		System.arraycopy(sortedMeans, 0, means, 0, means.length);
+		System.arraycopy(sortedWeights, 0, weights, 0, weights.length);
+	}
+
+	/**
+	 * Estimate the value at the given quantile of every value added,
+	 * interpolating linearly between the centers of the centroids on either side of it.
+	 *
+	 * @param quantile Quantile between 0 and 1.
+	 * @return Estimated value at the quantile, or NaN if the sketch is empty.
+	 */
+	public double quantile(double quantile) {
+		compress();
+		if (centroids == 0) {
+			return Double.NaN;
+		}
+		double target = Math.max(0, Math.min(1, quantile)) * count;
+
+		// the smallest and largest values sit at either end, before the center of the first and after the last centroid
+		double previousCenter = 0;
+		double previousMean = min;
+		double soFar = 0;
+		for (int i = 0; i < centroids; ++i) {
+			double center = soFar + weights[i] / 2;
+			if (target <= center) {
+				return interpolate(target, previousCenter, previousMean, center, means[i]);
+			}
+			soFar += weights[i];
+			previousCenter = center;
+			previousMean = means[i];
+		}
+		return interpolate(target, previousCenter, previousMean, count, max);
+	}
+
+	/**
+	 * @param x  Point to interpolate at.
+	 * @param x0 First point on the x axis.
+	 * @param y0 Value at the first point.
+	 * @param x1 Second point on the x axis.
+	 * @param y1 Value at the second point.
+	 * @return Linear interpolation at <code>x</code> between the points <code>(x0, y0)</code> and <code>(x1, y1)</code>.
+	 */
+	private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+		return (x1 <= x0) ? y1 : y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+	}
+
+	/**
+	 * @return Number of values added.
+	 */
+	public long getCount() {
+		return Math.round(count);
+	}
+
+	/**
+	 * @return Smallest value added, or NaN if the sketch is empty.
+	 */
+	public double getMin() {
+		return (count == 0) ? Double.NaN : min;
+	}
+
+	/**
+	 * @return Largest value added, or NaN if the sketch is empty.
+	 */
+	public double getMax() {
+		return (count == 0) ? Double.NaN : max;
+	}
+}
@@ -0,0 +1,123 @@
+package tracker.stats;
+
+import tracker.Shift;
+
+import java.time.DayOfWeek;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Distribution statistics of a stream of {@link Shift Shifts}, in memory that does not grow with the stream:
+ * quantiles of the length of a shift, the longest shifts, the shifts and hours worked by day of the week,
+ * and a histogram of the hour clocked in.
+ * <p>
+ * Statistics of parts of a stream merge into the statistics of the whole stream.
+ */
+public class ShiftStats {
+	/** Number of hours in a day, and of buckets in the histogram of clock in times. */
+	public static final int HOURS = 24;
+
+	/** Order of {@link Shift Shifts} by length, then by date and time. */
+	private static final Comparator<Shift> BY_LENGTH =
+		Comparator.comparingInt((Shift shift) -> shift.getOutMinute() - shift.getInMinute()).thenComparing(Comparator.naturalOrder());
+
+	/** Quantiles of the length of a shift, in hours. */
+	private final QuantileSketch lengths = new QuantileSketch();
+	/** Longest shifts. */
+	private final TopK<Shift> longest;
+	/** Number of shifts worked by day of the week, indexed by {@link DayOfWeek#ordinal()}. */
+	private final long[] weekdayShifts = new long[DayOfWeek.values().length];
+	/** Number of hours worked by day of the week, indexed by {@link DayOfWeek#ordinal()}. */
+	private final double[] weekdayHours = new double[DayOfWeek.values().length];
+	/** Number of shifts clocked in by hour of the day. */
+	private final long[] clockIns = new long[HOURS];
+
+	/**
+	 * Create new, empty {@link ShiftStats}.
+	 *
+	 * @param k Number of longest {@link Shift Shifts} to keep.
+	 */
+	public ShiftStats(int k) {
+		this.longest = new TopK<>(k, BY_LENGTH);
+	}
+
+	/**
+	 * Add a {@link Shift} to these statistics.
+	 *
+	 * @param shift {@linkplain Shift} to add.
+	 */
+	public void add(Shift shift) {
+		double hours = shift.calcTotalHours();
+		lengths.add(hours);
+		longest.offer(shift);
+		// the epoch, 1970-01-01, was a Thursday
+		int weekday = Math.floorMod(shift.getEpochDay() + 3, 7);
+		++weekdayShifts[weekday];
+		weekdayHours[weekday] += hours;
+		++clockIns[shift.getInMinute() / 60];
+	}
+
+	/**
+	 * Merge the given statistics into these statistics.
+	 *
+	 * @param other Statistics to merge, left unchanged.
+	 * @return These statistics.
+	 */
+	public ShiftStats merge(ShiftStats other) {
+		lengths.merge(other.lengths);
+		longest.merge(other.longest);
+		for (int i = 0; i < weekdayShifts.length; ++i) {
+			weekdayShifts[i] += other.weekdayShifts[i];
+			weekdayHours[i] += other.weekdayHours[i];
+		}
+		for (int i = 0; i < HOURS; ++i) {
+			clockIns[i] += other.clockIns[i];
+		}
+		return this;
+	}
+
+	/**
+	 * @return Number of {@link Shift Shifts} added.
+	 */
+	public long getCount() {
+		return lengths.getCount();
+	}
+
+	/**
+	 * @return Sketch of the quantiles of the length of a shift, in hours.
+	 */
+	public QuantileSketch getLengths() {
+		return lengths;
+	}
+
+	/**
+	 * @return List of the longest {@link Shift Shifts}, longest first.
+	 */
+	public List<Shift> getLongest() {
+		return longest.toList();
+	}
+
+	/**
+	 * @param weekday Day of the week.
+	 * @return Number of shifts worked on the given day of the week.
+	 */
+	public long getWeekdayShifts(DayOfWeek weekday) {
+		return weekdayShifts[weekday.ordinal()];
+	}
+
+	/**
+	 * @param weekday Day of the week.
+	 * @return Number of hours worked on the given day of the week.
+	 */
+	public double getWeekdayHours(DayOfWeek weekday) {
+		return weekdayHours[weekday.ordinal()];
+	}
+
+	/**
+	 * @param hour Hour of the day, from 0 to 23.
+	 * @return Number of shifts clocked in during the given hour of the day.
+	 */
+	public long getClockIns(int hour) {
+		return clockIns[hour];
+	}
+}
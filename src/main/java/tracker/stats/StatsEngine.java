@@ -0,0 +1,118 @@
+package tracker.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.SegmentFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to compute the {@link ShiftStats} of every {@link Shift} in an {@link Archive} in a single pass.
+ * <p>
+ * Every JSON file and segment is added in parallel to its own partial statistics, which are merged at the end.
+ * A segment is read one entry at a time, so memory does not grow with the size of the archive.
+ */
+public class StatsEngine {
+	/**
+	 * Part of the archive to compute statistics of.
+	 */
+	private interface Task {
+		/**
+		 * @return Statistics of this part of the archive.
+		 * @throws IOException If an error is encountered when reading this part of the archive.
+		 */
+		ShiftStats run() throws IOException;
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Archive to compute statistics of. */
+	private final Archive archive;
+	/** Number of longest {@link Shift Shifts} to keep. */
+	private final int k;
+
+	/**
+	 * Create a new {@link StatsEngine} over the given archive.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param archive      Archive to compute statistics of.
+	 * @param k            Number of longest {@link Shift Shifts} to keep.
+	 */
+	public StatsEngine(ObjectMapper objectMapper, Archive archive, int k) {
+		this.objectMapper = objectMapper;
+		this.archive = archive;
+		this.k = k;
+	}
+
+	/**
+	 * Compute the statistics of every {@link Shift} in the archive.
+	 *
+	 * @return Statistics of every {@linkplain Shift}.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	public ShiftStats run() throws IOException {
+		List<Task> tasks = new ArrayList<>();
+		for (Path file : PayPeriodFiles.list(archive.getDirectory())) {
+			tasks.add(() -> add(new ShiftStats(k), PayPeriodFiles.read(objectMapper, file)));
+		}
+		for (Path segment : archive.segments()) {
+			tasks.add(() -> addSegment(segment));
+		}
+
+		try {
+			return tasks.parallelStream()
+				.map(task -> {
+					try {
+						return task.run();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.reduce(ShiftStats::merge)
+				.orElseGet(() -> new ShiftStats(k));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Compute the statistics of the entries of a segment file, leaving out entries replaced by a JSON file.
+	 *
+	 * @param segmentPath Segment file.
+	 * @return Statistics of the segment.
+	 * @throws IOException If an error is encountered when reading the segment.
+	 */
+	private ShiftStats addSegment(Path segmentPath) throws IOException {
+		ShiftStats stats = new ShiftStats(k);
+		try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+			for (LocalDate start : segment.getStarts()) {
+				if (archive.findFile(start) == null) {
+					add(stats, objectMapper.readValue(segment.read(start), PayPeriod.class));
+				}
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * Add the {@link Shift Shifts} of the given {@link PayPeriod} to the given statistics.
+	 *
+	 * @param stats     Statistics to add to.
+	 * @param payPeriod {@linkplain PayPeriod} to add.
+	 * @return The given statistics.
+	 */
+	private static ShiftStats add(ShiftStats stats, PayPeriod payPeriod) {
+		for (Shift shift : payPeriod.getShifts()) {
+			stats.add(shift);
+		}
+		return stats;
+	}
+}
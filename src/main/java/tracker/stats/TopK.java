@@ -0,0 +1,70 @@
+package tracker.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Mergeable sketch keeping the greatest elements of a stream, in a min-heap bounded to a fixed size.
+ * <p>
+ * Two sketches of parts of a stream merge into the sketch of the whole stream, so parts can be sketched in parallel.
+ *
+ * @param <T> Type of the elements.
+ */
+public class TopK<T> {
+	/** Number of elements to keep. */
+	private final int k;
+	/** Order of the elements. */
+	private final Comparator<? super T> order;
+	/** Greatest elements offered, with the least of them at the head. */
+	private final PriorityQueue<T> heap;
+
+	/**
+	 * Create a new, empty {@link TopK}.
+	 *
+	 * @param k     Number of elements to keep.
+	 * @param order Order of the elements.
+	 */
+	public TopK(int k, Comparator<? super T> order) {
+		this.k = Math.max(0, k);
+		this.order = order;
+		this.heap = new PriorityQueue<>(this.k + 1, order);
+	}
+
+	/**
+	 * Offer an element, kept only if it is among the greatest elements offered.
+	 *
+	 * @param element Element to offer.
+	 */
+	public void offer(T element) {
+		if (heap.size() < k) {
+			heap.add(element);
+		} else if (k > 0 && order.compare(element, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(element);
+		}
+	}
+
+	/**
+	 * Merge the given sketch into this sketch.
+	 *
+	 * @param other Sketch to merge, left unchanged.
+	 * @return This sketch.
+	 */
+	public TopK<T> merge(TopK<T> other) {
+		for (T element : other.heap) {
+			offer(element);
+		}
+		return this;
+	}
+
+	/**
+	 * @return List of the greatest elements offered, greatest first.
+	 */
+	public List<T> toList() {
+		List<T> elements = new ArrayList<>(heap);
+		elements.sort(order.reversed());
+		return elements;
+	}
+}
@@ -0,0 +1,40 @@
+package tracker.tenant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Shard of a multi-tenant archive: the directory of {@link tracker.PayPeriod PayPeriods} of one employee,
+ * a subdirectory of the root directory of the archive named after the employee, and the settings of the employee.
+ *
+ * @param name      Name of the tenant, the name of its directory.
+ * @param directory Directory of the {@linkplain tracker.PayPeriod PayPeriods} of the tenant.
+ * @param settings  Settings of the tenant.
+ */
+public record Tenant(String name, Path directory, TenantSettings settings) {
+	/**
+	 * Read every tenant of a sharded archive, one for every subdirectory of its root directory.
+	 *
+	 * @param root Root directory of the archive.
+	 * @return List of the tenants, sorted by name.
+	 * @throws IOException If an error is encountered when listing the root directory or reading the settings of a tenant.
+	 */
+	public static List<Tenant> list(Path root) throws IOException {
+		List<Path> directories;
+		try (Stream<Path> paths = Files.list(root)) {
+			directories = paths.filter(Files::isDirectory)
+				.filter(path -> !path.getFileName().toString().startsWith("."))
+				.sorted()
+				.toList();
+		}
+		List<Tenant> tenants = new ArrayList<>(directories.size());
+		for (Path directory : directories) {
+			tenants.add(new Tenant(directory.getFileName().toString(), directory, TenantSettings.load(directory)));
+		}
+		return tenants;
+	}
+}
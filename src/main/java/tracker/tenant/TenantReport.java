@@ -0,0 +1,91 @@
+package tracker.tenant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.archive.Archive;
+import tracker.archive.Totals;
+import tracker.query.GroupBy;
+import tracker.query.QueryEngine;
+import tracker.query.ShiftFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Class to query every {@link Tenant} of a sharded archive at once, each with its own {@link QueryEngine}.
+ * <p>
+ * Every tenant is queried as a task of a work-stealing {@link ForkJoinPool}. The parallel scan of the files of
+ * each tenant runs on the same pool, so idle workers steal files from tenants with the most history,
+ * and throughput scales with the number of workers rather than the number of tenants.
+ */
+public class TenantReport {
+	/**
+	 * Result of a report.
+	 *
+	 * @param tenants Result of the query of every tenant, by name of the tenant, sorted.
+	 * @param total   Totals of every selected {@link tracker.Shift Shift} of every tenant.
+	 */
+	public record Result(SortedMap<String, QueryEngine.Result> tenants, Totals total) {
+	}
+
+	/** Object mapper to use for deserialization of {@link tracker.PayPeriod PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Number of worker threads of the pool. */
+	private final int threads;
+
+	/**
+	 * Create a new {@link TenantReport}.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link tracker.PayPeriod PayPeriod} objects.
+	 * @param threads      Number of worker threads of the pool.
+	 */
+	public TenantReport(ObjectMapper objectMapper, int threads) {
+		this.objectMapper = objectMapper;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Query every given tenant with the given filter and group.
+	 *
+	 * @param tenants Tenants to query.
+	 * @param filter  Filter selecting the {@link tracker.Shift Shifts} to aggregate.
+	 * @param groupBy How to group the selected {@linkplain tracker.Shift Shifts}.
+	 * @return Result of the report.
+	 * @throws IOException If an error is encountered when reading the archive of a tenant.
+	 */
+	public Result run(List<Tenant> tenants, ShiftFilter filter, GroupBy groupBy) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<ForkJoinTask<QueryEngine.Result>> tasks = new ArrayList<>(tenants.size());
+			for (Tenant tenant : tenants) {
+				Archive archive = new Archive(objectMapper, tenant.directory());
+				tasks.add(pool.submit(() -> new QueryEngine(objectMapper, archive).run(filter, groupBy)));
+			}
+
+			SortedMap<String, QueryEngine.Result> results = new TreeMap<>();
+			Totals total = new Totals();
+			for (int i = 0; i < tenants.size(); ++i) {
+				QueryEngine.Result result = tasks.get(i).get();
+				results.put(tenants.get(i).name(), result);
+				total.add(result.total());
+			}
+			return new Result(Collections.unmodifiableSortedMap(results), total);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Report interrupted.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			throw new IOException("Error querying tenants.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
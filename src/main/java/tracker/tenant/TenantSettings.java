@@ -0,0 +1,101 @@
+package tracker.tenant;
+
+import tracker.LocationRegistry;
+import tracker.Shift;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Settings of a tenant of a sharded archive, the employee whose {@link tracker.PayPeriod PayPeriods}
+ * are stored in one directory: the locations they work at, their default pay rate, and the year their dates are in.
+ * <p>
+ * Settings are stored in a {@value #FILE} file in the directory of the tenant.
+ * Any setting left out, or the whole file, falls back to the settings of a single worker.
+ *
+ * @param locations      Locations the tenant works at, never empty.
+ * @param defaultPayRate Default pay rate of the tenant.
+ * @param year           Year to append to dates entered by the tenant.
+ */
+public record TenantSettings(List<String> locations, double defaultPayRate, int year) {
+	/** Name of the file holding the settings of a tenant, in the directory of the tenant. */
+	public static final String FILE = "tenant.properties";
+	/** Year to append to dates entered, when not set. */
+	public static final int DEFAULT_YEAR = 2024;
+
+	/** Key of the comma separated locations. */
+	private static final String LOCATIONS_KEY = "locations";
+	/** Key of the default pay rate. */
+	private static final String PAY_RATE_KEY = "payRate";
+	/** Key of the year. */
+	private static final String YEAR_KEY = "year";
+
+	/**
+	 * @return Settings of a single worker: the {@linkplain LocationRegistry#configured() configured locations},
+	 * {@link Shift#DEFAULT_PAY_RATE}, and {@value #DEFAULT_YEAR}.
+	 */
+	public static TenantSettings defaults() {
+		return new TenantSettings(LocationRegistry.configured(), Shift.DEFAULT_PAY_RATE, DEFAULT_YEAR);
+	}
+
+	/**
+	 * Read the settings of the tenant whose {@link tracker.PayPeriod PayPeriods} are in the given directory.
+	 *
+	 * @param directory Directory of the tenant.
+	 * @return Settings in the {@value #FILE} file of the directory, or the {@linkplain #defaults() defaults} if there is none.
+	 * @throws IOException If an error is encountered when reading the file, or a setting is invalid.
+	 */
+	public static TenantSettings load(Path directory) throws IOException {
+		Path file = directory.resolve(FILE);
+		TenantSettings defaults = defaults();
+		if (!Files.isRegularFile(file)) {
+			return defaults;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		}
+		List<String> locations = new ArrayList<>();
+		for (String location : properties.getProperty(LOCATIONS_KEY, "").split(",")) {
+			if (!location.isBlank()) {
+				locations.add(LocationRegistry.name(LocationRegistry.intern(location.trim())));
+			}
+		}
+		try {
+			return new TenantSettings(
+				locations.isEmpty() ? defaults.locations() : List.copyOf(locations),
+				Double.parseDouble(properties.getProperty(PAY_RATE_KEY, String.valueOf(defaults.defaultPayRate()))),
+				Integer.parseInt(properties.getProperty(YEAR_KEY, String.valueOf(defaults.year())))
+			);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid setting in " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Write these settings to the {@value #FILE} file of the given directory, replacing it atomically.
+	 *
+	 * @param directory Directory of the tenant.
+	 * @throws IOException If an error is encountered when writing the file.
+	 */
+	public void store(Path directory) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(LOCATIONS_KEY, String.join(",", locations));
+		properties.setProperty(PAY_RATE_KEY, String.valueOf(defaultPayRate));
+		properties.setProperty(YEAR_KEY, String.valueOf(year));
+
+		Path tempFile = directory.resolve(FILE + ".tmp");
+		try (OutputStream out = Files.newOutputStream(tempFile)) {
+			properties.store(out, "Settings of the tenant");
+		}
+		Files.move(tempFile, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,75 @@
+package tracker.transaction;
+
+import tracker.Shift;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Operation of a transaction script, changing the {@link Shift Shifts} of a {@link tracker.PayPeriod PayPeriod}.
+ * A {@linkplain Shift} is identified by its date and time clocked in, as in a {@linkplain tracker.PayPeriod PayPeriod}.
+ */
+public sealed interface Operation permits Operation.Add, Operation.Remove, Operation.Edit {
+	/**
+	 * @return Line of the script the operation is on.
+	 */
+	int line();
+
+	/**
+	 * @return Date of the {@link Shift} the operation applies to.
+	 */
+	LocalDate date();
+
+	/**
+	 * Operation adding a new {@link Shift}.
+	 *
+	 * @param line  Line of the script the operation is on.
+	 * @param shift {@linkplain Shift} to add.
+	 */
+	record Add(int line, Shift shift) implements Operation {
+		@Override
+		public LocalDate date() {
+			return LocalDate.parse(shift.getDate());
+		}
+	}
+
+	/**
+	 * Operation removing a {@link Shift}.
+	 *
+	 * @param line Line of the script the operation is on.
+	 * @param date Date of the {@linkplain Shift} to remove.
+	 * @param in   Time clocked in of the {@linkplain Shift} to remove.
+	 */
+	record Remove(int line, LocalDate date, LocalTime in) implements Operation {
+	}
+
+	/**
+	 * Operation editing a {@link Shift}, possibly moving it to the {@link tracker.PayPeriod PayPeriod} of another date.
+	 * Every new value may be null to keep the value of the {@linkplain Shift}.
+	 *
+	 * @param line     Line of the script the operation is on.
+	 * @param date     Date of the {@linkplain Shift} to edit.
+	 * @param in       Time clocked in of the {@linkplain Shift} to edit.
+	 * @param location New location worked at.
+	 * @param newDate  New date worked.
+	 * @param newIn    New time clocked in.
+	 * @param newOut   New time clocked out.
+	 * @param payRate  New pay rate.
+	 */
+	record Edit(int line, LocalDate date, LocalTime in, String location, LocalDate newDate, LocalTime newIn,
+	            LocalTime newOut, Double payRate) implements Operation {
+		/**
+		 * @param shift {@link Shift} to edit.
+		 * @return New {@linkplain Shift} with the new values of this operation, and the other values of the given {@linkplain Shift}.
+		 */
+		public Shift apply(Shift shift) {
+			return new Shift(
+				(location != null) ? location : shift.getLocation(),
+				(newDate != null) ? newDate.toString() : shift.getDate(),
+				(newIn != null) ? newIn.toString() : shift.getIn(),
+				(newOut != null) ? newOut.toString() : shift.getOut(),
+				(payRate != null) ? payRate : shift.getPayRate()
+			);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package tracker.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import tracker.PayPeriod;
+import tracker.Shift;
+import tracker.archive.Archive;
+import tracker.archive.PayPeriodFiles;
+import tracker.archive.PayPeriodStore;
+import tracker.archive.SegmentFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class to apply the {@link Operation Operations} of a transaction script to the {@link PayPeriod PayPeriods}
+ * of an {@link Archive}, then write every changed {@linkplain PayPeriod} at once.
+ * <p>
+ * Every operation is routed to the {@linkplain PayPeriod} holding its date. Every {@linkplain PayPeriod} touched
+ * is read once, in parallel, and the operations are applied to it in memory, in the order of the script.
+ * If any operation fails, nothing is written. Otherwise every changed {@linkplain PayPeriod} is written in a single
+ * {@linkplain PayPeriodStore#commit(Map) commit}, also aborted if another writer changed any of their files meanwhile.
+ */
+public class Transaction {
+	/**
+	 * Result of a transaction.
+	 *
+	 * @param changed   Changed {@link PayPeriod PayPeriods}, by file, sorted.
+	 * @param conflicts Files changed by another writer since they were read, empty if the changes were written.
+	 */
+	public record Result(SortedMap<Path, PayPeriod> changed, List<Path> conflicts) {
+	}
+
+	/**
+	 * {@link PayPeriod} read for the transaction.
+	 *
+	 * @param file      File the {@linkplain PayPeriod} is written to.
+	 * @param payPeriod {@linkplain PayPeriod} read, changed in place by the operations.
+	 * @param version   Version of the file when it was read, null if it was read from a segment.
+	 */
+	private record Loaded(Path file, PayPeriod payPeriod, String version) {
+	}
+
+	/** Object mapper to use for deserialization of {@link PayPeriod} objects. */
+	private final ObjectMapper objectMapper;
+	/** Store to read and write {@link PayPeriod} JSON files with. */
+	private final PayPeriodStore store;
+	/** Archive to change. */
+	private final Archive archive;
+
+	/**
+	 * Create a new {@link Transaction} over the given archive.
+	 *
+	 * @param objectMapper Object mapper to use for deserialization of {@link PayPeriod} objects.
+	 * @param store        Store to read and write {@link PayPeriod} JSON files with.
+	 * @param archive      Archive to change.
+	 */
+	public Transaction(ObjectMapper objectMapper, PayPeriodStore store, Archive archive) {
+		this.objectMapper = objectMapper;
+		this.store = store;
+		this.archive = archive;
+	}
+
+	/**
+	 * Apply the given operations, then write every changed {@link PayPeriod}, unless dry running.
+	 *
+	 * @param operations Operations to apply, in order.
+	 * @param dryRun     Apply the operations without writing any file?
+	 * @return Result of the transaction.
+	 * @throws IllegalArgumentException If an operation cannot be applied, with its line number in the message.
+	 *                                  Nothing is written.
+	 * @throws IOException              If an error is encountered when reading or writing the archive.
+	 */
+	public Result run(List<Operation> operations, boolean dryRun) throws IllegalArgumentException, IOException {
+		NavigableSet<LocalDate> starts = starts();
+		Set<LocalDate> touched = new LinkedHashSet<>();
+		for (Operation operation : operations) {
+			touched.add(periodOf(starts, operation.date(), operation.line()));
+			if (operation instanceof Operation.Edit edit && edit.newDate() != null) {
+				touched.add(periodOf(starts, edit.newDate(), edit.line()));
+			}
+		}
+
+		Map<LocalDate, Loaded> loaded = load(touched);
+		Map<LocalDate, Loaded> changed = new HashMap<>();
+		for (Operation operation : operations) {
+			Loaded target = loaded.get(periodOf(starts, operation.date(), operation.line()));
+			PayPeriod payPeriod = target.payPeriod();
+			if (operation instanceof Operation.Add add) {
+				if (find(payPeriod, add.date(), LocalTime.parse(add.shift().getIn())) != null) {
+					throw new IllegalArgumentException("Line " + add.line() + ": a Shift on " + add.date()
+						+ " at " + add.shift().getIn() + " already exists.");
+				}
+				payPeriod.addShift(add.shift());
+				changed.put(LocalDate.parse(payPeriod.getStart()), target);
+			} else if (operation instanceof Operation.Remove remove) {
+				payPeriod.removeShift(require(payPeriod, remove.date(), remove.in(), remove.line()));
+				changed.put(LocalDate.parse(payPeriod.getStart()), target);
+			} else if (operation instanceof Operation.Edit edit) {
+				Shift oldShift = require(payPeriod, edit.date(), edit.in(), edit.line());
+				Shift newShift = edit.apply(oldShift);
+				LocalDate newDate = LocalDate.parse(newShift.getDate());
+				Loaded newTarget = loaded.get(periodOf(starts, newDate, edit.line()));
+				payPeriod.removeShift(oldShift);
+				if (find(newTarget.payPeriod(), newDate, LocalTime.parse(newShift.getIn())) != null) {
+					throw new IllegalArgumentException("Line " + edit.line() + ": a Shift on " + newDate
+						+ " at " + newShift.getIn() + " already exists.");
+				}
+				newTarget.payPeriod().addShift(newShift);
+				changed.put(LocalDate.parse(payPeriod.getStart()), target);
+				changed.put(LocalDate.parse(newTarget.payPeriod().getStart()), newTarget);
+			}
+		}
+
+		SortedMap<Path, PayPeriod> written = new TreeMap<>();
+		Map<Path, PayPeriodStore.Change> changes = new HashMap<>();
+		for (Loaded target : changed.values()) {
+			written.put(target.file(), target.payPeriod());
+			changes.put(target.file(), new PayPeriodStore.Change(target.payPeriod(), target.version()));
+		}
+		List<Path> conflicts = dryRun ? List.of() : store.commit(changes);
+		return new Result(Collections.unmodifiableSortedMap(written), conflicts);
+	}
+
+	/**
+	 * @return Starting dates of every {@link PayPeriod} in the archive, in a JSON file or a segment.
+	 * @throws IOException If an error is encountered when listing the archive.
+	 */
+	private NavigableSet<LocalDate> starts() throws IOException {
+		NavigableSet<LocalDate> starts = new TreeSet<>();
+		for (Path file : PayPeriodFiles.list(archive.getDirectory())) {
+			LocalDate start = Archive.startOf(file);
+			if (start != null) {
+				starts.add(start);
+			}
+		}
+		for (Path segmentPath : archive.segments()) {
+			try (SegmentFile segment = SegmentFile.open(segmentPath)) {
+				starts.addAll(segment.getStarts());
+			}
+		}
+		return starts;
+	}
+
+	/**
+	 * @param starts Starting dates of every {@link PayPeriod} in the archive.
+	 * @param date   Date of a {@link Shift}.
+	 * @param line   Line of the operation on the date.
+	 * @return Starting date of the {@linkplain PayPeriod} holding the given date.
+	 * @throws IllegalArgumentException If no {@linkplain PayPeriod} in the archive holds the date.
+	 */
+	private static LocalDate periodOf(NavigableSet<LocalDate> starts, LocalDate date, int line) throws IllegalArgumentException {
+		LocalDate start = starts.floor(date);
+		if (start == null || date.isAfter(start.plusDays(13))) {
+			throw new IllegalArgumentException("Line " + line + ": no PayPeriod holds the date " + date + ".");
+		}
+		return start;
+	}
+
+	/**
+	 * Read the {@link PayPeriod PayPeriods} starting on the given dates in parallel,
+	 * from their JSON file if there is one, else from their segment.
+	 *
+	 * @param starts Starting dates of the {@linkplain PayPeriod PayPeriods} to read.
+	 * @return {@linkplain PayPeriod PayPeriods} read, by starting date.
+	 * @throws IOException If an error is encountered when reading the archive.
+	 */
+	private Map<LocalDate, Loaded> load(Collection<LocalDate> starts) throws IOException {
+		Map<LocalDate, Loaded> loaded = new ConcurrentHashMap<>();
+		try {
+			starts.parallelStream().forEach(start -> {
+				try {
+					Path file = archive.findFile(start);
+					if (file != null) {
+						PayPeriodStore.Versioned versioned = store.read(file);
+						loaded.put(start, new Loaded(file, versioned.payPeriod(), versioned.version()));
+					} else {
+						file = archive.fileOf(start);
+						loaded.put(start, new Loaded(file, archive.readArchived(file), null));
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return loaded;
+	}
+
+	/**
+	 * @param payPeriod {@link PayPeriod} to search.
+	 * @param date      Date of the {@link Shift}.
+	 * @param in        Time clocked in of the {@linkplain Shift}.
+	 * @return {@linkplain Shift} of the {@linkplain PayPeriod} on the given date and time clocked in, or null if there is none.
+	 */
+	private static Shift find(PayPeriod payPeriod, LocalDate date, LocalTime in) {
+		String dateText = date.toString();
+		String inText = in.toString();
+		for (Shift shift : payPeriod.getShifts()) {
+			if (shift.getDate().equals(dateText) && shift.getIn().equals(inText)) {
+				return shift;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param payPeriod {@link PayPeriod} to search.
+	 * @param date      Date of the {@link Shift}.
+	 * @param in        Time clocked in of the {@linkplain Shift}.
+	 * @param line      Line of the operation on the {@linkplain Shift}.
+	 * @return {@linkplain Shift} of the {@linkplain PayPeriod} on the given date and time clocked in.
+	 * @throws IllegalArgumentException If there is no such {@linkplain Shift}.
+	 */
+	private static Shift require(PayPeriod payPeriod, LocalDate date, LocalTime in, int line) throws IllegalArgumentException {
+		Shift shift = find(payPeriod, date, in);
+		if (shift == null) {
+			throw new IllegalArgumentException("Line " + line + ": no Shift on " + date + " at " + in + ".");
+		}
+		return shift;
+	}
+}
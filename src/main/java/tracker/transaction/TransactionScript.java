@@ -0,0 +1,127 @@
+package tracker.transaction;
+
+import tracker.LocationRegistry;
+import tracker.Shift;
+import tracker.tenant.TenantSettings;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parser of transaction scripts: one {@link Operation} per line, its fields separated by commas.
+ * Blank lines and lines starting with <code>#</code> are skipped.
+ * <pre>
+ * add, YYYY-MM-DD, HH:MM, HH:MM[, rate[, location]]
+ * remove, YYYY-MM-DD, HH:MM
+ * edit, YYYY-MM-DD, HH:MM, field=value[, field=value]...
+ * </pre>
+ * The rate and location of an added {@link Shift} default to those of the tenant, when it works at a single location.
+ * The fields of an edit are <code>location</code>, <code>date</code>, <code>in</code>, <code>out</code> and <code>rate</code>.
+ */
+public final class TransactionScript {
+	private TransactionScript() {
+	}
+
+	/**
+	 * Parse the operations of a script.
+	 *
+	 * @param lines    Lines of the script.
+	 * @param settings Settings of the tenant, for the default rate and location of added {@link Shift Shifts}.
+	 * @return List of the operations of the script, in order.
+	 * @throws IllegalArgumentException If a line is not a valid operation, with the line number in the message.
+	 */
+	public static List<Operation> parse(List<String> lines, TenantSettings settings) throws IllegalArgumentException {
+		List<Operation> operations = new ArrayList<>();
+		for (int i = 0; i < lines.size(); ++i) {
+			String line = lines.get(i).strip();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			try {
+				operations.add(parseLine(i + 1, line.split("\\s*,\\s*"), settings));
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": invalid date or time " + e.getParsedString() + ".");
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": invalid pay rate.");
+			}
+		}
+		return operations;
+	}
+
+	/**
+	 * @param number   Line number.
+	 * @param fields   Fields of the line.
+	 * @param settings Settings of the tenant.
+	 * @return Operation of the line.
+	 * @throws IllegalArgumentException If the line is not a valid operation.
+	 */
+	private static Operation parseLine(int number, String[] fields, TenantSettings settings) throws IllegalArgumentException {
+		String action = fields[0].toLowerCase(Locale.ROOT);
+		switch (action) {
+			case "add" -> {
+				expectFields(number, fields, 4, 6);
+				LocalDate date = LocalDate.parse(fields[1]);
+				LocalTime in = LocalTime.parse(fields[2]);
+				LocalTime out = LocalTime.parse(fields[3]);
+				double payRate = (fields.length > 4) ? Double.parseDouble(fields[4]) : settings.defaultPayRate();
+				String location;
+				if (fields.length > 5) {
+					location = LocationRegistry.name(LocationRegistry.intern(fields[5]));
+				} else if (settings.locations().size() == 1) {
+					location = settings.locations().get(0);
+				} else {
+					throw new IllegalArgumentException("Line " + number + ": location required, the tenant works at several locations.");
+				}
+				return new Operation.Add(number, new Shift(location, date.toString(), in.toString(), out.toString(), payRate));
+			}
+			case "remove" -> {
+				expectFields(number, fields, 3, 3);
+				return new Operation.Remove(number, LocalDate.parse(fields[1]), LocalTime.parse(fields[2]));
+			}
+			case "edit" -> {
+				expectFields(number, fields, 4, 8);
+				String location = null;
+				LocalDate newDate = null;
+				LocalTime newIn = null;
+				LocalTime newOut = null;
+				Double payRate = null;
+				for (int i = 3; i < fields.length; ++i) {
+					int separator = fields[i].indexOf('=');
+					if (separator < 0) {
+						throw new IllegalArgumentException("Line " + number + ": expected field=value, found " + fields[i] + ".");
+					}
+					String value = fields[i].substring(separator + 1).strip();
+					switch (fields[i].substring(0, separator).strip().toLowerCase(Locale.ROOT)) {
+						case "location" -> location = LocationRegistry.name(LocationRegistry.intern(value));
+						case "date" -> newDate = LocalDate.parse(value);
+						case "in" -> newIn = LocalTime.parse(value);
+						case "out" -> newOut = LocalTime.parse(value);
+						case "rate" -> payRate = Double.parseDouble(value);
+						default -> throw new IllegalArgumentException("Line " + number + ": unknown field " + fields[i] + ".");
+					}
+				}
+				return new Operation.Edit(number, LocalDate.parse(fields[1]), LocalTime.parse(fields[2]),
+					location, newDate, newIn, newOut, payRate);
+			}
+			default -> throw new IllegalArgumentException("Line " + number + ": unknown operation " + fields[0] + ".");
+		}
+	}
+
+	/**
+	 * @param number Line number.
+	 * @param fields Fields of the line.
+	 * @param min    Least number of fields expected.
+	 * @param max    Greatest number of fields expected.
+	 * @throws IllegalArgumentException If the line does not have the expected number of fields.
+	 */
+	private static void expectFields(int number, String[] fields, int min, int max) throws IllegalArgumentException {
+		if (fields.length < min || fields.length > max) {
+			throw new IllegalArgumentException("Line " + number + ": expected " + min
+				+ ((max != min) ? " to " + max : "") + " fields, found " + fields.length + ".");
+		}
+	}
+}